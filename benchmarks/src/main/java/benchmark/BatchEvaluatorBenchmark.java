@@ -0,0 +1,79 @@
+package benchmark;
+
+import chess.ChessGame;
+import engine.BatchEvaluator;
+import engine.PositionBatch;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring a full batch of the corpus positions, repeated to the batch size.
+ * The {@code positions} counter per second is the throughput of an offline
+ * analysis job; the kernels parameter compares the scalar reference with the
+ * Vector API.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class BatchEvaluatorBenchmark {
+
+    @Param({"SCALAR", "VECTOR"})
+    public String kernels;
+
+    @Param({"4096"})
+    public int batchSize;
+
+    private BatchEvaluator evaluator;
+    private PositionBatch batch;
+    private int[] scores;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Positions {
+        public long positions;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            positions = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        evaluator = new BatchEvaluator(kernels.equals("VECTOR"));
+        batch = new PositionBatch(batchSize);
+        scores = new int[batchSize];
+        while (!batch.isFull()) {
+            for (PositionCorpus.Phase phase : PositionCorpus.Phase.values()) {
+                for (ChessGame game : PositionCorpus.games(phase)) {
+                    if (!batch.isFull()) {
+                        batch.add(game);
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] evaluate(Positions counter) {
+        evaluator.evaluate(batch, scores);
+        counter.positions += batch.size();
+        return scores;
+    }
+}
@@ -0,0 +1,157 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The public rules API as the server uses it. Each operation runs once over
+ * every position in the selected phase of {@link PositionCorpus}, so ns/op
+ * is per corpus, not per position.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ChessGameBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public PositionCorpus.Phase phase;
+
+    private final Gson gson = new Gson();
+
+    private ChessGame[] games;
+    private ChessMove[] firstMoves;
+    private String[] json;
+    private String[] fens;
+
+    @Setup
+    public void setUp() {
+        games = PositionCorpus.games(phase);
+        fens = PositionCorpus.fens(phase).toArray(new String[0]);
+        firstMoves = new ChessMove[games.length];
+        json = new String[games.length];
+
+        for (int i = 0; i < games.length; i++) {
+            ChessGame game = games[i];
+            for (ChessPosition position : game.getBoard().getTeamPositions(game.getTeamTurn())) {
+                Collection<ChessMove> moves = game.validMoves(position);
+                if (!moves.isEmpty()) {
+                    firstMoves[i] = moves.iterator().next();
+                    break;
+                }
+            }
+            json[i] = gson.toJson(game);
+        }
+    }
+
+    /** Legal moves for every piece of the side to move */
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            for (ChessPosition position : game.getBoard().getTeamPositions(game.getTeamTurn())) {
+                blackhole.consume(game.validMoves(position));
+            }
+        }
+    }
+
+    /** Plays one legal move on a fresh copy of each position, so this includes the cost of {@link #boardCopy} */
+    @Benchmark
+    public void makeMove(Blackhole blackhole) throws InvalidMoveException {
+        for (int i = 0; i < games.length; i++) {
+            ChessGame game = copyOf(games[i]);
+            game.makeMove(firstMoves[i]);
+            blackhole.consume(game);
+        }
+    }
+
+    /** Asks for both teams; the side to move is answered from the status cache after the first call */
+    @Benchmark
+    public void isInCheckmate(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+            blackhole.consume(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        }
+    }
+
+    /** Asks for both teams; the side to move is answered from the status cache after the first call */
+    @Benchmark
+    public void isInStalemate(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(game.isInStalemate(ChessGame.TeamColor.WHITE));
+            blackhole.consume(game.isInStalemate(ChessGame.TeamColor.BLACK));
+        }
+    }
+
+    /** Status of a game that has never been asked before, as after every move */
+    @Benchmark
+    public void evaluateStatusUncached(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(copyOf(game).evaluateStatus());
+        }
+    }
+
+    @Benchmark
+    public void boardCopy(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(game.getBoard().copy());
+        }
+    }
+
+    /** Serialize and parse back, as the database layer does on every move */
+    @Benchmark
+    public void gsonRoundTrip(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(gson.fromJson(gson.toJson(game), ChessGame.class));
+        }
+    }
+
+    @Benchmark
+    public void gsonRead(Blackhole blackhole) {
+        for (String text : json) {
+            blackhole.consume(gson.fromJson(text, ChessGame.class));
+        }
+    }
+
+    @Benchmark
+    public void fenParse(Blackhole blackhole) {
+        for (String fen : fens) {
+            blackhole.consume(ChessGame.fromFen(fen));
+        }
+    }
+
+    @Benchmark
+    public void fenWrite(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(game.toFen());
+        }
+    }
+
+    private static ChessGame copyOf(ChessGame game) {
+        ChessBoard board = game.getBoard().copy();
+        ChessGame copy = new ChessGame();
+        copy.setBoard(board);
+        copy.setTeamTurn(game.getTeamTurn());
+        return copy;
+    }
+}
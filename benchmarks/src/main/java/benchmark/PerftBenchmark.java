@@ -0,0 +1,53 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.Perft;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw move generator throughput: perft to a fixed depth over the corpus.
+ * Divide the node count printed by {@code Perft} by this time for nodes per
+ * second.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class PerftBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public PositionCorpus.Phase phase;
+
+    @Param({"3"})
+    public int depth;
+
+    private ChessGame[] games;
+
+    @Setup
+    public void setUp() {
+        games = PositionCorpus.games(phase);
+    }
+
+    @Benchmark
+    public long perft() {
+        long nodes = 0;
+        for (ChessGame game : games) {
+            nodes += Perft.run(game, depth);
+        }
+        return nodes;
+    }
+}
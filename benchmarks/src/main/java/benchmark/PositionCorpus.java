@@ -0,0 +1,55 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.Fen;
+
+import java.util.List;
+
+/**
+ * Positions the benchmarks run over, grouped by game phase so that changes
+ * which help crowded boards but hurt sparse ones (or the reverse) show up
+ */
+public final class PositionCorpus {
+
+    private static final List<String> OPENING = List.of(
+            Fen.STARTING_POSITION,
+            "rnbqkbnr/pppp1ppp/8/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2",
+            "r1bqkbnr/pppp1ppp/2n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 3 3",
+            "rnbqkb1r/pp2pppp/3p1n2/8/3NP3/8/PPP2PPP/RNBQKB1R w KQkq - 1 5",
+            "rnbqk2r/ppp1ppbp/3p1np1/8/2PPP3/2N5/PP3PPP/R1BQKBNR w KQkq - 1 5"
+    );
+
+    private static final List<String> MIDDLEGAME = List.of(
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP1B1PPP/R2QKB1R w KQ - 0 8",
+            "2rq1rk1/pb1nbppp/1p2pn2/2pp4/2PP4/1PN1PN2/PB2BPPP/2RQ1RK1 w - - 0 11",
+            "r2q1rk1/1b2bppp/p2ppn2/1p6/3NP3/1BN1B3/PPP2PPP/R2Q1RK1 w - - 0 12"
+    );
+
+    private static final List<String> ENDGAME = List.of(
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "8/8/4k3/3p4/3P4/4K3/8/8 w - - 0 50",
+            "8/5pk1/6p1/7p/7P/6P1/5PK1/3R4 w - - 0 40",
+            "4k3/8/8/8/8/8/4P3/4K2R w K - 0 1",
+            "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1"
+    );
+
+    public enum Phase {
+        OPENING, MIDDLEGAME, ENDGAME
+    }
+
+    private PositionCorpus() {}
+
+    public static List<String> fens(Phase phase) {
+        return switch (phase) {
+            case OPENING -> OPENING;
+            case MIDDLEGAME -> MIDDLEGAME;
+            case ENDGAME -> ENDGAME;
+        };
+    }
+
+    public static ChessGame[] games(Phase phase) {
+        return fens(phase).stream().map(Fen::parse).toArray(ChessGame[]::new);
+    }
+}
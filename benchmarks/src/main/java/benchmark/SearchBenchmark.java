@@ -0,0 +1,74 @@
+package benchmark;
+
+import chess.ChessGame;
+import engine.Engine;
+import engine.Limits;
+import engine.MaterialEvaluator;
+import engine.TaperedEvaluator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed depth searches over the corpus. Alongside searches per second, JMH
+ * reports the {@code nodes} counter per second, which is the engine's nodes
+ * per second figure; the target is at least 1,000,000 on one core. The
+ * evaluator parameter compares plain material counting with the incremental
+ * tapered evaluation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public PositionCorpus.Phase phase;
+
+    @Param({"5"})
+    public int depth;
+
+    @Param({"MATERIAL", "TAPERED"})
+    public String evaluator;
+
+    private Engine engine;
+    private ChessGame[] games;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        games = PositionCorpus.games(phase);
+        engine = new Engine(evaluator.equals("MATERIAL") ? new MaterialEvaluator() : new TaperedEvaluator());
+    }
+
+    @Benchmark
+    public void search(Nodes counter) {
+        for (ChessGame game : games) {
+            counter.nodes += engine.search(game, Limits.depth(depth)).nodes();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package benchmark;
+
+import chess.ChessGame;
+import engine.Engine;
+import engine.Limits;
+import engine.MaterialEvaluator;
+import engine.TranspositionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to reach a fixed depth on the middlegame positions with a cleared
+ * table each time, the usual measure of Lazy SMP speedup. Divide the one
+ * thread score by the N thread score for the speedup on this machine; run
+ * with {@code -p threads=1,2,4,8,16,32} on a box with that many cores.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SmpBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"7"})
+    public int depth;
+
+    private TranspositionTable table;
+    private Engine engine;
+    private ChessGame[] games;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = new TranspositionTable(64);
+        engine = new Engine(MaterialEvaluator::new, table, threads);
+        games = PositionCorpus.games(PositionCorpus.Phase.MIDDLEGAME);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public long timeToDepth() {
+        long nodes = 0;
+        for (ChessGame game : games) {
+            nodes += engine.search(game, Limits.depth(depth)).nodes();
+        }
+        return nodes;
+    }
+}
@@ -380,7 +380,7 @@ public class ClientUI {
         try {
             ChessPosition from = parsePosition(parts[1]);
             ChessPosition to = parsePosition(parts[2]);
-            ChessMove move = new ChessMove(from, to, null);
+            ChessMove move = ChessMove.of(from, to, null);
             
             serverFacade.makeMove(authToken, currentGameID, move);
             System.out.println("Move sent!");
@@ -490,6 +490,6 @@ public class ClientUI {
             throw new IllegalArgumentException("Position out of bounds");
         }
         
-        return new ChessPosition(row - '0', col - 'a' + 1);
+        return ChessPosition.of(row - '0', col - 'a' + 1);
     }
 }
\ No newline at end of file
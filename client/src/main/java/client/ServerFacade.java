@@ -1,7 +1,6 @@
 package client;
 import com.google.gson.Gson;
 import websocket.commands.ConnectCommand;
-import websocket.commands.MakeMoveCommand;
 import websocket.commands.LeaveCommand;
 import websocket.commands.ResignCommand;
 import chess.ChessMove;
@@ -199,7 +198,7 @@ public class ServerFacade {
 
     public void connectToGame(String authToken, int gameID, WebSocketClient.MessageHandler messageHandler) throws Exception {
         webSocketClient = new WebSocketClient(serverUrl, messageHandler);
-        ConnectCommand connectCommand = new ConnectCommand(authToken, gameID);
+        ConnectCommand connectCommand = new ConnectCommand(authToken, gameID, ConnectCommand.Protocol.BINARY, true);
         webSocketClient.sendCommand(connectCommand);
     }
 
@@ -207,8 +206,7 @@ public class ServerFacade {
         if (webSocketClient == null) {
             throw new Exception("Not connected to game");
         }
-        MakeMoveCommand makeMoveCommand = new MakeMoveCommand(authToken, gameID, move);
-        webSocketClient.sendCommand(makeMoveCommand);
+        webSocketClient.sendMove(move);
     }
 
     public void leaveGame(String authToken, int gameID) throws Exception {
@@ -1,15 +1,23 @@
 package client;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import websocket.BinaryCodec;
+import websocket.commands.ConnectCommand;
+import websocket.commands.ResyncCommand;
 import websocket.commands.UserGameCommand;
 import websocket.messages.ServerMessage;
 import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveAppliedMessage;
 import websocket.messages.ErrorMessage;
 import websocket.messages.NotificationMessage;
 
 import javax.websocket.*;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 
 @ClientEndpoint
 public class WebSocketClient {
@@ -17,6 +25,9 @@ public class WebSocketClient {
     private Session session;
     private final Gson gson = new Gson();
     private MessageHandler messageHandler;
+    // The game as of the last update, which MOVE_APPLIED messages are played on
+    private chess.ChessGame game;
+    private ConnectCommand connectCommand;
 
     public interface MessageHandler {
         void handleLoadGame(chess.ChessGame game);
@@ -39,26 +50,69 @@ public class WebSocketClient {
     @OnMessage
     public void onMessage(String message) {
         try {
-            ServerMessage msg = gson.fromJson(message, ServerMessage.class);
-            
-            if (msg.getServerMessageType() == ServerMessage.ServerMessageType.LOAD_GAME) {
-                LoadGameMessage loadMsg = gson.fromJson(message, LoadGameMessage.class);
-                messageHandler.handleLoadGame(loadMsg.getGame());
-            } else if (msg.getServerMessageType() == ServerMessage.ServerMessageType.ERROR) {
-                ErrorMessage errMsg = gson.fromJson(message, ErrorMessage.class);
-                messageHandler.handleError(errMsg.getErrorMessage());
-            } else if (msg.getServerMessageType() == ServerMessage.ServerMessageType.NOTIFICATION) {
-                NotificationMessage notifMsg = gson.fromJson(message, NotificationMessage.class);
-                messageHandler.handleNotification(notifMsg.getMessage());
+            // Parse the text once and bind the tree to the message class its type names
+            JsonObject json = JsonParser.parseString(message).getAsJsonObject();
+            JsonElement type = json.get("serverMessageType");
+            if (type == null) {
+                return;
+            }
+            switch (ServerMessage.ServerMessageType.valueOf(type.getAsString())) {
+                case LOAD_GAME -> handle(gson.fromJson(json, LoadGameMessage.class));
+                case ERROR -> handle(gson.fromJson(json, ErrorMessage.class));
+                case NOTIFICATION -> handle(gson.fromJson(json, NotificationMessage.class));
+                case MOVE_APPLIED -> handle(gson.fromJson(json, MoveAppliedMessage.class));
             }
         } catch (Exception e) {
             System.err.println("Error processing message: " + e.getMessage());
         }
     }
 
+    @OnMessage
+    public void onMessage(ByteBuffer frame) {
+        try {
+            handle(BinaryCodec.decodeServerMessage(frame));
+        } catch (Exception e) {
+            System.err.println("Error processing message: " + e.getMessage());
+        }
+    }
+
+    private void handle(ServerMessage message) throws IOException {
+        if (message instanceof LoadGameMessage loadMsg) {
+            game = loadMsg.getGame();
+            messageHandler.handleLoadGame(game);
+        } else if (message instanceof MoveAppliedMessage moveMsg) {
+            applyMove(moveMsg);
+        } else if (message instanceof ErrorMessage errMsg) {
+            messageHandler.handleError(errMsg.getErrorMessage());
+        } else if (message instanceof NotificationMessage notifMsg) {
+            messageHandler.handleNotification(notifMsg.getMessage());
+        }
+    }
+
 
+    // Plays the move on our copy, or asks for the whole game if the copy has drifted from the server's
+    private void applyMove(MoveAppliedMessage message) throws IOException {
+        if (game != null) {
+            try {
+                game.makeMove(message.getMove());
+                if (game.positionKey() == message.getPositionKey()) {
+                    messageHandler.handleLoadGame(game);
+                    return;
+                }
+            } catch (chess.InvalidMoveException e) {
+                // Fall through to a resync
+            }
+        }
+        game = null;
+        if (connectCommand != null) {
+            sendCommand(new ResyncCommand(connectCommand.getAuthToken(), connectCommand.getGameID()));
+        }
+    }
 
     public void sendCommand(UserGameCommand command) throws IOException {
+        if (command instanceof ConnectCommand connect) {
+            connectCommand = connect;
+        }
         if (session != null && session.isOpen()) {
             String msg = gson.toJson(command);
             session.getBasicRemote().sendText(msg);
@@ -67,6 +121,15 @@ public class WebSocketClient {
         }
     }
 
+    // Only for connections that sent a binary CONNECT; the server knows the game and player from it
+    public void sendMove(chess.ChessMove move) throws IOException {
+        if (session != null && session.isOpen()) {
+            session.getBasicRemote().sendBinary(ByteBuffer.wrap(BinaryCodec.encodeMakeMove(move)));
+        } else {
+            throw new IOException("WebSocket connection is not open");
+        }
+    }
+
     public void close() throws IOException {
         if (session != null && session.isOpen()) {
             session.close();
@@ -38,7 +38,7 @@ public class ChessBoardRenderer {
         
         for (int row = 0; row < 8; row++) {
             for (int col = 0; col < 8; col++) {
-                chess.ChessPosition pos = new chess.ChessPosition(row + 1, col + 1);
+                chess.ChessPosition pos = chess.ChessPosition.of(row + 1, col + 1);
                 chess.ChessPiece piece = game.getBoard().getPiece(pos);
                 
                 if (piece == null) {
@@ -79,7 +79,7 @@ public class ChessBoardRenderer {
         for (int i = 0; i < 8; i++) {
             int col = flipped ? 7 - i : i;
             boolean isLightSquare = (row + col) % 2 != 0;
-            ChessPosition pos = new ChessPosition(row + 1, col + 1);
+            ChessPosition pos = ChessPosition.of(row + 1, col + 1);
             boolean isHighlighted = highlightedSquares.contains(pos);
 
             if (isHighlighted) {
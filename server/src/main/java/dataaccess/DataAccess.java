@@ -1,5 +1,6 @@
 package dataaccess;
 
+import model.BotSeat;
 import model.GameData;
 import model.UserData;
 import model.AuthData;
@@ -30,4 +31,10 @@ public interface DataAccess {
     GameData getGame(int gameID) throws DataAccessException;
 
     void updateGame(GameData updatedGame) throws DataAccessException;
+
+    void createBotSeat(BotSeat seat) throws DataAccessException;
+
+    BotSeat getBotSeat(int gameID) throws DataAccessException;
+
+    List<BotSeat> listBotSeats() throws DataAccessException;
 }
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
 
+import model.BotSeat;
 import model.GameData;
 import model.UserData;
 import model.AuthData;
@@ -14,17 +15,20 @@ public class MemoryDataAccess implements DataAccess {
     private final Map<String, UserData> users = new HashMap<>();
     private final Map<String, AuthData> authTokens = new HashMap<>();
     private final Map<Integer, GameData> games = new HashMap<>();
+    private final Map<Integer, BotSeat> botSeats = new HashMap<>();
 
     @Override
     public void clear() throws DataAccessException {
         users.clear();
         authTokens.clear();
         games.clear();
+        botSeats.clear();
     }
     
     @Override
     public void clearGames() throws DataAccessException {
         games.clear();
+        botSeats.clear();
     }
     
     @Override
@@ -81,4 +85,19 @@ public class MemoryDataAccess implements DataAccess {
     public void updateGame(GameData updatedGame) {
         games.put(updatedGame.gameID(), updatedGame);
     }
+
+    @Override
+    public void createBotSeat(BotSeat seat) {
+        botSeats.put(seat.gameID(), seat);
+    }
+
+    @Override
+    public BotSeat getBotSeat(int gameID) {
+        return botSeats.get(gameID);
+    }
+
+    @Override
+    public List<BotSeat> listBotSeats() {
+        return new ArrayList<>(botSeats.values());
+    }
 }
@@ -1,5 +1,6 @@
 package dataaccess;
 
+import model.BotSeat;
 import model.GameData;
 import model.UserData;
 import model.AuthData;
@@ -59,6 +60,15 @@ public class MySQLDataAccess implements DataAccess {
                 FOREIGN KEY (blackUsername) REFERENCES users(username) ON DELETE SET NULL
             )""";
 
+        var createBotSeatsTable = """
+            CREATE TABLE IF NOT EXISTS bot_seats (
+                gameID INT PRIMARY KEY,
+                color VARCHAR(5) NOT NULL,
+                depth INT NOT NULL,
+                moveTimeMillis INT NOT NULL,
+                FOREIGN KEY (gameID) REFERENCES games(gameID) ON DELETE CASCADE
+            )""";
+
         try (var statement = connection.prepareStatement(createUsersTable)) {
             statement.executeUpdate();
         }
@@ -68,6 +78,9 @@ public class MySQLDataAccess implements DataAccess {
         try (var statement = connection.prepareStatement(createGamesTable)) {
             statement.executeUpdate();
         }
+        try (var statement = connection.prepareStatement(createBotSeatsTable)) {
+            statement.executeUpdate();
+        }
     }
 
     @Override
@@ -281,4 +294,61 @@ public class MySQLDataAccess implements DataAccess {
             throw createDatabaseException("Error updating game", ex);
         }
     }
-} 
\ No newline at end of file
+
+    @Override
+    public void createBotSeat(BotSeat seat) throws DataAccessException {
+        var insertSeatSQL = "INSERT INTO bot_seats (gameID, color, depth, moveTimeMillis) VALUES (?, ?, ?, ?)";
+        try (var connection = DatabaseManager.getConnection();
+             var preparedStatement = connection.prepareStatement(insertSeatSQL)) {
+            preparedStatement.setInt(1, seat.gameID());
+            preparedStatement.setString(2, seat.color().name());
+            preparedStatement.setInt(3, seat.depth());
+            preparedStatement.setInt(4, seat.moveTimeMillis());
+            preparedStatement.executeUpdate();
+        } catch (SQLException ex) {
+            throw createDatabaseException("Error inserting bot seat", ex);
+        }
+    }
+
+    @Override
+    public BotSeat getBotSeat(int gameID) throws DataAccessException {
+        var selectSeatSQL = "SELECT gameID, color, depth, moveTimeMillis FROM bot_seats WHERE gameID = ?";
+        try (var connection = DatabaseManager.getConnection();
+             var preparedStatement = connection.prepareStatement(selectSeatSQL)) {
+            preparedStatement.setInt(1, gameID);
+            var resultSet = preparedStatement.executeQuery();
+            if (resultSet.next()) {
+                return new BotSeat(
+                    resultSet.getInt("gameID"),
+                    chess.ChessGame.TeamColor.valueOf(resultSet.getString("color")),
+                    resultSet.getInt("depth"),
+                    resultSet.getInt("moveTimeMillis")
+                );
+            }
+            return null;
+        } catch (SQLException ex) {
+            throw createDatabaseException("Error retrieving bot seat", ex);
+        }
+    }
+
+    @Override
+    public List<BotSeat> listBotSeats() throws DataAccessException {
+        var seats = new ArrayList<BotSeat>();
+        var selectSeatsSQL = "SELECT gameID, color, depth, moveTimeMillis FROM bot_seats";
+        try (var connection = DatabaseManager.getConnection();
+             var preparedStatement = connection.prepareStatement(selectSeatsSQL)) {
+            var resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                seats.add(new BotSeat(
+                    resultSet.getInt("gameID"),
+                    chess.ChessGame.TeamColor.valueOf(resultSet.getString("color")),
+                    resultSet.getInt("depth"),
+                    resultSet.getInt("moveTimeMillis")
+                ));
+            }
+            return seats;
+        } catch (SQLException ex) {
+            throw createDatabaseException("Error listing bot seats", ex);
+        }
+    }
+}
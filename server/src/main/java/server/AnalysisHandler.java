@@ -0,0 +1,67 @@
+package server;
+
+import com.google.gson.Gson;
+import dataaccess.DataAccessException;
+import service.AnalysisService;
+import service.BadRequestException;
+import service.ServiceUnavailableException;
+import service.UnauthorizedException;
+import service.requests.AnalysisRequest;
+import service.results.AnalysisResult;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.Map;
+
+/**
+ * Serves {@code GET /analysis?gameID=...} for a stored game's current position
+ * and {@code POST /analysis} with a {@code fen} in the body for any position.
+ */
+public class AnalysisHandler implements Route {
+    private final AnalysisService service;
+    private final Gson gson = new Gson();
+
+    public AnalysisHandler(AnalysisService service) {
+        this.service = service;
+    }
+
+    @Override
+    public Object handle(Request request, Response response) {
+        try {
+            String authToken = request.headers("authorization");
+
+            Integer gameID = null;
+            String fen = null;
+            try {
+                if (request.requestMethod().equals("GET")) {
+                    gameID = Integer.parseInt(request.queryParams("gameID"));
+                } else {
+                    Map<String, Object> body = gson.fromJson(request.body(), Map.class);
+                    fen = (String) body.get("fen");
+                }
+            } catch (Exception parseException) {
+                response.status(400);
+                return gson.toJson(Map.of("message", "Error: bad request"));
+            }
+
+            AnalysisResult result = service.analyze(new AnalysisRequest(authToken, gameID, fen));
+
+            response.status(200);
+            return gson.toJson(result);
+
+        } catch (UnauthorizedException e) {
+            response.status(401);
+            return gson.toJson(Map.of("message", "Error: unauthorized"));
+        } catch (BadRequestException e) {
+            response.status(400);
+            return gson.toJson(Map.of("message", "Error: bad request"));
+        } catch (ServiceUnavailableException e) {
+            response.status(503);
+            return gson.toJson(Map.of("message", "Error: " + e.getMessage()));
+        } catch (DataAccessException e) {
+            response.status(500);
+            return gson.toJson(Map.of("message", "Error: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package server;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import engine.Engine;
+import engine.Limits;
+import engine.OpeningBook;
+import engine.SearchResult;
+import model.BotSeat;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs bot searches on a fixed pool of worker threads, kept apart from the
+ * threads that handle HTTP and websocket traffic. Each worker searches one
+ * game at a time with its own single-threaded engine, so however many bot
+ * games are running, searching never uses more than the pool's threads and
+ * searches waiting for a worker just queue up. Position analysis for the
+ * REST API is queued on the same workers.
+ * <p>
+ * With an opening book, positions in the book are answered from it without
+ * searching: bots pick among the book moves by weight for variety, analysis
+ * gets the highest weighted one.
+ */
+public class BotPlayer implements AutoCloseable {
+
+    private static final int QUEUE_CAPACITY = 4096;
+
+    private final ThreadPoolExecutor pool;
+    private final ThreadLocal<Engine> engines;
+    private final OpeningBook book;
+
+    /**
+     * @param threads number of searches that may run at once
+     */
+    public BotPlayer(int threads) {
+        this(threads, null);
+    }
+
+    /**
+     * @param threads number of searches that may run at once
+     * @param book    opening book to play from before searching, or null for none
+     */
+    public BotPlayer(int threads, OpeningBook book) {
+        this(threads, book, Engine::new);
+    }
+
+    /**
+     * @param threads number of searches that may run at once
+     * @param book    opening book to play from before searching, or null for none
+     * @param engines makes the engine for each search thread, on that thread
+     */
+    public BotPlayer(int threads, OpeningBook book, Supplier<Engine> engines) {
+        this.book = book;
+        this.engines = ThreadLocal.withInitial(engines);
+        AtomicInteger count = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "bot-search-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a search for the bot's move. The game is copied before this returns,
+     * so the caller may keep changing it.
+     *
+     * @param game     the position, with the bot to move
+     * @param seat     the bot's strength and time per move
+     * @param callback given the result, or the exception if the search failed, on the search thread
+     * @return false if too many searches are already waiting
+     */
+    public boolean requestMove(ChessGame game, BotSeat seat, BiConsumer<SearchResult, Throwable> callback) {
+        return submit(game, new Limits(seat.depth(), 0, seat.moveTimeMillis()), true, callback);
+    }
+
+    /**
+     * Queues a search of any position, sharing the pool with bot moves. The game
+     * is copied before this returns.
+     *
+     * @param game     the position to search, with its side to move
+     * @param limits   when to stop
+     * @param callback given the result, or the exception if the search failed, on the search thread
+     * @return false if too many searches are already waiting
+     */
+    public boolean requestSearch(ChessGame game, Limits limits, BiConsumer<SearchResult, Throwable> callback) {
+        return submit(game, limits, false, callback);
+    }
+
+    private boolean submit(ChessGame game, Limits limits, boolean varied,
+                           BiConsumer<SearchResult, Throwable> callback) {
+        ChessGame position = game.copy();
+        try {
+            pool.execute(() -> {
+                SearchResult result;
+                try {
+                    ChessMove bookMove = book == null ? null
+                            : varied ? book.pickMove(position, ThreadLocalRandom.current().nextLong())
+                            : book.bestMove(position);
+                    result = bookMove != null ? SearchResult.bookMove(bookMove) : engines.get().search(position, limits);
+                } catch (Throwable t) {
+                    // Errors too, such as running out of direct memory for a new engine's table,
+                    // or whoever is waiting on the callback waits forever
+                    callback.accept(null, t);
+                    if (t instanceof Error error) {
+                        throw error;
+                    }
+                    return;
+                }
+                callback.accept(result, null);
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
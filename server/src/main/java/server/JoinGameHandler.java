@@ -30,17 +30,24 @@ public class JoinGameHandler implements Route {
 
             String playerColor;
             int gameID;
+            String seatType;
+            Integer botDepth;
+            Integer botMoveTime;
             try {
                 Map<String, Object> body = gson.fromJson(request.body(), Map.class);
                 playerColor = (String) body.get("playerColor");
                 gameID = ((Double) body.get("gameID")).intValue();
+                seatType = (String) body.get("seatType");
+                botDepth = optionalInt(body.get("botDepth"));
+                botMoveTime = optionalInt(body.get("botMoveTimeMillis"));
             } catch (Exception parseException) {
                 response.status(400);
                 return gson.toJson(Map.of("message", "Error: bad request"));
             }
         
             GameService service = new GameService(dataAccess);
-            JoinGameRequest joinGameRequest = new JoinGameRequest(authToken, playerColor, gameID);
+            JoinGameRequest joinGameRequest = new JoinGameRequest(authToken, playerColor, gameID,
+                    seatType, botDepth, botMoveTime);
             JoinGameResult result = service.joinGame(joinGameRequest);
 
             response.status(200);
@@ -60,4 +67,8 @@ public class JoinGameHandler implements Route {
             return gson.toJson(Map.of("message", "Error: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    private static Integer optionalInt(Object value) {
+        return value == null ? null : ((Double) value).intValue();
+    }
+}
@@ -2,12 +2,25 @@ package server;
 
 import dataaccess.MySQLDataAccess;
 import dataaccess.DataAccessException;
+import engine.Limits;
+import engine.OpeningBook;
+import engine.PolyglotKeys;
+import service.AnalysisCache;
+import service.AnalysisService;
 import spark.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 import static spark.Spark.*;
 
 public class Server {
+    private static final long ANALYSIS_TIME_MILLIS = 1000;
+    private static final int ANALYSIS_CACHE_ENTRIES = 4096;
+    private static final long ANALYSIS_CACHE_TTL_MILLIS = 10 * 60 * 1000;
+
     private final MySQLDataAccess dataAccess;
+    private BotPlayer botPlayer;
 
     public Server() {
         try {
@@ -22,7 +35,16 @@ public class Server {
 
         Spark.staticFiles.location("web");
 
+        // Leave half the cores for request handling however many bot games are running
+        botPlayer = new BotPlayer(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), openBook());
+
+        // Analysis shares the bot's search threads, and each position is searched once per cache lifetime
+        AnalysisCache analysisCache = new AnalysisCache(botPlayer::requestSearch,
+                Limits.time(ANALYSIS_TIME_MILLIS), ANALYSIS_CACHE_ENTRIES, ANALYSIS_CACHE_TTL_MILLIS);
+        AnalysisHandler analysisHandler = new AnalysisHandler(new AnalysisService(dataAccess, analysisCache));
+
         WebSocketHandler.setDataAccess(dataAccess);
+        WebSocketHandler.setBotPlayer(botPlayer);
         webSocket("/ws", WebSocketHandler.class);
 
         delete("/db", new ClearHandler(dataAccess));
@@ -32,6 +54,8 @@ public class Server {
         post("/game", new CreateGameHandler(dataAccess));
         get("/game", new ListGamesHandler(dataAccess));
         put("/game", new JoinGameHandler(dataAccess));
+        get("/analysis", analysisHandler);
+        post("/analysis", analysisHandler);
 
         Spark.exception(Exception.class, (exception, request, response) -> {
             response.status(500);
@@ -47,8 +71,31 @@ public class Server {
         return Spark.port();
     }
 
+    /**
+     * Opens the Polyglot book named by the {@code chess.book} system property,
+     * keyed with Polyglot's standard table unless {@code chess.bookKeys} names
+     * another. The server runs without a book if it is missing or cannot be read.
+     */
+    private static OpeningBook openBook() {
+        String book = System.getProperty("chess.book");
+        String keys = System.getProperty("chess.bookKeys");
+        if (book == null) {
+            return null;
+        }
+        try {
+            return OpeningBook.open(Path.of(book),
+                    keys == null ? PolyglotKeys.standard() : PolyglotKeys.load(Path.of(keys)));
+        } catch (IOException e) {
+            System.err.println("Opening book not loaded: " + e.getMessage());
+            return null;
+        }
+    }
+
     public void stop() {
         Spark.stop();
         Spark.awaitStop();
+        if (botPlayer != null) {
+            botPlayer.close();
+        }
     }
 }
@@ -2,37 +2,66 @@ package server;
 
 import com.google.gson.Gson;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketConnect;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
+import websocket.BinaryCodec;
+import websocket.commands.ConnectCommand;
 import websocket.commands.UserGameCommand;
 import websocket.commands.MakeMoveCommand;
 import websocket.messages.ServerMessage;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveAppliedMessage;
 import websocket.messages.NotificationMessage;
 import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
+import engine.SearchResult;
 import model.AuthData;
+import model.BotSeat;
 import model.GameData;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.ConcurrentHashMap;
 
 @WebSocket
 public class WebSocketHandler {
+
+    private static final String BOT_NAME = BotSeat.USERNAME;
+
+    private static final WriteCallback LOG_FAILURES = new WriteCallback() {
+        @Override
+        public void writeFailed(Throwable cause) {
+            System.err.println("WebSocket send failed: " + cause.getMessage());
+        }
+
+        @Override
+        public void writeSuccess() {
+        }
+    };
     
     private final ConcurrentHashMap<Session, String> sessionToAuthToken = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Integer, ConcurrentHashMap<Session, String>> gameToSessions = new ConcurrentHashMap<>();
+    // The CONNECT each session joined its game with, for the game and the options it asked for
+    private final ConcurrentHashMap<Session, ConnectCommand> connections = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Integer, Boolean> gameOverState = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Boolean> botThinking = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Object> gameLocks = new ConcurrentHashMap<>();
     private final Gson gson = new Gson();
     private static DataAccess dataAccess;
+    private static BotPlayer botPlayer;
 
     public static void setDataAccess(DataAccess dataAccessInstance) {
         dataAccess = dataAccessInstance;
     }
 
+    public static void setBotPlayer(BotPlayer botPlayerInstance) {
+        botPlayer = botPlayerInstance;
+    }
+
     @OnWebSocketConnect
     public void onConnect(Session session) throws IOException {
         System.out.println("WebSocket connection established");
@@ -42,6 +71,7 @@ public class WebSocketHandler {
     public void onClose(Session session, int statusCode, String reason) {
         System.out.println("WebSocket connection closed");
         String authToken = sessionToAuthToken.remove(session);
+        connections.remove(session);
         
         for (Integer gameID : gameToSessions.keySet()) {
             ConcurrentHashMap<Session, String> sessions = gameToSessions.get(gameID);
@@ -65,7 +95,7 @@ public class WebSocketHandler {
             
             switch (baseCommand.getCommandType()) {
                 case CONNECT:
-                    handleConnect(session, baseCommand);
+                    handleConnect(session, gson.fromJson(message, ConnectCommand.class));
                     break;
                 case MAKE_MOVE:
                     handleMakeMove(session, message);
@@ -76,13 +106,34 @@ public class WebSocketHandler {
                 case RESIGN:
                     handleResign(session, baseCommand);
                     break;
+                case RESYNC:
+                    handleResync(session, baseCommand);
+                    break;
             }
         } catch (Exception e) {
             sendErrorMessage(session, "Invalid command: " + e.getMessage());
         }
     }
 
-    private void handleConnect(Session session, UserGameCommand command) throws IOException {
+    // Only MAKE_MOVE comes as binary; the session's CONNECT already said who is moving in which game
+    @OnWebSocketMessage
+    public void onBinaryMessage(Session session, byte[] payload, int offset, int length) throws IOException {
+        ConnectCommand connection = connections.get(session);
+        if (connection == null || connection.getProtocol() != ConnectCommand.Protocol.BINARY) {
+            sendErrorMessage(session, "Binary commands need a binary CONNECT first");
+            return;
+        }
+        chess.ChessMove move;
+        try {
+            move = BinaryCodec.decodeMakeMove(ByteBuffer.wrap(payload, offset, length));
+        } catch (IllegalArgumentException e) {
+            sendErrorMessage(session, "Invalid command: " + e.getMessage());
+            return;
+        }
+        makeMove(session, connection.getAuthToken(), connection.getGameID(), move);
+    }
+
+    private void handleConnect(Session session, ConnectCommand command) throws IOException {
         try {
             AuthData auth = dataAccess.getAuth(command.getAuthToken());
             if (auth == null) {
@@ -97,6 +148,7 @@ public class WebSocketHandler {
             }
 
             sessionToAuthToken.put(session, command.getAuthToken());
+            connections.put(session, command);
             if (!gameToSessions.containsKey(command.getGameID())) {
                 gameToSessions.put(command.getGameID(), new ConcurrentHashMap<>());
             }
@@ -110,134 +162,287 @@ public class WebSocketHandler {
             broadcastToGame(command.getGameID(), msg, session);
 
             System.out.println("User " + user + " connected to game " + command.getGameID());
+
+            startBotIfToMove(game);
         } catch (DataAccessException e) {
             sendErrorMessage(session, "Database error: " + e.getMessage());
         }
     }
 
     private void handleMakeMove(Session session, String message) throws IOException {
-        try {
-            MakeMoveCommand command = gson.fromJson(message, MakeMoveCommand.class);
+        MakeMoveCommand command = gson.fromJson(message, MakeMoveCommand.class);
+        makeMove(session, command.getAuthToken(), command.getGameID(), command.getMove());
+    }
+
+    private void makeMove(Session session, String authToken, Integer gameID, chess.ChessMove move)
+            throws IOException {
+        synchronized (gameLock(gameID)) {
+            try {
+                AuthData auth = dataAccess.getAuth(authToken);
+                if (auth == null) {
+                    sendErrorMessage(session, "Invalid auth token");
+                    return;
+                }
+
+                GameData game = dataAccess.getGame(gameID);
+                if (game == null) {
+                    sendErrorMessage(session, "Game not found");
+                    return;
+                }
+
+                String user = auth.username();
+                chess.ChessGame chessGame = game.game();
             
-            AuthData auth = dataAccess.getAuth(command.getAuthToken());
-            if (auth == null) {
-                sendErrorMessage(session, "Invalid auth token");
-                return;
+                boolean isWhitePlayer = user.equals(game.whiteUsername());
+                boolean isBlackPlayer = user.equals(game.blackUsername());
+            
+                if (!isWhitePlayer && !isBlackPlayer) {
+                    sendErrorMessage(session, "You are not a player in this game");
+                    return;
+                }
+
+                if (gameOverState.getOrDefault(gameID, false)) {
+                    sendErrorMessage(session, "Game is over");
+                    return;
+                }
+
+                chess.ChessGame.TeamColor currentTurn = chessGame.getTeamTurn();
+                if ((currentTurn == chess.ChessGame.TeamColor.WHITE && !isWhitePlayer) ||
+                    (currentTurn == chess.ChessGame.TeamColor.BLACK && !isBlackPlayer)) {
+                    sendErrorMessage(session, "It's not your turn");
+                    return;
+                }
+
+                chessGame.makeMove(move);
+                finishMove(game, chessGame, move, user, session);
+
+            } catch (chess.InvalidMoveException e) {
+                sendErrorMessage(session, "Invalid move: " + e.getMessage());
+            } catch (DataAccessException e) {
+                sendErrorMessage(session, "Database error: " + e.getMessage());
             }
+        }
+    }
 
-            GameData game = dataAccess.getGame(command.getGameID());
-            if (game == null) {
-                sendErrorMessage(session, "Game not found");
-                return;
+    // Saves a move that has been made on chessGame and tells everyone in the game about it
+    private void finishMove(GameData game, chess.ChessGame chessGame, chess.ChessMove move, String mover,
+                            Session moverSession) throws IOException, DataAccessException {
+        GameData updatedGame = new GameData(game.gameID(), game.whiteUsername(),
+                                          game.blackUsername(), game.gameName(), chessGame);
+        dataAccess.updateGame(updatedGame);
+
+        // Sessions that asked for deltas replay the move on their own copy of the game
+        Frame moveApplied = new Frame(new MoveAppliedMessage(move, chessGame.evaluateStatus(),
+                chessGame.positionKey()));
+        Frame loadGame = new Frame(new LoadGameMessage(chessGame));
+        ConcurrentHashMap<Session, String> sessions = gameToSessions.get(game.gameID());
+        if (sessions != null) {
+            for (Session s : sessions.keySet()) {
+                if (!s.isOpen()) {
+                    continue;
+                }
+                ConnectCommand connection = connections.get(s);
+                send(s, connection != null && connection.wantsMoveDeltas() ? moveApplied : loadGame);
             }
+        }
 
-            String user = auth.username();
-            chess.ChessGame chessGame = game.game();
-            
-            boolean isWhitePlayer = user.equals(game.whiteUsername());
-            boolean isBlackPlayer = user.equals(game.blackUsername());
-            
-            if (!isWhitePlayer && !isBlackPlayer) {
-                sendErrorMessage(session, "You are not a player in this game");
-                return;
+        String fromSquare = positionToString(move.getStartPosition());
+        String toSquare = positionToString(move.getEndPosition());
+        String moveMsg = mover + " moved " + fromSquare + " to " + toSquare;
+        broadcastToGame(game.gameID(), moveMsg, moverSession);
+
+        chess.ChessGame.TeamColor nextTurn = chessGame.getTeamTurn();
+        String nextPlayer = nextTurn == chess.ChessGame.TeamColor.WHITE ? game.whiteUsername() : game.blackUsername();
+        switch (chessGame.evaluateStatus()) {
+            case CHECKMATE:
+                String checkmateMsg = mover + " wins! " + (nextTurn == chess.ChessGame.TeamColor.WHITE ? "White" : "Black") + " is in checkmate";
+                broadcastToGame(game.gameID(), checkmateMsg, null);
+                gameOverState.put(game.gameID(), true);
+                break;
+            case CHECK:
+                if (nextPlayer == null && isBotSeat(game.gameID(), nextTurn)) {
+                    nextPlayer = BOT_NAME;
+                }
+                broadcastToGame(game.gameID(), nextPlayer + " is in check", null);
+                break;
+            case STALEMATE:
+                broadcastToGame(game.gameID(), "Game is a draw by stalemate", null);
+                gameOverState.put(game.gameID(), true);
+                break;
+            case DRAW_SEVENTY_FIVE_MOVES:
+                broadcastToGame(game.gameID(), "Game is a draw by the seventy-five-move rule", null);
+                gameOverState.put(game.gameID(), true);
+                break;
+            case DRAW_INSUFFICIENT_MATERIAL:
+                broadcastToGame(game.gameID(), "Game is a draw by insufficient material", null);
+                gameOverState.put(game.gameID(), true);
+                break;
+            default:
+                break;
+        }
+
+        startBotIfToMove(updatedGame);
+    }
+
+    // Hands the position to a search thread if the game has a bot seat and it is the bot's turn
+    private void startBotIfToMove(GameData game) throws DataAccessException {
+        if (botPlayer == null || gameOverState.getOrDefault(game.gameID(), false)) {
+            return;
+        }
+        BotSeat seat = dataAccess.getBotSeat(game.gameID());
+        if (seat == null || seat.color() != game.game().getTeamTurn()) {
+            return;
+        }
+        if (botThinking.putIfAbsent(game.gameID(), true) != null) {
+            return;
+        }
+
+        long positionKey = game.game().positionKey();
+        boolean queued = false;
+        try {
+            queued = botPlayer.requestMove(game.game(), seat,
+                    (result, failure) -> applyBotMove(game.gameID(), seat, positionKey, result, failure));
+        } finally {
+            // applyBotMove clears the flag, so clear it here whenever the search never got queued
+            if (!queued) {
+                botThinking.remove(game.gameID());
             }
+        }
+        if (!queued) {
+            System.err.println("Bot search queue is full, game " + game.gameID() + " is waiting");
+        }
+    }
+
+    /*
+     * Moves, leaves and resignations in a game run one at a time, so a bot move finishing on a
+     * search thread cannot write back a game record that a websocket handler has just changed
+     */
+    private Object gameLock(Integer gameID) {
+        return gameLocks.computeIfAbsent(gameID == null ? 0 : gameID, id -> new Object());
+    }
 
-            if (gameOverState.getOrDefault(command.getGameID(), false)) {
-                sendErrorMessage(session, "Game is over");
+    private boolean isBotSeat(int gameID, chess.ChessGame.TeamColor color) throws DataAccessException {
+        BotSeat seat = dataAccess.getBotSeat(gameID);
+        return seat != null && seat.color() == color;
+    }
+
+    // Runs on a bot search thread once the search is done or has failed
+    private void applyBotMove(int gameID, BotSeat seat, long positionKey, SearchResult result, Throwable failure) {
+        try {
+            if (failure != null) {
+                System.err.println("Bot search failed in game " + gameID + ": " + failure.getMessage());
                 return;
             }
+            synchronized (gameLock(gameID)) {
+                GameData game = dataAccess.getGame(gameID);
+                chess.ChessGame chessGame = game == null ? null : game.game();
+                // The game may have ended or moved on (a resignation, say) while the bot was thinking
+                if (chessGame == null || result.bestMove() == null || gameOverState.getOrDefault(gameID, false)
+                        || chessGame.getTeamTurn() != seat.color() || chessGame.positionKey() != positionKey) {
+                    return;
+                }
 
-            chess.ChessGame.TeamColor currentTurn = chessGame.getTeamTurn();
-            if ((currentTurn == chess.ChessGame.TeamColor.WHITE && !isWhitePlayer) ||
-                (currentTurn == chess.ChessGame.TeamColor.BLACK && !isBlackPlayer)) {
-                sendErrorMessage(session, "It's not your turn");
-                return;
+                chessGame.makeMove(result.bestMove());
+                finishMove(game, chessGame, result.bestMove(), BOT_NAME, null);
             }
+        } catch (Exception e) {
+            System.err.println("Error applying bot move in game " + gameID + ": " + e.getMessage());
+        } finally {
+            botThinking.remove(gameID);
+        }
+    }
 
-            chessGame.makeMove(command.getMove());
-            
-            GameData updatedGame = new GameData(game.gameID(), game.whiteUsername(), 
-                                              game.blackUsername(), game.gameName(), chessGame);
-            dataAccess.updateGame(updatedGame);
+    private void handleLeave(Session session, UserGameCommand command) throws IOException {
+        synchronized (gameLock(command.getGameID())) {
+            try {
+                AuthData auth = dataAccess.getAuth(command.getAuthToken());
+                if (auth == null) {
+                    sendErrorMessage(session, "Invalid auth token");
+                    return;
+                }
 
-            ConcurrentHashMap<Session, String> sessions = gameToSessions.get(command.getGameID());
-            if (sessions != null) {
-                for (Session s : sessions.keySet()) {
-                    if (s.isOpen()) {
-                        sendLoadGameMessage(s, chessGame);
+                String user = auth.username();
+                Integer gameID = command.getGameID();
+
+                GameData game = dataAccess.getGame(gameID);
+                if (game != null) {
+                    if (user.equals(game.whiteUsername())) {
+                        GameData updatedGame = new GameData(game.gameID(), null, game.blackUsername(), game.gameName(), game.game());
+                        dataAccess.updateGame(updatedGame);
+                    } else if (user.equals(game.blackUsername())) {
+                        GameData updatedGame = new GameData(game.gameID(), game.whiteUsername(), null, game.gameName(), game.game());
+                        dataAccess.updateGame(updatedGame);
                     }
                 }
-            }
 
-            String fromSquare = positionToString(command.getMove().getStartPosition());
-            String toSquare = positionToString(command.getMove().getEndPosition());
-            String moveMsg = user + " moved " + fromSquare + " to " + toSquare;
-            broadcastToGame(command.getGameID(), moveMsg, session);
-
-            chess.ChessGame.TeamColor nextTurn = chessGame.getTeamTurn();
-            if (chessGame.isInCheck(nextTurn)) {
-                if (chessGame.isInCheckmate(nextTurn)) {
-                    String checkmateMsg = user + " wins! " + (nextTurn == chess.ChessGame.TeamColor.WHITE ? "White" : "Black") + " is in checkmate";
-                    broadcastToGame(command.getGameID(), checkmateMsg, null);
-                    gameOverState.put(command.getGameID(), true);
-                } else {
-                    String checkMsg = (nextTurn == chess.ChessGame.TeamColor.WHITE ? game.whiteUsername() : game.blackUsername()) + " is in check";
-                    broadcastToGame(command.getGameID(), checkMsg, null);
+                sessionToAuthToken.remove(session);
+                connections.remove(session);
+                ConcurrentHashMap<Session, String> sessions = gameToSessions.get(gameID);
+                if (sessions != null) {
+                    sessions.remove(session);
+                    if (sessions.isEmpty()) {
+                        gameToSessions.remove(gameID);
+                    }
                 }
-            } else if (chessGame.isInStalemate(nextTurn)) {
-                String stalemateMsg = "Game is a draw by stalemate";
-                broadcastToGame(command.getGameID(), stalemateMsg, null);
-                gameOverState.put(command.getGameID(), true);
-            }
 
-        } catch (chess.InvalidMoveException e) {
-            sendErrorMessage(session, "Invalid move: " + e.getMessage());
-        } catch (DataAccessException e) {
-            sendErrorMessage(session, "Database error: " + e.getMessage());
+                String leaveMsg = user + " left the game";
+                broadcastToGame(gameID, leaveMsg, session);
+
+                System.out.println("User " + user + " left game " + gameID);
+            } catch (DataAccessException e) {
+                sendErrorMessage(session, "Database error: " + e.getMessage());
+            }
         }
     }
 
-    private void handleLeave(Session session, UserGameCommand command) throws IOException {
-        try {
-            AuthData auth = dataAccess.getAuth(command.getAuthToken());
-            if (auth == null) {
-                sendErrorMessage(session, "Invalid auth token");
-                return;
-            }
+    private void handleResign(Session session, UserGameCommand command) throws IOException {
+        synchronized (gameLock(command.getGameID())) {
+            try {
+                AuthData auth = dataAccess.getAuth(command.getAuthToken());
+                if (auth == null) {
+                    sendErrorMessage(session, "Invalid auth token");
+                    return;
+                }
 
-            String user = auth.username();
-            Integer gameID = command.getGameID();
-
-            GameData game = dataAccess.getGame(gameID);
-            if (game != null) {
-                if (user.equals(game.whiteUsername())) {
-                    GameData updatedGame = new GameData(game.gameID(), null, game.blackUsername(), game.gameName(), game.game());
-                    dataAccess.updateGame(updatedGame);
-                } else if (user.equals(game.blackUsername())) {
-                    GameData updatedGame = new GameData(game.gameID(), game.whiteUsername(), null, game.gameName(), game.game());
-                    dataAccess.updateGame(updatedGame);
+                GameData game = dataAccess.getGame(command.getGameID());
+                if (game == null) {
+                    sendErrorMessage(session, "Game not found");
+                    return;
                 }
-            }
 
-            sessionToAuthToken.remove(session);
-            ConcurrentHashMap<Session, String> sessions = gameToSessions.get(gameID);
-            if (sessions != null) {
-                sessions.remove(session);
-                if (sessions.isEmpty()) {
-                    gameToSessions.remove(gameID);
+                String user = auth.username();
+                boolean isWhitePlayer = user.equals(game.whiteUsername());
+                boolean isBlackPlayer = user.equals(game.blackUsername());
+            
+                if (!isWhitePlayer && !isBlackPlayer) {
+                    sendErrorMessage(session, "You are not a player in this game");
+                    return;
                 }
-            }
 
-            String leaveMsg = user + " left the game";
-            broadcastToGame(gameID, leaveMsg, session);
+                if (gameOverState.getOrDefault(command.getGameID(), false)) {
+                    sendErrorMessage(session, "Game is over");
+                    return;
+                }
 
-            System.out.println("User " + user + " left game " + gameID);
-        } catch (DataAccessException e) {
-            sendErrorMessage(session, "Database error: " + e.getMessage());
+                String winner;
+                if (isWhitePlayer) {
+                    winner = game.blackUsername() != null ? game.blackUsername() : "Black";
+                } else {
+                    winner = game.whiteUsername() != null ? game.whiteUsername() : "White";
+                }
+
+                String resignMsg = user + " resigned. " + winner + " wins!";
+                broadcastToGame(command.getGameID(), resignMsg, null);
+                gameOverState.put(command.getGameID(), true);
+
+                System.out.println("User " + user + " resigned from game " + command.getGameID());
+            } catch (DataAccessException e) {
+                sendErrorMessage(session, "Database error: " + e.getMessage());
+            }
         }
     }
 
-    private void handleResign(Session session, UserGameCommand command) throws IOException {
+    private void handleResync(Session session, UserGameCommand command) throws IOException {
         try {
             AuthData auth = dataAccess.getAuth(command.getAuthToken());
             if (auth == null) {
@@ -245,69 +450,92 @@ public class WebSocketHandler {
                 return;
             }
 
-            GameData game = dataAccess.getGame(command.getGameID());
-            if (game == null) {
-                sendErrorMessage(session, "Game not found");
-                return;
-            }
-
-            String user = auth.username();
-            boolean isWhitePlayer = user.equals(game.whiteUsername());
-            boolean isBlackPlayer = user.equals(game.blackUsername());
-            
-            if (!isWhitePlayer && !isBlackPlayer) {
-                sendErrorMessage(session, "You are not a player in this game");
+            ConcurrentHashMap<Session, String> sessions = gameToSessions.get(command.getGameID());
+            if (sessions == null || !sessions.containsKey(session)) {
+                sendErrorMessage(session, "Not connected to this game");
                 return;
             }
 
-            if (gameOverState.getOrDefault(command.getGameID(), false)) {
-                sendErrorMessage(session, "Game is over");
+            GameData game = dataAccess.getGame(command.getGameID());
+            if (game == null) {
+                sendErrorMessage(session, "Game not found");
                 return;
             }
-
-            String winner;
-            if (isWhitePlayer) {
-                winner = game.blackUsername() != null ? game.blackUsername() : "Black";
-            } else {
-                winner = game.whiteUsername() != null ? game.whiteUsername() : "White";
-            }
-
-            String resignMsg = user + " resigned. " + winner + " wins!";
-            broadcastToGame(command.getGameID(), resignMsg, null);
-            gameOverState.put(command.getGameID(), true);
-
-            System.out.println("User " + user + " resigned from game " + command.getGameID());
+            sendLoadGameMessage(session, game.game());
         } catch (DataAccessException e) {
             sendErrorMessage(session, "Database error: " + e.getMessage());
         }
     }
 
     private void sendErrorMessage(Session session, String errorMessage) throws IOException {
-        ErrorMessage error = new ErrorMessage(errorMessage);
-        session.getRemote().sendString(gson.toJson(error));
+        send(session, new ErrorMessage(errorMessage));
     }
 
     private void sendLoadGameMessage(Session session, chess.ChessGame game) throws IOException {
-        LoadGameMessage loadGame = new LoadGameMessage(game);
-        session.getRemote().sendString(gson.toJson(loadGame));
+        send(session, new LoadGameMessage(game));
     }
 
-    private void sendNotificationMessage(Session session, String message) throws IOException {
-        NotificationMessage notification = new NotificationMessage(message);
-        session.getRemote().sendString(gson.toJson(notification));
+    private void send(Session session, ServerMessage message) {
+        send(session, new Frame(message));
+    }
+
+    /*
+     * Sends are asynchronous, so a broadcast does not wait on slow observers, and Jetty queues them
+     * per session, so bot moves sent from search threads need no locking. Failures only mean the
+     * session has gone away, and onClose cleans up after it.
+     */
+    private void send(Session session, Frame frame) {
+        ConnectCommand connection = connections.get(session);
+        if (connection != null && connection.getProtocol() == ConnectCommand.Protocol.BINARY) {
+            session.getRemote().sendBytes(ByteBuffer.wrap(frame.binary()), LOG_FAILURES);
+        } else {
+            session.getRemote().sendString(frame.json(gson), LOG_FAILURES);
+        }
     }
 
     private void broadcastToGame(Integer gameID, String message, Session excludeSession) throws IOException {
         ConcurrentHashMap<Session, String> sessions = gameToSessions.get(gameID);
         if (sessions != null) {
+            Frame notification = new Frame(new NotificationMessage(message));
             for (Session s : sessions.keySet()) {
                 if (!s.equals(excludeSession) && s.isOpen()) {
-                    sendNotificationMessage(s, message);
+                    send(s, notification);
                 }
             }
         }
     }
 
+    /**
+     * A message bound for several sessions, encoded at most once in each
+     * protocol however many sessions it goes to. Frames are built and sent
+     * from one thread.
+     */
+    private static final class Frame {
+
+        private final ServerMessage message;
+        private String json;
+        private byte[] binary;
+
+        Frame(ServerMessage message) {
+            this.message = message;
+        }
+
+        String json(Gson gson) {
+            if (json == null) {
+                json = gson.toJson(message);
+            }
+            return json;
+        }
+
+        // Each send wraps the shared array in its own buffer, since sending moves a buffer's position
+        byte[] binary() {
+            if (binary == null) {
+                binary = BinaryCodec.encode(message);
+            }
+            return binary;
+        }
+    }
+
     private void handleDisconnectNotification(String authToken, Integer gameID, Session session) {
         try {
             if (authToken != null) {
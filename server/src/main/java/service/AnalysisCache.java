@@ -0,0 +1,139 @@
+package service;
+
+import chess.ChessGame;
+import engine.Limits;
+import engine.SearchResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Engine analysis of positions, keyed by position hash. Finished results are
+ * kept in a bounded least recently used cache and expire after a fixed time,
+ * so everyone watching a game gets the same answer from one search. Requests
+ * for a position that is still being searched wait on that search rather
+ * than starting another.
+ */
+public class AnalysisCache {
+
+    /**
+     * Starts a search in the background.
+     */
+    @FunctionalInterface
+    public interface Searcher {
+        /**
+         * @param callback given the result, or the exception if the search failed
+         * @return false if the search could not be queued
+         */
+        boolean search(ChessGame game, Limits limits, BiConsumer<SearchResult, Throwable> callback);
+    }
+
+    private record Entry(SearchResult result, long expiresAt) {}
+
+    private final Searcher searcher;
+    private final Limits limits;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Map<Long, Entry> entries;
+    private final Map<Long, CompletableFuture<SearchResult>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * @param searcher  runs the searches
+     * @param limits    how long to search each position
+     * @param capacity  most results to keep
+     * @param ttlMillis how long a result is kept
+     */
+    public AnalysisCache(Searcher searcher, Limits limits, int capacity, long ttlMillis) {
+        this(searcher, limits, capacity, ttlMillis, System::nanoTime);
+    }
+
+    AnalysisCache(Searcher searcher, Limits limits, int capacity, long ttlMillis, LongSupplier clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Analysis cache needs room for at least one result");
+        }
+        this.searcher = searcher;
+        this.limits = limits;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param game the position to analyse; it is not modified
+     * @return the analysis, already complete if the position was cached. It
+     * fails with {@link ServiceUnavailableException} if the search could not
+     * be queued.
+     */
+    public CompletableFuture<SearchResult> analyze(ChessGame game) {
+        long key = game.positionKey();
+        SearchResult cached = lookup(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<SearchResult> search = new CompletableFuture<>();
+        CompletableFuture<SearchResult> running = pending.putIfAbsent(key, search);
+        if (running != null) {
+            return running;
+        }
+
+        // A search for this position may have finished since the lookup above
+        cached = lookup(key);
+        if (cached != null) {
+            pending.remove(key, search);
+            search.complete(cached);
+            return search;
+        }
+
+        boolean queued = searcher.search(game, limits, (result, failure) -> {
+            if (failure != null) {
+                // Nothing is cached, so the next request for this position searches again
+                pending.remove(key, search);
+                search.completeExceptionally(failure);
+                return;
+            }
+            // Cache before leaving the pending map, so a later request finds one or the other
+            store(key, result);
+            pending.remove(key, search);
+            search.complete(result);
+        });
+        if (!queued) {
+            pending.remove(key, search);
+            search.completeExceptionally(new ServiceUnavailableException("Too many analyses waiting"));
+        }
+        return search;
+    }
+
+    /**
+     * @return number of cached results, including any that have expired but not been evicted
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized SearchResult lookup(long key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (clock.getAsLong() - entry.expiresAt() >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.result();
+    }
+
+    private synchronized void store(long key, SearchResult result) {
+        entries.put(key, new Entry(result, clock.getAsLong() + ttlNanos));
+    }
+}
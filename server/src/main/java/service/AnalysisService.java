@@ -0,0 +1,96 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import engine.Score;
+import engine.SearchResult;
+import model.AuthData;
+import model.GameData;
+import service.requests.AnalysisRequest;
+import service.results.AnalysisResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class AnalysisService {
+    // Long enough to wait behind a few queued searches, short enough to free the request thread
+    public static final long RESULT_TIMEOUT_MILLIS = 10_000;
+
+    private final DataAccess dataAccess;
+    private final AnalysisCache cache;
+
+    public AnalysisService(DataAccess dataAccess, AnalysisCache cache) {
+        this.dataAccess = dataAccess;
+        this.cache = cache;
+    }
+
+    public AnalysisResult analyze(AnalysisRequest request) throws DataAccessException {
+        AuthData authData = dataAccess.getAuth(request.authToken());
+        if (authData == null) {
+            throw new UnauthorizedException("Invalid auth token");
+        }
+
+        ChessGame game;
+        if (request.gameID() != null && request.fen() == null) {
+            GameData gameData = dataAccess.getGame(request.gameID());
+            if (gameData == null) {
+                throw new BadRequestException("Missing game data");
+            }
+            game = gameData.game();
+        } else if (request.fen() != null && request.gameID() == null) {
+            game = parsePosition(request.fen());
+        } else {
+            throw new BadRequestException("Expected either a game ID or a FEN");
+        }
+
+        return toResult(await(cache.analyze(game)));
+    }
+
+    private static ChessGame parsePosition(String fen) {
+        ChessGame game;
+        try {
+            game = Fen.parse(fen);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+
+        // The search assumes both kings are on the board and the side that just moved is not in check
+        ChessGame.TeamColor moved = game.getTeamTurn() == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if (game.getBoard().getKingSquare(ChessGame.TeamColor.WHITE) < 0
+                || game.getBoard().getKingSquare(ChessGame.TeamColor.BLACK) < 0
+                || game.isInCheck(moved)) {
+            throw new BadRequestException("Illegal position");
+        }
+        return game;
+    }
+
+    private static SearchResult await(CompletableFuture<SearchResult> analysis) {
+        try {
+            return analysis.get(RESULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ServiceUnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw new ServiceUnavailableException("Analysis failed");
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("Analysis timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Analysis interrupted");
+        }
+    }
+
+    private static AnalysisResult toResult(SearchResult result) {
+        List<String> line = result.principalVariation().stream().map(Fen::moveName).toList();
+        ChessMove best = result.bestMove();
+        return new AnalysisResult(best == null ? null : Fen.moveName(best), result.score(),
+                Score.mateInMoves(result.score()), line, result.depth(), result.nodes(), result.isBookMove());
+    }
+}
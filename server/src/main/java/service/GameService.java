@@ -4,7 +4,9 @@ import chess.ChessGame;
 import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
 import dataaccess.MySQLDataAccess;
+import engine.Limits;
 import model.AuthData;
+import model.BotSeat;
 import model.GameData;
 import service.requests.CreateGameRequest;
 import service.requests.JoinGameRequest;
@@ -13,9 +15,17 @@ import service.results.CreateGameResult;
 import service.results.JoinGameResult;
 import service.results.ListGamesResult;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class GameService {
+    public static final String SEAT_PLAYER = "PLAYER";
+    public static final String SEAT_BOT = "BOT";
+    public static final int DEFAULT_BOT_MOVE_TIME_MILLIS = 1000;
+    public static final int MAX_BOT_MOVE_TIME_MILLIS = 30_000;
+
     private final DataAccess dataAccess;
     private static int nextGameID = 1;
 
@@ -61,6 +71,28 @@ public class GameService {
 
         List<GameData> games = dataAccess.listGames();
 
+        // Bots have no user row to put in the games table, so their seats are named here
+        Map<Integer, BotSeat> botSeats = new HashMap<>();
+        for (BotSeat seat : dataAccess.listBotSeats()) {
+            botSeats.put(seat.gameID(), seat);
+        }
+        if (!botSeats.isEmpty()) {
+            List<GameData> named = new ArrayList<>(games.size());
+            for (GameData game : games) {
+                BotSeat seat = botSeats.get(game.gameID());
+                if (seat == null) {
+                    named.add(game);
+                } else if (seat.color() == ChessGame.TeamColor.WHITE) {
+                    named.add(new GameData(game.gameID(), BotSeat.USERNAME, game.blackUsername(),
+                            game.gameName(), game.game()));
+                } else {
+                    named.add(new GameData(game.gameID(), game.whiteUsername(), BotSeat.USERNAME,
+                            game.gameName(), game.game()));
+                }
+            }
+            games = named;
+        }
+
         return new ListGamesResult(games);
     }
 
@@ -81,11 +113,25 @@ public class GameService {
             throw new BadRequestException("Invalid player color");
         }
 
+        String seatType = request.seatType() == null ? SEAT_PLAYER : request.seatType();
+        if (!seatType.equals(SEAT_PLAYER) && !seatType.equals(SEAT_BOT)) {
+            throw new BadRequestException("Invalid seat type");
+        }
+
         String currentPlayer = (playerColor.equals("WHITE")) ? gameData.whiteUsername() : gameData.blackUsername();
-        if (currentPlayer != null) {
+        BotSeat botSeat = dataAccess.getBotSeat(request.gameID());
+        if (currentPlayer != null || (botSeat != null && botSeat.color().name().equals(playerColor))) {
             throw new AlreadyTakenException("Player color is already taken");
         }
 
+        if (seatType.equals(SEAT_BOT)) {
+            if (botSeat != null) {
+                throw new AlreadyTakenException("Game already has a bot");
+            }
+            dataAccess.createBotSeat(createBotSeat(request, ChessGame.TeamColor.valueOf(playerColor)));
+            return new JoinGameResult();
+        }
+
         String username = authData.username();
         if (playerColor.equals("WHITE")) {
             GameData updatedGameData = new GameData(
@@ -107,4 +153,16 @@ public class GameService {
 
         return new JoinGameResult();
     }
+
+    private BotSeat createBotSeat(JoinGameRequest request, ChessGame.TeamColor color) {
+        int depth = request.botDepth() == null ? Limits.MAX_DEPTH : request.botDepth();
+        int moveTime = request.botMoveTimeMillis() == null ? DEFAULT_BOT_MOVE_TIME_MILLIS : request.botMoveTimeMillis();
+        if (depth < 1 || depth > Limits.MAX_DEPTH) {
+            throw new BadRequestException("Invalid bot depth");
+        }
+        if (moveTime < 1 || moveTime > MAX_BOT_MOVE_TIME_MILLIS) {
+            throw new BadRequestException("Invalid bot move time");
+        }
+        return new BotSeat(request.gameID(), color, depth, moveTime);
+    }
 }
\ No newline at end of file
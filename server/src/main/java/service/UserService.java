@@ -2,6 +2,7 @@ package service;
 
 import dataaccess.*;
 import model.AuthData;
+import model.BotSeat;
 import model.UserData;
 import service.requests.LoginRequest;
 import service.requests.LogoutRequest;
@@ -21,7 +22,7 @@ public class UserService {
 
     public RegisterResult register(RegisterRequest request) throws DataAccessException {
         UserData existingUser = dataAccess.getUser(request.username());
-        if (existingUser != null) {
+        if (existingUser != null || BotSeat.USERNAME.equals(request.username())) {
             throw new AlreadyTakenException("Username is already taken");
         }
 
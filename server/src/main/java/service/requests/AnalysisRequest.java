@@ -0,0 +1,3 @@
+package service.requests;
+
+public record AnalysisRequest(String authToken, Integer gameID, String fen) {}
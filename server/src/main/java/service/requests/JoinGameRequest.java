@@ -1,3 +1,9 @@
 package service.requests;
 
-public record JoinGameRequest(String authToken, String playerColor, int gameID) {}
\ No newline at end of file
+public record JoinGameRequest(String authToken, String playerColor, int gameID,
+                              String seatType, Integer botDepth, Integer botMoveTimeMillis) {
+
+    public JoinGameRequest(String authToken, String playerColor, int gameID) {
+        this(authToken, playerColor, gameID, null, null, null);
+    }
+}
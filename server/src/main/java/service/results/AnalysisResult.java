@@ -0,0 +1,15 @@
+package service.results;
+
+import java.util.List;
+
+/**
+ * @param bestMove           in coordinate notation, e.g. e2e4, or null if the side to move has no moves
+ * @param score              centipawns from the side to move's point of view
+ * @param mateIn             moves to mate, negative if the side to move is being mated, or 0 if none found
+ * @param principalVariation the expected line in coordinate notation, starting with the best move
+ * @param depth              plies searched
+ * @param nodes              positions searched
+ * @param book               whether the move came from the opening book, in which case nothing was searched
+ */
+public record AnalysisResult(String bestMove, int score, int mateIn, List<String> principalVariation,
+                             int depth, long nodes, boolean book) {}
@@ -2,6 +2,7 @@ package dataaccess;
 
 import model.UserData;
 import model.AuthData;
+import model.BotSeat;
 import model.GameData;
 import chess.ChessGame;
 import org.junit.jupiter.api.BeforeEach;
@@ -260,4 +261,79 @@ public class MySQLDataAccessTest {
         var retrievedUser = dataAccess.getUser("testuser");
         assertNull(retrievedUser);
     }
-} 
\ No newline at end of file
+
+    private int createTestGame() throws DataAccessException {
+        dataAccess.createGame(new GameData(1, null, null, "testgame", new ChessGame()));
+        return dataAccess.listGames().get(0).gameID();
+    }
+
+    @Test
+    public void createBotSeatPositive() throws DataAccessException {
+        int gameID = createTestGame();
+
+        dataAccess.createBotSeat(new BotSeat(gameID, ChessGame.TeamColor.BLACK, 4, 500));
+
+        var seats = dataAccess.listBotSeats();
+        assertEquals(1, seats.size());
+        assertEquals(gameID, seats.get(0).gameID());
+    }
+
+    @Test
+    public void createBotSeatNegative() throws DataAccessException {
+        int gameID = createTestGame();
+        dataAccess.createBotSeat(new BotSeat(gameID, ChessGame.TeamColor.BLACK, 4, 500));
+
+        assertThrows(DataAccessException.class, () -> {
+            dataAccess.createBotSeat(new BotSeat(gameID, ChessGame.TeamColor.WHITE, 4, 500));
+        });
+        assertThrows(DataAccessException.class, () -> {
+            dataAccess.createBotSeat(new BotSeat(gameID + 1000, ChessGame.TeamColor.WHITE, 4, 500));
+        });
+    }
+
+    @Test
+    public void getBotSeatPositive() throws DataAccessException {
+        int gameID = createTestGame();
+        dataAccess.createBotSeat(new BotSeat(gameID, ChessGame.TeamColor.WHITE, 6, 250));
+
+        var seat = dataAccess.getBotSeat(gameID);
+        assertEquals(new BotSeat(gameID, ChessGame.TeamColor.WHITE, 6, 250), seat);
+    }
+
+    @Test
+    public void getBotSeatNegative() throws DataAccessException {
+        int gameID = createTestGame();
+
+        assertNull(dataAccess.getBotSeat(gameID));
+        assertNull(dataAccess.getBotSeat(999));
+    }
+
+    @Test
+    public void listBotSeatsEmpty() throws DataAccessException {
+        createTestGame();
+
+        assertTrue(dataAccess.listBotSeats().isEmpty());
+    }
+
+    @Test
+    public void clearRemovesBotSeats() throws DataAccessException {
+        int gameID = createTestGame();
+        dataAccess.createBotSeat(new BotSeat(gameID, ChessGame.TeamColor.BLACK, 4, 500));
+
+        dataAccess.clear();
+
+        assertNull(dataAccess.getBotSeat(gameID));
+        assertTrue(dataAccess.listBotSeats().isEmpty());
+    }
+
+    @Test
+    public void clearGamesRemovesBotSeats() throws DataAccessException {
+        int gameID = createTestGame();
+        dataAccess.createBotSeat(new BotSeat(gameID, ChessGame.TeamColor.BLACK, 4, 500));
+
+        dataAccess.clearGames();
+
+        assertNull(dataAccess.getBotSeat(gameID));
+        assertTrue(dataAccess.listBotSeats().isEmpty());
+    }
+}
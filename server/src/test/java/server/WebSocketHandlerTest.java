@@ -0,0 +1,79 @@
+package server;
+
+import chess.ChessGame;
+import com.google.gson.Gson;
+import dataaccess.MemoryDataAccess;
+import engine.Engine;
+import model.BotSeat;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import service.GameService;
+import service.UserService;
+import service.requests.CreateGameRequest;
+import service.requests.RegisterRequest;
+import websocket.commands.ConnectCommand;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WebSocketHandlerTest {
+
+    // A session that is always open and drops whatever is sent to it
+    private static Session session() {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> null);
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getRemote" -> remote;
+                    case "isOpen" -> true;
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "test session";
+                    default -> null;
+                });
+    }
+
+    @AfterEach
+    public void removeBotPlayer() {
+        WebSocketHandler.setBotPlayer(null);
+    }
+
+    @Test
+    public void botMovesAfterSearchErrorTest() throws Exception {
+        MemoryDataAccess dataAccess = new MemoryDataAccess();
+        String authToken = new UserService(dataAccess)
+                .register(new RegisterRequest("player", "pass", "player@email.com")).authToken();
+        int gameID = new GameService(dataAccess).createGame(new CreateGameRequest(authToken, "Bot game")).gameID();
+        dataAccess.createBotSeat(new BotSeat(gameID, ChessGame.TeamColor.WHITE, 1, 1000));
+
+        // The first engine cannot be made, as when its table's direct memory runs out
+        AtomicInteger engines = new AtomicInteger();
+        try (BotPlayer botPlayer = new BotPlayer(1, null, () -> {
+            if (engines.getAndIncrement() == 0) {
+                throw new OutOfMemoryError("Direct buffer memory");
+            }
+            return new Engine();
+        })) {
+            WebSocketHandler.setDataAccess(dataAccess);
+            WebSocketHandler.setBotPlayer(botPlayer);
+            WebSocketHandler handler = new WebSocketHandler();
+            Session session = session();
+            String connect = new Gson().toJson(new ConnectCommand(authToken, gameID));
+
+            // Each CONNECT asks the bot to move unless it is still thinking, so once the failed
+            // search has let go of the game a later CONNECT starts a search that succeeds
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (dataAccess.getGame(gameID).game().getTeamTurn() == ChessGame.TeamColor.WHITE) {
+                assertTrue(System.nanoTime() < deadline, "The bot never moved after its search failed");
+                handler.onMessage(session, connect);
+                Thread.sleep(10);
+            }
+            assertEquals(2, engines.get());
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package service;
+
+import chess.ChessGame;
+import chess.Fen;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryDataAccess;
+import engine.Engine;
+import engine.Limits;
+import engine.SearchResult;
+import org.junit.jupiter.api.Test;
+import server.BotPlayer;
+import service.requests.AnalysisRequest;
+import service.requests.CreateGameRequest;
+import service.requests.RegisterRequest;
+import service.results.AnalysisResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisServiceTest {
+
+    private static final String MATE_IN_ONE = "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1";
+
+    // Runs each search on the calling thread and counts them
+    private static class CountingSearcher implements AnalysisCache.Searcher {
+        private final Engine engine = new Engine();
+        int searches;
+
+        @Override
+        public boolean search(ChessGame game, Limits limits, BiConsumer<SearchResult, Throwable> callback) {
+            searches++;
+            callback.accept(engine.search(game, limits), null);
+            return true;
+        }
+    }
+
+    // Holds searches until the test finishes them
+    private static class QueuedSearcher implements AnalysisCache.Searcher {
+        final List<BiConsumer<SearchResult, Throwable>> callbacks = new ArrayList<>();
+
+        @Override
+        public boolean search(ChessGame game, Limits limits, BiConsumer<SearchResult, Throwable> callback) {
+            callbacks.add(callback);
+            return true;
+        }
+    }
+
+    private static SearchResult result(int score) {
+        return new SearchResult(null, score, List.of(), 1, 1, 0);
+    }
+
+    @Test
+    public void analyzePositionPositiveTest() throws DataAccessException {
+        MemoryDataAccess dataAccess = new MemoryDataAccess();
+        String authToken = new UserService(dataAccess)
+                .register(new RegisterRequest("watcher", "pass", "watcher@email.com")).authToken();
+        AnalysisCache cache = new AnalysisCache(new CountingSearcher(), Limits.depth(3), 16, 60_000);
+        AnalysisService service = new AnalysisService(dataAccess, cache);
+
+        AnalysisResult result = service.analyze(new AnalysisRequest(authToken, null, MATE_IN_ONE));
+
+        assertEquals("a1a8", result.bestMove());
+        assertEquals(1, result.mateIn());
+        assertEquals(List.of("a1a8"), result.principalVariation());
+    }
+
+    @Test
+    public void analyzeGamePositiveTest() throws DataAccessException {
+        MemoryDataAccess dataAccess = new MemoryDataAccess();
+        String authToken = new UserService(dataAccess)
+                .register(new RegisterRequest("watcher", "pass", "watcher@email.com")).authToken();
+        GameService.resetGameIDForTesting();
+        int gameID = new GameService(dataAccess).createGame(new CreateGameRequest(authToken, "Watched")).gameID();
+        AnalysisCache cache = new AnalysisCache(new CountingSearcher(), Limits.depth(2), 16, 60_000);
+        AnalysisService service = new AnalysisService(dataAccess, cache);
+
+        AnalysisResult result = service.analyze(new AnalysisRequest(authToken, gameID, null));
+
+        assertNotNull(result.bestMove());
+        assertEquals(2, result.depth());
+        assertEquals(0, result.mateIn());
+    }
+
+    @Test
+    public void analyzeInvalidRequestTest() throws DataAccessException {
+        MemoryDataAccess dataAccess = new MemoryDataAccess();
+        String authToken = new UserService(dataAccess)
+                .register(new RegisterRequest("watcher", "pass", "watcher@email.com")).authToken();
+        AnalysisService service = new AnalysisService(dataAccess,
+                new AnalysisCache(new CountingSearcher(), Limits.depth(1), 16, 60_000));
+
+        assertThrows(UnauthorizedException.class,
+                () -> service.analyze(new AnalysisRequest("invalid-token", null, MATE_IN_ONE)));
+        assertThrows(BadRequestException.class,
+                () -> service.analyze(new AnalysisRequest(authToken, null, "not a position")));
+        assertThrows(BadRequestException.class,
+                () -> service.analyze(new AnalysisRequest(authToken, 99, null)));
+        assertThrows(BadRequestException.class,
+                () -> service.analyze(new AnalysisRequest(authToken, null, null)));
+        // Black is to move but white is already in check
+        assertThrows(BadRequestException.class,
+                () -> service.analyze(new AnalysisRequest(authToken, null, "4k3/8/8/8/8/8/8/r3K3 b - - 0 1")));
+    }
+
+    @Test
+    public void repeatedPositionIsCachedTest() {
+        CountingSearcher searcher = new CountingSearcher();
+        AnalysisCache cache = new AnalysisCache(searcher, Limits.depth(2), 16, 60_000);
+
+        SearchResult first = cache.analyze(Fen.parse(MATE_IN_ONE)).join();
+        SearchResult second = cache.analyze(Fen.parse(MATE_IN_ONE)).join();
+
+        assertEquals(1, searcher.searches);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void concurrentRequestsShareOneSearchTest() {
+        QueuedSearcher searcher = new QueuedSearcher();
+        AnalysisCache cache = new AnalysisCache(searcher, Limits.depth(2), 16, 60_000);
+
+        CompletableFuture<SearchResult> first = cache.analyze(Fen.parse(MATE_IN_ONE));
+        CompletableFuture<SearchResult> second = cache.analyze(Fen.parse(MATE_IN_ONE));
+        assertEquals(1, searcher.callbacks.size());
+        assertFalse(first.isDone());
+
+        SearchResult finished = result(42);
+        searcher.callbacks.get(0).accept(finished, null);
+
+        assertSame(finished, first.join());
+        assertSame(finished, second.join());
+        assertSame(finished, cache.analyze(Fen.parse(MATE_IN_ONE)).join());
+        assertEquals(1, searcher.callbacks.size());
+    }
+
+    @Test
+    public void expiredResultIsSearchedAgainTest() {
+        QueuedSearcher searcher = new QueuedSearcher();
+        AtomicLong now = new AtomicLong();
+        AnalysisCache cache = new AnalysisCache(searcher, Limits.depth(2), 16, 1000, now::get);
+
+        cache.analyze(new ChessGame());
+        searcher.callbacks.get(0).accept(result(1), null);
+
+        now.set(999_000_000L);
+        assertTrue(cache.analyze(new ChessGame()).isDone());
+        now.set(1_000_000_000L);
+        assertFalse(cache.analyze(new ChessGame()).isDone());
+        assertEquals(2, searcher.callbacks.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedResultIsEvictedTest() {
+        QueuedSearcher searcher = new QueuedSearcher();
+        AnalysisCache cache = new AnalysisCache(searcher, Limits.depth(2), 2, 60_000);
+        String[] positions = {Fen.STARTING_POSITION, MATE_IN_ONE, "4k3/8/8/8/8/8/8/4K3 w - - 0 1"};
+
+        for (int i = 0; i < positions.length; i++) {
+            cache.analyze(Fen.parse(positions[i]));
+            searcher.callbacks.get(i).accept(result(i), null);
+            // Touch the starting position so the second position is the least recently used
+            cache.analyze(Fen.parse(positions[0]));
+        }
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.analyze(Fen.parse(positions[0])).isDone());
+        assertTrue(cache.analyze(Fen.parse(positions[2])).isDone());
+        assertFalse(cache.analyze(Fen.parse(positions[1])).isDone());
+    }
+
+    @Test
+    public void fullQueueIsUnavailableTest() {
+        AnalysisCache cache = new AnalysisCache((game, limits, callback) -> false, Limits.depth(2), 16, 60_000);
+
+        CompletableFuture<SearchResult> analysis = cache.analyze(new ChessGame());
+
+        assertTrue(analysis.isCompletedExceptionally());
+        // A refused search is not left pending, so a later request tries again
+        assertTrue(cache.analyze(new ChessGame()).isCompletedExceptionally());
+    }
+
+    @Test
+    public void failedSearchIsRetriedTest() {
+        QueuedSearcher searcher = new QueuedSearcher();
+        AnalysisCache cache = new AnalysisCache(searcher, Limits.depth(2), 16, 60_000);
+
+        CompletableFuture<SearchResult> failed = cache.analyze(new ChessGame());
+        searcher.callbacks.get(0).accept(null, new IllegalStateException("search blew up"));
+        assertTrue(failed.isCompletedExceptionally());
+
+        // The failure is neither cached nor left pending, so the next request searches again
+        CompletableFuture<SearchResult> retried = cache.analyze(new ChessGame());
+        assertEquals(2, searcher.callbacks.size());
+        assertFalse(retried.isDone());
+        SearchResult finished = result(7);
+        searcher.callbacks.get(1).accept(finished, null);
+        assertSame(finished, retried.join());
+    }
+
+    @Test
+    public void failedSearchIsServiceUnavailableTest() throws DataAccessException {
+        MemoryDataAccess dataAccess = new MemoryDataAccess();
+        String authToken = new UserService(dataAccess)
+                .register(new RegisterRequest("watcher", "pass", "watcher@email.com")).authToken();
+        AnalysisCache cache = new AnalysisCache((game, limits, callback) -> {
+            callback.accept(null, new IllegalStateException("search blew up"));
+            return true;
+        }, Limits.depth(2), 16, 60_000);
+        AnalysisService service = new AnalysisService(dataAccess, cache);
+
+        assertThrows(ServiceUnavailableException.class,
+                () -> service.analyze(new AnalysisRequest(authToken, null, MATE_IN_ONE)));
+    }
+
+    @Test
+    public void botPlayerErrorFailsAnalysisTest() throws Exception {
+        // The first engine cannot be made, as when its table's direct memory runs out
+        AtomicInteger engines = new AtomicInteger();
+        try (BotPlayer botPlayer = new BotPlayer(1, null, () -> {
+            if (engines.getAndIncrement() == 0) {
+                throw new OutOfMemoryError("Direct buffer memory");
+            }
+            return new Engine();
+        })) {
+            AnalysisCache cache = new AnalysisCache(botPlayer::requestSearch, Limits.depth(2), 16, 60_000);
+
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> cache.analyze(Fen.parse(MATE_IN_ONE)).get(10, TimeUnit.SECONDS));
+            assertInstanceOf(OutOfMemoryError.class, failure.getCause());
+
+            // The worker that died is replaced, and the failed analysis was not left pending
+            assertNotNull(cache.analyze(Fen.parse(MATE_IN_ONE)).get(10, TimeUnit.SECONDS).bestMove());
+        }
+    }
+}
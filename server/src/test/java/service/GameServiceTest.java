@@ -10,6 +10,7 @@ import service.results.JoinGameResult;
 import service.results.ListGamesResult;
 import service.results.RegisterResult;
 import dataaccess.DataAccessException;
+import model.BotSeat;
 import model.GameData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -364,4 +365,70 @@ public class GameServiceTest {
             gameService.joinGame(joinGameRequest);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void joinGameBotSeatTest() throws DataAccessException {
+        MemoryDataAccess dataAccess = new MemoryDataAccess();
+        GameService gameService = new GameService(dataAccess);
+        UserService userService = new UserService(dataAccess);
+
+        RegisterRequest registerRequest = new RegisterRequest("testuser", "testpass", "test@email.com");
+        String authToken = userService.register(registerRequest).authToken();
+        int gameID = gameService.createGame(new CreateGameRequest(authToken, "Test Game")).gameID();
+
+        gameService.joinGame(new JoinGameRequest(authToken, "BLACK", gameID, "BOT", 4, 500));
+        gameService.joinGame(new JoinGameRequest(authToken, "WHITE", gameID));
+
+        BotSeat seat = dataAccess.getBotSeat(gameID);
+        assertNotNull(seat);
+        assertEquals(chess.ChessGame.TeamColor.BLACK, seat.color());
+        assertEquals(4, seat.depth());
+        assertEquals(500, seat.moveTimeMillis());
+        assertEquals("testuser", dataAccess.getGame(gameID).whiteUsername());
+    }
+
+    @Test
+    public void joinGameBotSeatTakenTest() throws DataAccessException {
+        MemoryDataAccess dataAccess = new MemoryDataAccess();
+        GameService gameService = new GameService(dataAccess);
+        UserService userService = new UserService(dataAccess);
+
+        RegisterRequest registerRequest = new RegisterRequest("testuser", "testpass", "test@email.com");
+        String authToken = userService.register(registerRequest).authToken();
+        int gameID = gameService.createGame(new CreateGameRequest(authToken, "Test Game")).gameID();
+
+        gameService.joinGame(new JoinGameRequest(authToken, "WHITE", gameID, "BOT", null, null));
+
+        assertThrows(AlreadyTakenException.class, () -> {
+            gameService.joinGame(new JoinGameRequest(authToken, "WHITE", gameID));
+        });
+        assertThrows(AlreadyTakenException.class, () -> {
+            gameService.joinGame(new JoinGameRequest(authToken, "BLACK", gameID, "BOT", null, null));
+        });
+        assertThrows(BadRequestException.class, () -> {
+            gameService.joinGame(new JoinGameRequest(authToken, "BLACK", gameID, "ROBOT", null, null));
+        });
+    }
+
+    @Test
+    public void listGamesNamesBotSeatTest() throws DataAccessException {
+        MemoryDataAccess dataAccess = new MemoryDataAccess();
+        GameService gameService = new GameService(dataAccess);
+        UserService userService = new UserService(dataAccess);
+
+        String authToken = userService.register(new RegisterRequest("testuser", "testpass", "test@email.com")).authToken();
+        int botGameID = gameService.createGame(new CreateGameRequest(authToken, "Bot Game")).gameID();
+        int openGameID = gameService.createGame(new CreateGameRequest(authToken, "Open Game")).gameID();
+        gameService.joinGame(new JoinGameRequest(authToken, "BLACK", botGameID, "BOT", null, null));
+
+        ListGamesResult result = gameService.listGames(new ListGamesRequest(authToken));
+
+        GameData botGame = result.games().stream().filter(game -> game.gameID() == botGameID).findFirst().orElseThrow();
+        GameData openGame = result.games().stream().filter(game -> game.gameID() == openGameID).findFirst().orElseThrow();
+        assertNull(botGame.whiteUsername());
+        assertEquals(BotSeat.USERNAME, botGame.blackUsername());
+        assertNull(openGame.blackUsername());
+        // The name is only filled in for listing, never stored with the game
+        assertNull(dataAccess.getGame(botGameID).blackUsername());
+    }
+}
@@ -40,6 +40,17 @@ public class UserServiceTest {
         });
     }
 
+    @Test
+    public void registerBotUsernameTest() throws DataAccessException {
+        UserService service = new UserService(new MemoryDataAccess());
+
+        RegisterRequest registerRequest = new RegisterRequest(model.BotSeat.USERNAME, "pass", "bot@email.com");
+
+        assertThrows(AlreadyTakenException.class, () -> {
+            service.register(registerRequest);
+        });
+    }
+
     @Test
     public void registerEmptyUsernameTest() throws DataAccessException {
         UserService service = new UserService(new MemoryDataAccess());
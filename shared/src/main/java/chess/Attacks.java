@@ -0,0 +1,262 @@
+package chess;
+
+/**
+ * Precomputed attack sets for every square, expressed as bitboards using the
+ * same square numbering as {@link ChessBoard} (0 = a1, 63 = h8)
+ * <p>
+ * Rook and bishop attacks come from magic bitboard tables: the occupancy of
+ * the squares that can block a slider is multiplied by a per-square magic
+ * number whose top bits index straight into a table of attack sets. The
+ * tables are filled once at class load.
+ */
+public final class Attacks {
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    private static final int[][] KNIGHT_STEPS = {
+            {2, 1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}, {-1, -2}, {1, -2}, {2, -1}
+    };
+    private static final int[][] KING_STEPS = {
+            {0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, 1}, {-1, 1}, {1, -1}, {-1, -1}
+    };
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    // Found with a seeded random search for sparse numbers that map every blocker set without collisions
+    private static final long[] ROOK_MAGICS = {
+            0x40800181E8400110L, 0x0140200040001000L, 0x9900200040110008L,
+            0x0C80041002808800L, 0x0280080004008042L, 0x0380078006000400L,
+            0x8280020001000080L, 0x0200040021004082L, 0x0A24800440048020L,
+            0x8080404010002000L, 0x0120808010002000L, 0x0000801000080080L,
+            0x4202800400C80080L, 0x0002000402000811L, 0x0001010100040200L,
+            0x0024801041000080L, 0x8080808010204000L, 0x8010004040002000L,
+            0x0200808020001000L, 0x4040090010042100L, 0x0008808004000800L,
+            0x0010808004000200L, 0x7008640010822108L, 0x02000A0020805104L,
+            0x0880004540002010L, 0x0040002020081000L, 0x2003041100200640L,
+            0x08C0100080080084L, 0x2208008080080400L, 0x0000020080040080L,
+            0x0300082400620110L, 0x00420102000040ACL, 0x8018804000800828L,
+            0x1C00201006400040L, 0x2000110041002000L, 0x5030080080801000L,
+            0x9041800801800C02L, 0x0000040080800200L, 0x4060800200800100L,
+            0x4084008042000104L, 0x8800802040008010L, 0x0001008040010020L,
+            0x0020020400101000L, 0x8328001000828008L, 0x0020080004008080L,
+            0x0041000400090002L, 0x0001010002008080L, 0x0242012048820004L,
+            0x8880208000401080L, 0x8020400020100040L, 0x1000142040820200L,
+            0x0420200A00104200L, 0x0088001100040900L, 0x0420800400020080L,
+            0x01A8800200010080L, 0x1040008051040200L, 0x0080001842802103L,
+            0x822D041084400025L, 0x0003001020000841L, 0x0250250168201001L,
+            0x20060004100820CAL, 0x8002009004084102L, 0x0040100102080084L,
+            0x0010108420440702L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x0040307C09004010L, 0x11340C084041038BL, 0x6042040040800024L,
+            0x4049040309000120L, 0x0801104000000000L, 0x2100821040032189L,
+            0x0004008208208290L, 0xA020482410080400L, 0x1000E144AC080140L,
+            0x0800089001420022L, 0x0800041114010211L, 0x0090041042010000L,
+            0x8000121210520052L, 0x20142208020A0010L, 0x0034090910026000L,
+            0x0604604100A82000L, 0x0020084408101900L, 0x8050642C09220420L,
+            0x120400380808200CL, 0x8108000082810000L, 0x431C004080A00000L,
+            0x0910800508200202L, 0x880C800208040280L, 0x7022020092008208L,
+            0x500460A840089128L, 0x000804C0A0042090L, 0x140A080021080022L,
+            0x1001080005004100L, 0x25068C0000802001L, 0x0230002009008831L,
+            0x00009C01060A0218L, 0x4520420400808400L, 0x0010100440104400L,
+            0x0000822000C90818L, 0x401400281004004CL, 0x0000910800140040L,
+            0x8140110100021040L, 0x4810040808004100L, 0x023000C10002010CL,
+            0x0009084A88010410L, 0x0C24010840008A01L, 0x3018820802242000L,
+            0x1464211058001000L, 0x0004014010410200L, 0x2800221204100200L,
+            0x8008504282000120L, 0x805010A101088043L, 0x00040400820A8820L,
+            0x2024140404060401L, 0x10010118020200F0L, 0x28000021180810A0L,
+            0x80400200420200A0L, 0x0000800903040084L, 0x2285412809010406L,
+            0x0148091004244000L, 0x008208B200820044L, 0x0140220200A44040L,
+            0x0400410088341280L, 0x000200011C010408L, 0x0008220004420200L,
+            0x1000400004104408L, 0x0000442004014204L, 0x7041842842240420L,
+            0x0008312104240080L
+    };
+
+    private static final MagicTable ROOK = new MagicTable(ROOK_DIRECTIONS, ROOK_MAGICS);
+    private static final MagicTable BISHOP = new MagicTable(BISHOP_DIRECTIONS, BISHOP_MAGICS);
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = stepTargets(square, KNIGHT_STEPS);
+            KING[square] = stepTargets(square, KING_STEPS);
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = stepTargets(square, new int[][]{{1, -1}, {1, 1}});
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = stepTargets(square, new int[][]{{-1, -1}, {-1, 1}});
+        }
+
+        for (int from = 0; from < 64; from++) {
+            for (int[][] directions : new int[][][]{ROOK_DIRECTIONS, BISHOP_DIRECTIONS}) {
+                for (int[] direction : directions) {
+                    long line = (1L << from) | ray(from, direction[0], direction[1])
+                            | ray(from, -direction[0], -direction[1]);
+                    long between = 0L;
+                    int r = from / 8 + direction[0];
+                    int c = from % 8 + direction[1];
+                    while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                        BETWEEN[from][r * 8 + c] = between;
+                        LINE[from][r * 8 + c] = line;
+                        between |= 1L << (r * 8 + c);
+                        r += direction[0];
+                        c += direction[1];
+                    }
+                }
+            }
+        }
+    }
+
+    private Attacks() {}
+
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color standing on square attacks
+     */
+    public static long pawn(ChessGame.TeamColor color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+
+    /**
+     * @return the squares a rook on square attacks, stopping at (and including)
+     * the first occupied square along each ray
+     */
+    public static long rook(int square, long occupied) {
+        return ROOK.attacks(square, occupied);
+    }
+
+    public static long bishop(int square, long occupied) {
+        return BISHOP.attacks(square, occupied);
+    }
+
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between two squares that share a rank, file
+     * or diagonal, or 0 if they do not
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return every square on the rank, file or diagonal through two squares,
+     * from edge to edge, or 0 if they are not on one
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    private static long ray(int square, int rowStep, int colStep) {
+        return slide(square, 0L, new int[][]{{rowStep, colStep}});
+    }
+
+    private static long slide(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        int row = square / 8;
+        int col = square % 8;
+
+        for (int[] direction : directions) {
+            int r = row + direction[0];
+            int c = col + direction[1];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                long bit = 1L << (r * 8 + c);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static long stepTargets(int square, int[][] steps) {
+        long targets = 0L;
+        int row = square / 8;
+        int col = square % 8;
+
+        for (int[] step : steps) {
+            int r = row + step[0];
+            int c = col + step[1];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                targets |= 1L << (r * 8 + c);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Magic bitboard lookup for one kind of slider
+     */
+    private static final class MagicTable {
+
+        private final long[] masks = new long[64];
+        private final long[] magics;
+        private final int[] shifts = new int[64];
+        private final int[] offsets = new int[64];
+        private final long[] attacks;
+
+        MagicTable(int[][] directions, long[] magics) {
+            this.magics = magics;
+            int size = 0;
+            for (int square = 0; square < 64; square++) {
+                masks[square] = blockerMask(square, directions);
+                shifts[square] = 64 - Long.bitCount(masks[square]);
+                offsets[square] = size;
+                size += 1 << Long.bitCount(masks[square]);
+            }
+
+            attacks = new long[size];
+            for (int square = 0; square < 64; square++) {
+                fill(square, directions);
+            }
+        }
+
+        long attacks(int square, long occupied) {
+            int index = (int) (((occupied & masks[square]) * magics[square]) >>> shifts[square]);
+            return attacks[offsets[square] + index];
+        }
+
+        private void fill(int square, int[][] directions) {
+            long mask = masks[square];
+
+            // Walk every subset of the mask (the carry-rippler trick)
+            long subset = 0L;
+            do {
+                long reference = slide(square, subset, directions);
+                int slot = offsets[square] + (int) ((subset * magics[square]) >>> shifts[square]);
+                if (attacks[slot] != 0 && attacks[slot] != reference) {
+                    throw new IllegalStateException("Magic number for square " + square + " collides");
+                }
+                attacks[slot] = reference;
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+        }
+
+        // Squares whose occupancy can block the slider; edge squares never matter
+        private static long blockerMask(int square, int[][] directions) {
+            long mask = 0L;
+            for (int[] direction : directions) {
+                int r = square / 8 + direction[0];
+                int c = square % 8 + direction[1];
+                while (r + direction[0] >= 0 && r + direction[0] < 8 && c + direction[1] >= 0 && c + direction[1] < 8) {
+                    mask |= 1L << (r * 8 + c);
+                    r += direction[0];
+                    c += direction[1];
+                }
+            }
+            return mask;
+        }
+    }
+}
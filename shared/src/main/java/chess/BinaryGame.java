@@ -0,0 +1,194 @@
+package chess;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A compact binary form of a game, for the websocket binary protocol. A
+ * game takes {@link #size} bytes, at most 30 with 32 pieces on the board:
+ * <ul>
+ *     <li>a flags byte: black to move, the four castling rights, whether an
+ *     en passant square follows</li>
+ *     <li>the 64-bit occupancy of the board</li>
+ *     <li>a 4-bit piece code, {@code color * 6 + type}, for each occupied
+ *     square from a1 to h8, two to a byte with the first in the low half</li>
+ *     <li>the en passant square, if any, the two-byte halfmove clock and the
+ *     last move</li>
+ * </ul>
+ * Moves take two bytes: the from square, the to square and the promotion
+ * piece, with 0 for no move.
+ */
+public final class BinaryGame {
+
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int CASTLING_SHIFT = 1;
+    private static final int HAS_EN_PASSANT = 1 << 5;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+
+    private static final int MAX_HALFMOVE_CLOCK = 0xFFFF;
+
+    private BinaryGame() {}
+
+    /**
+     * @return the number of bytes {@link #write} takes for the game
+     */
+    public static int size(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        int pieces = Long.bitCount(board.getOccupiedMask());
+        return 1 + 8 + (pieces + 1) / 2 + (board.getEnPassantSquare() >= 0 ? 1 : 0) + 2 + 2;
+    }
+
+    /**
+     * Writes the game's {@link #size} bytes
+     *
+     * @throws IllegalArgumentException if the halfmove clock does not fit in
+     *                                  two bytes
+     */
+    public static void write(ChessGame game, ByteBuffer out) {
+        int halfmoveClock = game.getHalfmoveClock();
+        if (halfmoveClock < 0 || halfmoveClock > MAX_HALFMOVE_CLOCK) {
+            throw new IllegalArgumentException("Halfmove clock " + halfmoveClock + " does not fit in two bytes");
+        }
+        ChessBoard board = game.getBoard();
+        int enPassant = board.getEnPassantSquare();
+        int flags = (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0)
+                | board.getCastlingRights() << CASTLING_SHIFT
+                | (enPassant >= 0 ? HAS_EN_PASSANT : 0);
+        out.put((byte) flags);
+
+        long occupied = board.getOccupiedMask();
+        out.putLong(occupied);
+        int pending = -1;
+        for (long mask = occupied; mask != 0; mask &= mask - 1) {
+            ChessPiece piece = board.pieceAt(Long.numberOfTrailingZeros(mask));
+            int code = ChessBoard.pieceIndex(piece.getTeamColor(), piece.getPieceType());
+            if (pending < 0) {
+                pending = code;
+            } else {
+                out.put((byte) (pending | code << 4));
+                pending = -1;
+            }
+        }
+        if (pending >= 0) {
+            out.put((byte) pending);
+        }
+
+        if (enPassant >= 0) {
+            out.put((byte) enPassant);
+        }
+        out.putShort((short) halfmoveClock);
+        out.putShort((short) writeMove(game.getLastMove()));
+    }
+
+    public static byte[] toBytes(ChessGame game) {
+        ByteBuffer buffer = ByteBuffer.allocate(size(game));
+        write(game, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a game
+     */
+    public static ChessGame read(ByteBuffer in) {
+        try {
+            int flags = in.get();
+            long occupied = in.getLong();
+            ChessBoard board = new ChessBoard();
+            int code = 0;
+            int index = 0;
+            for (long mask = occupied; mask != 0; mask &= mask - 1, index++) {
+                if (index % 2 == 0) {
+                    code = in.get();
+                }
+                int piece = (index % 2 == 0 ? code : code >> 4) & 0xF;
+                if (piece >= 12) {
+                    throw new IllegalArgumentException("Bad piece code " + piece);
+                }
+                int square = Long.numberOfTrailingZeros(mask);
+                board.addPiece(ChessBoard.toPosition(square), newPiece(piece, square));
+            }
+
+            int rights = flags >> CASTLING_SHIFT & 0xF;
+            markUnmoved(board, rights, ChessBoard.CASTLE_WHITE_KINGSIDE, ChessGame.TeamColor.WHITE, 0, 7);
+            markUnmoved(board, rights, ChessBoard.CASTLE_WHITE_QUEENSIDE, ChessGame.TeamColor.WHITE, 0, 0);
+            markUnmoved(board, rights, ChessBoard.CASTLE_BLACK_KINGSIDE, ChessGame.TeamColor.BLACK, 56, 63);
+            markUnmoved(board, rights, ChessBoard.CASTLE_BLACK_QUEENSIDE, ChessGame.TeamColor.BLACK, 56, 56);
+
+            if ((flags & HAS_EN_PASSANT) != 0) {
+                board.setEnPassantSquare(in.get() & 63);
+            }
+            ChessGame game = new ChessGame(board, (flags & BLACK_TO_MOVE) != 0
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+            game.setHalfmoveClock(in.getShort() & 0xFFFF);
+            game.setLastMove(readMove(in.getShort() & 0xFFFF));
+            return game;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated game", e);
+        }
+    }
+
+    // Kings and rooks count as moved unless a castling right says otherwise, as when reading FEN
+    private static ChessPiece newPiece(int code, int square) {
+        ChessPiece.PieceType type = TYPES[code % 6];
+        ChessGame.TeamColor color = COLORS[code / 6];
+        ChessPiece piece = new ChessPiece(color, type);
+        int row = square / 8 + 1;
+        piece.setMoved(switch (type) {
+            case KING, ROOK -> true;
+            case PAWN -> row != (color == ChessGame.TeamColor.WHITE ? 2 : 7);
+            default -> false;
+        });
+        return piece;
+    }
+
+    private static void markUnmoved(ChessBoard board, int rights, int right, ChessGame.TeamColor color,
+                                    int king, int rook) {
+        if ((rights & right) == 0) {
+            return;
+        }
+        ChessPiece kingPiece = board.pieceAt(king + 4);
+        ChessPiece rookPiece = board.pieceAt(rook);
+        if (!isPiece(kingPiece, color, ChessPiece.PieceType.KING)
+                || !isPiece(rookPiece, color, ChessPiece.PieceType.ROOK)) {
+            throw new IllegalArgumentException("Castling rights without a " + color + " king and rook at home");
+        }
+        kingPiece.setMoved(false);
+        rookPiece.setMoved(false);
+    }
+
+    private static boolean isPiece(ChessPiece piece, ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return piece != null && piece.getTeamColor() == color && piece.getPieceType() == type;
+    }
+
+    /**
+     * @return the move in 16 bits, or 0 for null
+     */
+    public static int writeMove(ChessMove move) {
+        if (move == null) {
+            return 0;
+        }
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        int promotion = move.getPromotionPiece() == null ? 0 : move.getPromotionPiece().ordinal() + 1;
+        return ChessBoard.squareIndex(start.getRow(), start.getColumn())
+                | ChessBoard.squareIndex(end.getRow(), end.getColumn()) << 6
+                | promotion << 12;
+    }
+
+    /**
+     * @param bits a move from {@link #writeMove}
+     * @return the move, or null for 0
+     */
+    public static ChessMove readMove(int bits) {
+        if (bits == 0) {
+            return null;
+        }
+        int promotion = bits >> 12 & 7;
+        if (promotion > TYPES.length) {
+            throw new IllegalArgumentException("Bad promotion in move " + bits);
+        }
+        return ChessMove.of(bits & 63, bits >> 6 & 63, promotion == 0 ? null : TYPES[promotion - 1]);
+    }
+}
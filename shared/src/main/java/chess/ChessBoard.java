@@ -1,6 +1,8 @@
 package chess;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -13,6 +15,20 @@ public class ChessBoard {
 
     private ChessPiece[][] board;
 
+    // Bitboards indexed by square (row - 1) * 8 + (column - 1). They are rebuilt
+    // lazily from the piece array so boards read back by Gson stay consistent.
+    private transient long[] pieceMasks;
+    private transient long[] teamMasks;
+    private transient long occupiedMask;
+    private transient long pieceKey;
+
+    private int enPassantSquare = -1;
+
+    public static final int CASTLE_WHITE_KINGSIDE = 1;
+    public static final int CASTLE_WHITE_QUEENSIDE = 2;
+    public static final int CASTLE_BLACK_KINGSIDE = 4;
+    public static final int CASTLE_BLACK_QUEENSIDE = 8;
+
     public ChessBoard() {
         board = new ChessPiece[8][8];
     }
@@ -24,9 +40,7 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        int row = position.getRow() - 1;
-        int col = position.getColumn() - 1;
-        board[row][col] = piece;
+        setSquare(squareIndex(position.getRow(), position.getColumn()), piece);
     }
 
     /**
@@ -42,6 +56,117 @@ public class ChessBoard {
         return board[row][col];
     }
 
+    /**
+     * Applies a move in place without checking that it is legal. Castling moves
+     * the rook as well, en passant removes the captured pawn and promotions
+     * replace the pawn.
+     *
+     * @param move the move to apply
+     * @return the record needed to take the move back with {@link #unmakeMove}
+     */
+    public MoveUndo makeMove(ChessMove move) {
+        MoveUndo undo = new MoveUndo();
+        makeMove(move, undo);
+        return undo;
+    }
+
+    /**
+     * Applies a move in place, filling in a caller supplied undo record
+     *
+     * @param move the move to apply
+     * @param undo the record to fill in
+     */
+    public void makeMove(ChessMove move, MoveUndo undo) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        int from = squareIndex(start.getRow(), start.getColumn());
+        int to = squareIndex(end.getRow(), end.getColumn());
+        ChessPiece piece = pieceAt(from);
+        boolean isPawn = piece.getPieceType() == ChessPiece.PieceType.PAWN;
+
+        undo.from = from;
+        undo.to = to;
+        undo.moved = piece;
+        undo.movedHadMoved = !piece.hasNotMoved();
+        undo.previousEnPassant = enPassantSquare;
+        undo.rookFrom = -1;
+
+        ChessPiece captured = pieceAt(to);
+        int capturedSquare = to;
+        if (isPawn && captured == null && start.getColumn() != end.getColumn()) {
+            capturedSquare = squareIndex(start.getRow(), end.getColumn());
+            captured = pieceAt(capturedSquare);
+            setSquare(capturedSquare, null);
+        }
+        undo.captured = captured;
+        undo.capturedSquare = captured != null ? capturedSquare : -1;
+
+        setSquare(from, null);
+        if (move.getPromotionPiece() != null) {
+            ChessPiece promoted = new ChessPiece(piece.getTeamColor(), move.getPromotionPiece());
+            promoted.setMoved(true);
+            setSquare(to, promoted);
+        } else {
+            piece.setMoved(true);
+            setSquare(to, piece);
+        }
+
+        int colDiff = end.getColumn() - start.getColumn();
+        if (piece.getPieceType() == ChessPiece.PieceType.KING && (colDiff == 2 || colDiff == -2)) {
+            int rookFrom = squareIndex(start.getRow(), colDiff > 0 ? 8 : 1);
+            int rookTo = squareIndex(start.getRow(), colDiff > 0 ? 6 : 4);
+            ChessPiece rook = pieceAt(rookFrom);
+            if (rook != null) {
+                undo.rookFrom = rookFrom;
+                undo.rookTo = rookTo;
+                undo.rookHadMoved = !rook.hasNotMoved();
+                setSquare(rookFrom, null);
+                setSquare(rookTo, rook);
+                rook.setMoved(true);
+            }
+        }
+
+        int rowDiff = end.getRow() - start.getRow();
+        enPassantSquare = (isPawn && (rowDiff == 2 || rowDiff == -2)) ? (from + to) / 2 : -1;
+    }
+
+    /**
+     * Takes back a move applied with {@link #makeMove}. Moves must be taken back
+     * in the reverse order they were made.
+     *
+     * @param undo the record filled in when the move was made
+     */
+    public void unmakeMove(MoveUndo undo) {
+        if (undo.rookFrom >= 0) {
+            ChessPiece rook = pieceAt(undo.rookTo);
+            setSquare(undo.rookTo, null);
+            setSquare(undo.rookFrom, rook);
+            rook.setMoved(undo.rookHadMoved);
+        }
+
+        setSquare(undo.to, null);
+        undo.moved.setMoved(undo.movedHadMoved);
+        setSquare(undo.from, undo.moved);
+
+        if (undo.captured != null) {
+            setSquare(undo.capturedSquare, undo.captured);
+        }
+
+        enPassantSquare = undo.previousEnPassant;
+    }
+
+    /**
+     * @return the square a pawn skipped over with a two square advance on the
+     * last move, or -1 if the last move was not one
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    void setEnPassantSquare(int square) {
+        enPassantSquare = square;
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
@@ -54,30 +179,273 @@ public class ChessBoard {
         addBackRow(8, ChessGame.TeamColor.BLACK);
     }
 
-    public ChessBoard copy() {
-        ChessBoard copy = new ChessBoard();
+    /**
+     * @return bitboard of the squares holding the given team's pieces of the given type
+     */
+    public long getPieceMask(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return masks()[pieceIndex(color, type)];
+    }
 
-        for (int col = 1; col <= 8; col++) {
-            for (int row = 1; row <= 8; row++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = this.getPiece(pos);
+    /**
+     * @return bitboard of the squares holding any of the given team's pieces
+     */
+    public long getTeamMask(ChessGame.TeamColor color) {
+        masks();
+        return teamMasks[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupiedMask() {
+        masks();
+        return occupiedMask;
+    }
 
+    /**
+     * Bit flags for the castling rights still available, derived from whether
+     * the kings and corner rooks are on their starting squares and have not moved
+     *
+     * @return some combination of the CASTLE_* flags
+     */
+    public int getCastlingRights() {
+        int rights = 0;
+        if (isUnmoved(squareIndex(1, 5), ChessPiece.PieceType.KING, ChessGame.TeamColor.WHITE)) {
+            if (isUnmoved(squareIndex(1, 8), ChessPiece.PieceType.ROOK, ChessGame.TeamColor.WHITE)) {
+                rights |= CASTLE_WHITE_KINGSIDE;
+            }
+            if (isUnmoved(squareIndex(1, 1), ChessPiece.PieceType.ROOK, ChessGame.TeamColor.WHITE)) {
+                rights |= CASTLE_WHITE_QUEENSIDE;
+            }
+        }
+        if (isUnmoved(squareIndex(8, 5), ChessPiece.PieceType.KING, ChessGame.TeamColor.BLACK)) {
+            if (isUnmoved(squareIndex(8, 8), ChessPiece.PieceType.ROOK, ChessGame.TeamColor.BLACK)) {
+                rights |= CASTLE_BLACK_KINGSIDE;
+            }
+            if (isUnmoved(squareIndex(8, 1), ChessPiece.PieceType.ROOK, ChessGame.TeamColor.BLACK)) {
+                rights |= CASTLE_BLACK_QUEENSIDE;
+            }
+        }
+        return rights;
+    }
+
+    private boolean isUnmoved(int square, ChessPiece.PieceType type, ChessGame.TeamColor color) {
+        ChessPiece piece = pieceAt(square);
+        return piece != null && piece.getPieceType() == type && piece.getTeamColor() == color && piece.hasNotMoved();
+    }
+
+    /**
+     * The Zobrist key of the board: the pieces, castling rights and en passant
+     * file. The piece part is kept up to date incrementally as pieces move. The
+     * en passant file only counts when a pawn could actually capture there, so
+     * positions that play identically hash identically.
+     *
+     * @return 64-bit hash of the position, not including the side to move
+     */
+    public long getZobristKey() {
+        long key = getPieceKey() ^ Zobrist.castling(getCastlingRights());
+        if (enPassantSquare >= 0 && canCaptureEnPassant()) {
+            key ^= Zobrist.enPassantFile(enPassantSquare % 8);
+        }
+        return key;
+    }
+
+    /**
+     * @param sideToMove the team whose turn it is
+     * @return the Zobrist key of the board combined with the side to move,
+     * the full key of a position for transposition tables and repetitions
+     */
+    public long getZobristKey(ChessGame.TeamColor sideToMove) {
+        long key = getZobristKey();
+        return sideToMove == ChessGame.TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
+    }
+
+    boolean canCaptureEnPassant() {
+        // A square on the third row was skipped by white, so black captures
+        ChessGame.TeamColor pushed = enPassantSquare / 8 == 2 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessGame.TeamColor capturer = pushed == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        return (Attacks.pawn(pushed, enPassantSquare) & getPieceMask(capturer, ChessPiece.PieceType.PAWN)) != 0;
+    }
+
+    private long getPieceKey() {
+        masks();
+        return pieceKey;
+    }
+
+    /**
+     * @return the square index of the given team's king, or -1 if the team has
+     * no king on the board
+     */
+    public int getKingSquare(ChessGame.TeamColor color) {
+        long king = getPieceMask(color, ChessPiece.PieceType.KING);
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * @return the position of the given team's king, or null if the team has no
+     * king on the board
+     */
+    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
+        int square = getKingSquare(color);
+        return square < 0 ? null : toPosition(square);
+    }
+
+    /**
+     * @return the positions of all the given team's pieces, in square order
+     */
+    public List<ChessPosition> getTeamPositions(ChessGame.TeamColor color) {
+        long pieces = getTeamMask(color);
+        List<ChessPosition> positions = new ArrayList<>(Long.bitCount(pieces));
+
+        while (pieces != 0) {
+            positions.add(toPosition(Long.numberOfTrailingZeros(pieces)));
+            pieces &= pieces - 1;
+        }
+        return positions;
+    }
+
+    /**
+     * Determines whether any piece of the given team attacks a square. Works
+     * outward from the square along knight, pawn, king and sliding rays, so the
+     * cost does not depend on how many pieces are on the board.
+     *
+     * @param square  the square to test
+     * @param byColor the attacking team
+     * @return True if a piece of byColor attacks the square
+     */
+    public boolean isSquareAttacked(ChessPosition square, ChessGame.TeamColor byColor) {
+        return isSquareAttacked(squareIndex(square.getRow(), square.getColumn()), byColor);
+    }
+
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor byColor) {
+        long[] pieces = masks();
+        int offset = byColor.ordinal() * 6;
+        ChessGame.TeamColor defender = byColor == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+
+        if ((Attacks.knight(square) & pieces[offset + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0
+                || (Attacks.king(square) & pieces[offset + ChessPiece.PieceType.KING.ordinal()]) != 0
+                || (Attacks.pawn(defender, square) & pieces[offset + ChessPiece.PieceType.PAWN.ordinal()]) != 0) {
+            return true;
+        }
+
+        long queens = pieces[offset + ChessPiece.PieceType.QUEEN.ordinal()];
+        long diagonal = queens | pieces[offset + ChessPiece.PieceType.BISHOP.ordinal()];
+        long straight = queens | pieces[offset + ChessPiece.PieceType.ROOK.ordinal()];
+
+        return (diagonal != 0 && (Attacks.bishop(square, occupiedMask) & diagonal) != 0)
+                || (straight != 0 && (Attacks.rook(square, occupiedMask) & straight) != 0);
+    }
+
+    /**
+     * @return the square index (0 = a1, 63 = h8) used by the bitboards
+     */
+    public static int squareIndex(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    public static ChessPosition toPosition(int square) {
+        return ChessPosition.of(square);
+    }
+
+    ChessPiece pieceAt(int square) {
+        return board[square / 8][square % 8];
+    }
+
+    private void setSquare(int square, ChessPiece piece) {
+        ChessPiece previous = board[square / 8][square % 8];
+        board[square / 8][square % 8] = piece;
+
+        if (pieceMasks != null) {
+            if (previous != null) {
+                clearMasks(previous, square);
+            }
+            if (piece != null) {
+                setMasks(piece, square);
+            }
+        }
+    }
+
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    long[] pieceMasks() {
+        return masks();
+    }
+
+    private long[] masks() {
+        if (pieceMasks == null) {
+            rebuildMasks();
+        }
+        return pieceMasks;
+    }
+
+    private void rebuildMasks() {
+        pieceMasks = new long[12];
+        teamMasks = new long[2];
+        occupiedMask = 0L;
+        pieceKey = 0L;
+
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board[row][col];
                 if (piece != null) {
-                    copy.addPiece(pos, new ChessPiece(piece));
+                    setMasks(piece, row * 8 + col);
                 }
             }
         }
+    }
+
+    private void setMasks(ChessPiece piece, int square) {
+        long bit = 1L << square;
+        int index = pieceIndex(piece.getTeamColor(), piece.getPieceType());
+        pieceMasks[index] |= bit;
+        teamMasks[piece.getTeamColor().ordinal()] |= bit;
+        occupiedMask |= bit;
+        pieceKey ^= Zobrist.piece(index, square);
+    }
+
+    private void clearMasks(ChessPiece piece, int square) {
+        long bit = 1L << square;
+        int index = pieceIndex(piece.getTeamColor(), piece.getPieceType());
+        pieceMasks[index] &= ~bit;
+        teamMasks[piece.getTeamColor().ordinal()] &= ~bit;
+        occupiedMask &= ~bit;
+        pieceKey ^= Zobrist.piece(index, square);
+    }
+
+    public ChessBoard copy() {
+        ChessBoard copy = new ChessBoard();
+
+        long pieces = getOccupiedMask();
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            copy.board[square / 8][square % 8] = new ChessPiece(board[square / 8][square % 8]);
+        }
+        copy.pieceMasks = pieceMasks.clone();
+        copy.teamMasks = teamMasks.clone();
+        copy.occupiedMask = occupiedMask;
+        copy.pieceKey = pieceKey;
+        copy.enPassantSquare = enPassantSquare;
 
         return copy;
     }
 
     private void clearBoard() {
         board = new ChessPiece[8][8];
+        pieceMasks = new long[12];
+        teamMasks = new long[2];
+        occupiedMask = 0L;
+        pieceKey = 0L;
+        enPassantSquare = -1;
     }
 
     private void addPawns(int row, ChessGame.TeamColor color) {
         for (int col = 1; col <= 8; col++) {
-            ChessPosition position = new ChessPosition(row, col);
+            ChessPosition position = ChessPosition.of(row, col);
             ChessPiece piece = new ChessPiece(color, ChessPiece.PieceType.PAWN);
             addPiece(position, piece);
         }
@@ -89,12 +457,12 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(board, that.board);
+        return getPieceKey() == that.getPieceKey() && Objects.deepEquals(board, that.board);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Long.hashCode(getPieceKey());
     }
 
     @Override
@@ -117,7 +485,7 @@ public class ChessBoard {
         };
 
         for (int col = 1; col <= 8; col++) {
-            ChessPosition position = new ChessPosition(row, col);
+            ChessPosition position = ChessPosition.of(row, col);
             ChessPiece piece = new ChessPiece(color, organization[col - 1]);
             addPiece(position, piece);
         }
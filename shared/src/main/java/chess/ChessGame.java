@@ -1,5 +1,7 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -11,10 +13,20 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessGameTypeAdapterFactory.class)
 public class ChessGame {
+    // The seventy-five-move rule ends the game without a claim
+    private static final int SEVENTY_FIVE_MOVE_HALFMOVES = 150;
+
     private ChessBoard board;
     private TeamColor teamTurn;
     private ChessMove lastMove;
+    private int halfmoveClock;
+
+    // Last evaluateStatus result and the position and clock it was computed for
+    private transient GameStatus cachedStatus;
+    private transient long cachedStatusKey;
+    private transient int cachedHalfmoveClock;
 
     public ChessGame() {
         this.board = new ChessBoard();
@@ -23,6 +35,29 @@ public class ChessGame {
         this.lastMove = null;
     }
 
+    ChessGame(ChessBoard board, TeamColor teamTurn) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+    }
+
+    /**
+     * @param fen a position in Forsyth-Edwards Notation; the move counters may be left off
+     * @return a game set up at that position
+     * @throws IllegalArgumentException if the text is not a valid position
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        return Fen.parse(fen);
+    }
+
+    /**
+     * @return the position in Forsyth-Edwards Notation. The en passant square
+     * is only listed when a pawn can capture there, so positions that play
+     * identically give the same text apart from the move counters.
+     */
+    public String toFen() {
+        return Fen.toFen(this);
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -47,6 +82,29 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * Where the game stands for the team whose turn it is
+     */
+    public enum GameStatus {
+        NORMAL,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        /**
+         * Seventy-five moves by each side without a capture or pawn move. The
+         * fifty-move draw has to be claimed, so it does not end the game.
+         */
+        DRAW_SEVENTY_FIVE_MOVES,
+        DRAW_INSUFFICIENT_MATERIAL;
+
+        /**
+         * @return True if no more moves can be played
+         */
+        public boolean isGameOver() {
+            return this != NORMAL && this != CHECK;
+        }
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -60,45 +118,14 @@ public class ChessGame {
             return Collections.emptyList();
         }
 
-        Collection<ChessMove> possibleMoves = piece.pieceMoves(board, startPosition);
+        MoveList moves = new MoveList();
+        long from = 1L << ChessBoard.squareIndex(startPosition.getRow(), startPosition.getColumn());
+        MoveGenerator.generate(board, piece.getTeamColor(), from, moves);
 
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
-            possibleMoves.addAll(getEnPassantMoves(startPosition, piece));
+        Collection<ChessMove> legalMoves = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            legalMoves.add(Move.toChessMove(moves.get(i)));
         }
-        
-        Collection<ChessMove> legalMoves = new ArrayList<>();
-
-        for (ChessMove move : possibleMoves) {
-            ChessBoard simulatedBoard = board.copy();
-
-            ChessPiece movingPiece = simulatedBoard.getPiece(startPosition);
-            simulatedBoard.addPiece(move.getStartPosition(), null);
-
-            if (move.getPromotionPiece() != null) {
-                simulatedBoard.addPiece(move.getEndPosition(),
-                        new ChessPiece(piece.getTeamColor(), move.getPromotionPiece()));
-            } else {
-                simulatedBoard.addPiece(move.getEndPosition(), movingPiece);
-            }
-
-            // En Passant -_0
-            boolean isEnPassant = piece.getPieceType() == ChessPiece.PieceType.PAWN &&
-                    startPosition.getColumn() != move.getEndPosition().getColumn() &&
-                    board.getPiece(move.getEndPosition()) == null;
-
-            if (isEnPassant) {
-                ChessPosition capturedPawnPos = new ChessPosition(startPosition.getRow(), move.getEndPosition().getColumn());
-                simulatedBoard.addPiece(capturedPawnPos, null);
-            }
-
-            ChessGame testGame = new ChessGame();
-            testGame.setBoard(simulatedBoard);
-
-            if (!testGame.isInCheck(piece.getTeamColor())) {
-                legalMoves.add(move);
-            }
-        }
-
         return legalMoves;
     }
 
@@ -110,7 +137,6 @@ public class ChessGame {
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
         ChessPosition start = move.getStartPosition();
-        ChessPosition end = move.getEndPosition();
         ChessPiece piece = board.getPiece(start);
 
         if (piece == null) {
@@ -125,37 +151,10 @@ public class ChessGame {
             throw new InvalidMoveException("That move is not allowed!");
         }
 
-        boolean isCastling = false;
-        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
-            int colDiff = start.getColumn() - end.getColumn();
-            if (colDiff == 2 || colDiff == -2) {
-                isCastling = true;
-            }
-        }
-        boolean isEnPassant = piece.getPieceType() == ChessPiece.PieceType.PAWN &&
-                start.getColumn() != end.getColumn() &&
-                board.getPiece(end) == null;
-
-        if (move.getPromotionPiece() != null) {
-            ChessPiece promoted = new ChessPiece(teamTurn, move.getPromotionPiece());
-            promoted.setMoved(true);
-            board.addPiece(end, promoted);
-        } else {
-            board.addPiece(end, piece);
-            piece.setMoved(true);
-        }
-
-        board.addPiece(start, null);
-
-        if (isCastling) {
-            castling(move);
-        }
-
-        if (isEnPassant) {
-            ChessPosition capturedPawnPos = new ChessPosition(start.getRow(), end.getColumn());
-            board.addPiece(capturedPawnPos, null);
-        }
+        boolean resetsClock = piece.getPieceType() == ChessPiece.PieceType.PAWN || board.getPiece(move.getEndPosition()) != null;
+        board.makeMove(move);
 
+        halfmoveClock = resetsClock ? 0 : halfmoveClock + 1;
         lastMove = move;
         teamTurn = (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
     }
@@ -167,54 +166,13 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = null;
-
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
-
-                if (piece != null &&
-                        piece.getTeamColor() == teamColor &&
-                        piece.getPieceType() == ChessPiece.PieceType.KING) {
-
-                    kingPosition = pos;
-                    break;
-                }
-            }
-            if (kingPosition != null) {
-                break;
-            }
-        }
-
-        return isKingInDanger(teamColor, kingPosition, board);
-    }
-
-    static boolean isKingInDanger(TeamColor teamColor, ChessPosition kingPosition, ChessBoard board) {
-        for (int row = 1; row <= 8; row++) {
-            for (int column = 1; column <= 8; column++) {
-                ChessPosition position = new ChessPosition(row, column);
-                ChessPiece piece = board.getPiece(position);
-
-                if (isEnemyPiece(piece, teamColor) && threatensKing(piece, position, board, kingPosition)) {
-                    return true;
-                }
-            }
+        int kingSquare = board.getKingSquare(teamColor);
+        if (kingSquare < 0) {
+            return false;
         }
-        return false;
-    }
 
-    private static boolean isEnemyPiece(ChessPiece piece, TeamColor teamColor) {
-        return piece != null && piece.getTeamColor() != teamColor;
-    }
-
-    private static boolean threatensKing(ChessPiece piece, ChessPosition from, ChessBoard board, ChessPosition kingPosition) {
-        for (ChessMove move : piece.pieceMoves(board, from)) {
-            if (move.getEndPosition().equals(kingPosition)) {
-                return true;
-            }
-        }
-        return false;
+        TeamColor enemyColor = (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        return board.isSquareAttacked(kingSquare, enemyColor);
     }
 
     /**
@@ -224,6 +182,9 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
+        if (teamColor == teamTurn) {
+            return evaluateStatus() == GameStatus.CHECKMATE;
+        }
         if (!isInCheck(teamColor)) {
             return false;
         }
@@ -240,6 +201,9 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
+        if (teamColor == teamTurn) {
+            return evaluateStatus() == GameStatus.STALEMATE;
+        }
         if (isInCheck(teamColor)) {
             return false;
         }
@@ -248,21 +212,108 @@ public class ChessGame {
     }
 
     private boolean hasNoMoves(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
-
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    Collection<ChessMove> moves = validMoves(pos);
-                    if (!moves.isEmpty()) {
-                        return false;
-                    }
-                }
-            }
+        return !MoveGenerator.hasLegalMove(board, teamColor, new MoveList());
+    }
+
+    /**
+     * Works out check, checkmate, stalemate and the automatic draws for the team
+     * whose turn it is, stopping move generation at the first legal move. The
+     * result is cached until the position changes, so isInCheckmate and
+     * isInStalemate for the same team reuse it.
+     *
+     * @return the status of the team to move
+     */
+    public GameStatus evaluateStatus() {
+        long key = positionKey();
+        if (cachedStatus != null && cachedStatusKey == key && cachedHalfmoveClock == halfmoveClock) {
+            return cachedStatus;
+        }
+
+        boolean inCheck = isInCheck(teamTurn);
+        GameStatus status;
+        if (hasNoMoves(teamTurn)) {
+            status = inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        } else if (halfmoveClock >= SEVENTY_FIVE_MOVE_HALFMOVES) {
+            status = GameStatus.DRAW_SEVENTY_FIVE_MOVES;
+        } else if (hasInsufficientMaterial()) {
+            status = GameStatus.DRAW_INSUFFICIENT_MATERIAL;
+        } else {
+            status = inCheck ? GameStatus.CHECK : GameStatus.NORMAL;
+        }
+
+        cachedStatus = status;
+        cachedStatusKey = key;
+        cachedHalfmoveClock = halfmoveClock;
+        return status;
+    }
+
+    /**
+     * @return the number of moves by either side since the last capture or pawn
+     * move, as used by the fifty-move rule
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    /**
+     * @return the move that led to this position, or null at the start of a game
+     */
+    public ChessMove getLastMove() {
+        return lastMove;
+    }
+
+    void setLastMove(ChessMove lastMove) {
+        this.lastMove = lastMove;
+    }
+
+    // Neither side can mate: bare kings plus at most one minor piece, or only same colored bishops
+    private boolean hasInsufficientMaterial() {
+        long heavy = 0L;
+        for (TeamColor color : TeamColor.values()) {
+            heavy |= board.getPieceMask(color, ChessPiece.PieceType.PAWN)
+                    | board.getPieceMask(color, ChessPiece.PieceType.ROOK)
+                    | board.getPieceMask(color, ChessPiece.PieceType.QUEEN);
+        }
+        if (heavy != 0) {
+            return false;
+        }
+
+        long knights = board.getPieceMask(TeamColor.WHITE, ChessPiece.PieceType.KNIGHT)
+                | board.getPieceMask(TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        long bishops = board.getPieceMask(TeamColor.WHITE, ChessPiece.PieceType.BISHOP)
+                | board.getPieceMask(TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        if (Long.bitCount(knights | bishops) <= 1) {
+            return true;
         }
 
-        return true;
+        long darkSquares = 0xAA55AA55AA55AA55L;
+        return knights == 0 && ((bishops & darkSquares) == 0 || (bishops & ~darkSquares) == 0);
+    }
+
+    /**
+     * A 64-bit Zobrist key for the current position: pieces, side to move,
+     * castling rights and en passant file. Two games that would play out
+     * identically from here share a key, which makes it suitable for
+     * transposition tables, repetition detection and position caches.
+     *
+     * @return the position key
+     */
+    public long positionKey() {
+        return board.getZobristKey(teamTurn);
+    }
+
+    /**
+     * @return an independent game at the same position, with its own board
+     */
+    public ChessGame copy() {
+        ChessGame copy = new ChessGame(board.copy(), teamTurn);
+        copy.lastMove = lastMove;
+        copy.halfmoveClock = halfmoveClock;
+        return copy;
     }
 
     @Override
@@ -296,86 +347,4 @@ public class ChessGame {
     public ChessBoard getBoard() {
         return board;
     }
-
-    private Collection<ChessMove> getEnPassantMoves(ChessPosition startPosition, ChessPiece piece) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        
-        if (lastMove == null) {
-            return moves;
-        }
- 
-        ChessPiece lastPiece = board.getPiece(lastMove.getEndPosition());
-        if (lastPiece == null || lastPiece.getPieceType() != ChessPiece.PieceType.PAWN) {
-            return moves;
-        }
-
-        int rowDiff = lastMove.getEndPosition().getRow() - lastMove.getStartPosition().getRow();
-        if (rowDiff != 2 && rowDiff != -2) {
-            return moves;
-        }
-
-        if (startPosition.getRow() != lastMove.getEndPosition().getRow()) {
-            return moves;
-        }
-        
-        int colDiff = startPosition.getColumn() - lastMove.getEndPosition().getColumn();
-        if (colDiff != 1 && colDiff != -1) {
-            return moves;
-        }
-
-        if (piece.getTeamColor() == lastPiece.getTeamColor()) {
-            return moves;
-        }
-
-        int direction = 1;
-        if (piece.getTeamColor() == TeamColor.BLACK) {
-            direction = -1;
-        }
-        
-        int newRow = startPosition.getRow() + direction;
-        int newCol = lastMove.getEndPosition().getColumn();
-        ChessPosition captureSquare = new ChessPosition(newRow, newCol);
-
-        if (newRow >= 1 && newRow <= 8 && board.getPiece(captureSquare) == null) {
-            moves.add(new ChessMove(startPosition, captureSquare, null));
-        }
-        
-        return moves;
-    }
-
-    public void castling(ChessMove move) {
-        ChessPosition start = move.getStartPosition();
-        ChessPosition end = move.getEndPosition();
-        ChessPiece king = board.getPiece(end);
-
-        if (king == null || king.getPieceType() != ChessPiece.PieceType.KING) {
-            return;
-        }
-
-        int row = start.getRow();
-        int startCol = start.getColumn();
-        int endCol = end.getColumn();
-
-        if (endCol - startCol == 2) {
-            // King side
-            ChessPosition rookStart = new ChessPosition(row, 8);
-            ChessPosition rookEnd = new ChessPosition(row, 6);
-            ChessPiece rook = board.getPiece(rookStart);
-            board.addPiece(rookEnd, rook);
-            board.addPiece(rookStart, null);
-            if (rook != null) {
-                rook.setMoved(true);
-            }
-        } else if (startCol - endCol == 2) {
-            // Queen side
-            ChessPosition rookStart = new ChessPosition(row, 1);
-            ChessPosition rookEnd = new ChessPosition(row, 4);
-            ChessPiece rook = board.getPiece(rookStart);
-            board.addPiece(rookEnd, rook);
-            board.addPiece(rookStart, null);
-            if (rook != null) {
-                rook.setMoved(true);
-            }
-        }
-    }
 }
@@ -0,0 +1,126 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes games as their FEN and last move, e.g.
+ * {@code {"fen":"rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 1","lastMove":"e7e5"}},
+ * a few dozen bytes where reflective Gson writes every square of the board.
+ * <p>
+ * Games saved in the old reflective shape, which has no {@code fen} field,
+ * are still read, by handing them to the reflective adapter. The oldest of
+ * those predate the board's en passant square, so it is worked out again
+ * from the last move.
+ */
+class ChessGameTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != ChessGame.class) {
+            return null;
+        }
+        return (TypeAdapter<T>) new Adapter(gson.getDelegateAdapter(this, TypeToken.get(ChessGame.class)),
+                gson.getAdapter(JsonElement.class));
+    }
+
+    private static class Adapter extends TypeAdapter<ChessGame> {
+
+        private final TypeAdapter<ChessGame> reflective;
+        private final TypeAdapter<JsonElement> elementAdapter;
+
+        Adapter(TypeAdapter<ChessGame> reflective, TypeAdapter<JsonElement> elementAdapter) {
+            this.reflective = reflective;
+            this.elementAdapter = elementAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, ChessGame game) throws IOException {
+            if (game == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("fen").value(Fen.toFen(game));
+            if (game.getLastMove() != null) {
+                out.name("lastMove").value(Fen.moveName(game.getLastMove()));
+            }
+            out.endObject();
+        }
+
+        @Override
+        public ChessGame read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            String fen = null;
+            String lastMove = null;
+            // Fields of the old shape, collected once one turns up
+            JsonObject legacy = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (legacy == null && name.equals("fen")) {
+                    fen = in.nextString();
+                } else if (legacy == null && name.equals("lastMove") && in.peek() == JsonToken.STRING) {
+                    lastMove = in.nextString();
+                } else {
+                    if (legacy == null) {
+                        legacy = new JsonObject();
+                    }
+                    legacy.add(name, elementAdapter.read(in));
+                }
+            }
+            in.endObject();
+
+            if (fen == null) {
+                if (legacy == null) {
+                    throw new JsonSyntaxException("Game has no fen field");
+                }
+                ChessGame game = reflective.fromJsonTree(legacy);
+                restoreEnPassant(game);
+                return game;
+            }
+            try {
+                ChessGame game = Fen.parse(fen);
+                if (lastMove != null) {
+                    game.setLastMove(Fen.readMove(lastMove));
+                }
+                return game;
+            } catch (IllegalArgumentException e) {
+                throw new JsonSyntaxException("Bad game: " + e.getMessage(), e);
+            }
+        }
+
+        // Boards saved before they tracked the en passant square leave it to the last move
+        private static void restoreEnPassant(ChessGame game) {
+            ChessBoard board = game.getBoard();
+            ChessMove last = game.getLastMove();
+            if (board == null || last == null || board.getEnPassantSquare() >= 0) {
+                return;
+            }
+            ChessPosition start = last.getStartPosition();
+            ChessPosition end = last.getEndPosition();
+            ChessPiece piece = board.getPiece(end);
+            if (piece != null && piece.getPieceType() == ChessPiece.PieceType.PAWN
+                    && Math.abs(end.getRow() - start.getRow()) == 2) {
+                int from = ChessBoard.squareIndex(start.getRow(), start.getColumn());
+                int to = ChessBoard.squareIndex(end.getRow(), end.getColumn());
+                board.setEnPassantSquare((from + to) / 2);
+            }
+        }
+    }
+}
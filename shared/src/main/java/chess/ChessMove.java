@@ -1,5 +1,7 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.Objects;
 
 /**
@@ -8,12 +10,42 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessMoveTypeAdapter.class)
 public class ChessMove {
 
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
 
+    // One slot for a plain move plus one per promotion type (QUEEN..ROOK)
+    private static final int SLOTS = 5;
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64 * SLOTS];
+
+    static {
+        ChessPiece.PieceType[] promotions = {
+                ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK
+        };
+
+        for (int from = 0; from < 64; from++) {
+            long targets = Attacks.queen(from, 0L) | Attacks.knight(from);
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+
+                ChessPosition start = ChessPosition.of(from);
+                ChessPosition end = ChessPosition.of(to);
+                MOVES[index(from, to, 0)] = new ChessMove(start, end, null);
+
+                if (isPromotionStep(from, to)) {
+                    for (ChessPiece.PieceType promotion : promotions) {
+                        MOVES[index(from, to, promotion.ordinal())] = new ChessMove(start, end, promotion);
+                    }
+                }
+            }
+        }
+    }
+
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
         this.startPosition = startPosition;
@@ -21,6 +53,57 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Returns the shared instance for a move. Every move a piece can make has one
+     * built ahead of time, so move generation does not allocate.
+     *
+     * @return the cached move, or a new one for a move no piece could make
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (isOnBoard(startPosition) && isOnBoard(endPosition)) {
+            ChessMove move = lookup(ChessBoard.squareIndex(startPosition.getRow(), startPosition.getColumn()),
+                    ChessBoard.squareIndex(endPosition.getRow(), endPosition.getColumn()), promotionPiece);
+            if (move != null) {
+                return move;
+            }
+        }
+        return new ChessMove(startPosition, endPosition, promotionPiece);
+    }
+
+    /**
+     * @param from square index of the starting location (0 = a1, 63 = h8)
+     * @param to   square index of the ending location
+     */
+    public static ChessMove of(int from, int to, ChessPiece.PieceType promotionPiece) {
+        ChessMove move = lookup(from, to, promotionPiece);
+        return move != null ? move : new ChessMove(ChessPosition.of(from), ChessPosition.of(to), promotionPiece);
+    }
+
+    private static ChessMove lookup(int from, int to, ChessPiece.PieceType promotionPiece) {
+        int slot = promotionPiece == null ? 0 : promotionPiece.ordinal();
+        if (slot >= SLOTS || (promotionPiece != null && slot == 0)) {
+            return null;
+        }
+        return MOVES[index(from, to, slot)];
+    }
+
+    private static int index(int from, int to, int slot) {
+        return (from * 64 + to) * SLOTS + slot;
+    }
+
+    private static boolean isPromotionStep(int from, int to) {
+        int colDiff = Math.abs(from % 8 - to % 8);
+        boolean white = from / 8 == 6 && to / 8 == 7;
+        boolean black = from / 8 == 1 && to / 8 == 0;
+        return colDiff <= 1 && (white || black);
+    }
+
+    private static boolean isOnBoard(ChessPosition position) {
+        return position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -0,0 +1,69 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes moves in the same shape reflective Gson uses, but hands
+ * back the shared instances from {@link ChessMove#of}
+ */
+class ChessMoveTypeAdapter extends TypeAdapter<ChessMove> {
+
+    private final ChessPositionTypeAdapter positionAdapter = new ChessPositionTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, ChessMove move) throws IOException {
+        if (move == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("startPosition");
+        positionAdapter.write(out, move.getStartPosition());
+        out.name("endPosition");
+        positionAdapter.write(out, move.getEndPosition());
+        if (move.getPromotionPiece() != null) {
+            out.name("promotionPiece").value(move.getPromotionPiece().name());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public ChessMove read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        ChessPosition start = null;
+        ChessPosition end = null;
+        ChessPiece.PieceType promotion = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "startPosition" -> start = positionAdapter.read(in);
+                case "endPosition" -> end = positionAdapter.read(in);
+                case "promotionPiece" -> promotion = readPromotion(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (start == null || end == null) {
+            return new ChessMove(start, end, promotion);
+        }
+        return ChessMove.of(start, end, promotion);
+    }
+
+    private ChessPiece.PieceType readPromotion(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return ChessPiece.PieceType.valueOf(in.nextString());
+    }
+}
@@ -5,8 +5,6 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 
-import static chess.ChessGame.isKingInDanger;
-
 /**
  * Represents a single chess piece
  * <p>
@@ -90,53 +88,32 @@ public class ChessPiece {
 
     private Collection<ChessMove> getKingMoves(ChessBoard board, ChessPosition position) {
         List<ChessMove> moves = new ArrayList<>();
-
-        int[][] possibleMoves = {
-                {0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, 1}, {-1, 1}, {1, -1}, {-1, -1}
-        };
-
-        checkPossibleMoves(moves, board, position, possibleMoves);
+        addTargetMoves(moves, board, position, Attacks.king(squareOf(position)));
         checkCastlingMoves(moves, board, position);
-
         return moves;
     }
 
     private Collection<ChessMove> getQueenMoves(ChessBoard board, ChessPosition position) {
         List<ChessMove> moves = new ArrayList<>();
-
-        moves.addAll(getRookMoves(board, position));
-        moves.addAll(getBishopMoves(board, position));
-
+        addTargetMoves(moves, board, position, Attacks.queen(squareOf(position), board.getOccupiedMask()));
         return moves;
     }
 
     private Collection<ChessMove> getBishopMoves(ChessBoard board, ChessPosition position) {
         List<ChessMove> moves = new ArrayList<>();
-        collectSlidingMoves(moves, board, position, 1, 1);
-        collectSlidingMoves(moves, board, position, 1, -1);
-        collectSlidingMoves(moves, board, position, -1, 1);
-        collectSlidingMoves(moves, board, position, -1, -1);
+        addTargetMoves(moves, board, position, Attacks.bishop(squareOf(position), board.getOccupiedMask()));
         return moves;
     }
 
     private Collection<ChessMove> getKnightMoves(ChessBoard board, ChessPosition position) {
         List<ChessMove> moves = new ArrayList<>();
-
-        int[][] possibleMoves = {
-                {2, 1}, {1, 2}, {-1, 2}, {-2, 1},
-                {-2, -1}, {-1, -2}, {1, -2}, {2, -1}
-        };
-
-        checkPossibleMoves(moves, board, position, possibleMoves);
+        addTargetMoves(moves, board, position, Attacks.knight(squareOf(position)));
         return moves;
     }
 
     private Collection<ChessMove> getRookMoves(ChessBoard board, ChessPosition position) {
         List<ChessMove> moves = new ArrayList<>();
-        collectSlidingMoves(moves, board, position, 1, 0);
-        collectSlidingMoves(moves, board, position, -1, 0);
-        collectSlidingMoves(moves, board, position, 0, 1);
-        collectSlidingMoves(moves, board, position, 0, -1);
+        addTargetMoves(moves, board, position, Attacks.rook(squareOf(position), board.getOccupiedMask()));
         return moves;
     }
 
@@ -164,56 +141,48 @@ public class ChessPiece {
         int startRow = (this.pieceColor == ChessGame.TeamColor.WHITE) ? 2 : 7;
         int promotionRow = (this.pieceColor == ChessGame.TeamColor.WHITE) ? 8 : 1;
 
+        if (row + direction < 1 || row + direction > 8) {
+            return moves;
+        }
+
+        long occupied = board.getOccupiedMask();
+
         // One square forward
-        ChessPosition oneForward = new ChessPosition(row + direction, col);
-        if (board.getPiece(oneForward) == null) {
+        ChessPosition oneForward = ChessPosition.of(row + direction, col);
+        boolean oneForwardEmpty = (occupied & squareBit(row + direction, col)) == 0;
+        if (oneForwardEmpty) {
             handleMoveOrPromotion(moves, position, oneForward, row + direction == promotionRow);
         }
 
         // Two squares forward
-        if (row == startRow) {
-            ChessPosition twoForward = new ChessPosition(row + 2 * direction, col);
-            if (board.getPiece(twoForward) == null && board.getPiece(oneForward) == null) {
-                moves.add(new ChessMove(position, twoForward, null));
-            }
+        if (row == startRow && oneForwardEmpty && (occupied & squareBit(row + 2 * direction, col)) == 0) {
+            moves.add(ChessMove.of(position, ChessPosition.of(row + 2 * direction, col), null));
         }
 
         // Diagonal attacks
-        handlePawnDiagonalAttack(moves, board, position, row, col - 1, direction, promotionRow);
-        handlePawnDiagonalAttack(moves, board, position, row, col + 1, direction, promotionRow);
+        long enemies = board.getTeamMask(opposite(this.pieceColor));
+        handlePawnDiagonalAttack(moves, enemies, position, row, col - 1, direction, promotionRow);
+        handlePawnDiagonalAttack(moves, enemies, position, row, col + 1, direction, promotionRow);
 
         return moves;
     }
 
-    // Helper function for sliding pieces aka bishop, knight, and rook
-    private void collectSlidingMoves(List<ChessMove> moves, ChessBoard board, ChessPosition from, int rowDelta, int colDelta) {
-        int row = from.getRow() + rowDelta;
-        int col = from.getColumn() + colDelta;
-
-        while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
-            ChessPosition newPos = new ChessPosition(row, col);
-            ChessPiece target = board.getPiece(newPos);
-
-            if (target == null) {
-                moves.add(new ChessMove(from, newPos, null));
-            } else {
-                if (target.getTeamColor() != this.pieceColor) {
-                    moves.add(new ChessMove(from, newPos, null));
-                }
-                break;
-            }
+    // Helper function for every piece but the pawn: one move per attacked square not held by a teammate
+    private void addTargetMoves(List<ChessMove> moves, ChessBoard board, ChessPosition from, long targets) {
+        targets &= ~board.getTeamMask(this.pieceColor);
 
-            row += rowDelta;
-            col += colDelta;
+        while (targets != 0) {
+            moves.add(ChessMove.of(from, ChessBoard.toPosition(Long.numberOfTrailingZeros(targets)), null));
+            targets &= targets - 1;
         }
     }
 
     // Helper function for pawn promotions
     private void addPromotionMoves(List<ChessMove> moves, ChessPosition from, ChessPosition to) {
-        moves.add(new ChessMove(from, to, PieceType.QUEEN));
-        moves.add(new ChessMove(from, to, PieceType.ROOK));
-        moves.add(new ChessMove(from, to, PieceType.BISHOP));
-        moves.add(new ChessMove(from, to, PieceType.KNIGHT));
+        moves.add(ChessMove.of(from, to, PieceType.QUEEN));
+        moves.add(ChessMove.of(from, to, PieceType.ROOK));
+        moves.add(ChessMove.of(from, to, PieceType.BISHOP));
+        moves.add(ChessMove.of(from, to, PieceType.KNIGHT));
     }
 
     // Helper function for pawn moves
@@ -221,40 +190,20 @@ public class ChessPiece {
         if (isPromotion) {
             addPromotionMoves(moves, from, to);
         } else {
-            moves.add(new ChessMove(from, to, null));
+            moves.add(ChessMove.of(from, to, null));
         }
     }
 
     // Helper function for pawn attacks
-    private void handlePawnDiagonalAttack(List<ChessMove> moves, ChessBoard board, ChessPosition from,
+    private void handlePawnDiagonalAttack(List<ChessMove> moves, long enemies, ChessPosition from,
                                           int row, int col, int direction, int promotionRow) {
         if (col < 1 || col > 8) {
             return;
         }
 
-        ChessPosition targetPos = new ChessPosition(row + direction, col);
-        ChessPiece target = board.getPiece(targetPos);
-
-        if (target != null && target.getTeamColor() != this.pieceColor) {
+        if ((enemies & squareBit(row + direction, col)) != 0) {
             boolean isPromotion = row + direction == promotionRow;
-            handleMoveOrPromotion(moves, from, targetPos, isPromotion);
-        }
-    }
-
-    // Helper function for checking possible moves (used in getKnightMoves and getKingMoves)
-    private void checkPossibleMoves(List<ChessMove> moves, ChessBoard board, ChessPosition position, int[][] changes) {
-        for (int[] change : changes) {
-            int newRow = position.getRow() + change[0];
-            int newCol = position.getColumn() + change[1];
-
-            if (newRow >= 1 && newRow <= 8 && newCol >= 1 && newCol <= 8) {
-                ChessPosition newPosition = new ChessPosition(newRow, newCol);
-                ChessPiece target = board.getPiece(newPosition);
-
-                if (target == null || target.getTeamColor() != this.pieceColor) {
-                    moves.add(new ChessMove(position, newPosition, null));
-                }
-            }
+            handleMoveOrPromotion(moves, from, ChessPosition.of(row + direction, col), isPromotion);
         }
     }
 
@@ -267,41 +216,53 @@ public class ChessPiece {
         int row = kingPosition.getRow();
 
         // King side castling
-        ChessPosition rookPos = new ChessPosition(row, 8);
+        ChessPosition rookPos = ChessPosition.of(row, 8);
         ChessPiece rook = board.getPiece(rookPos);
 
         if (rook != null && rook.getPieceType() == PieceType.ROOK && rook.hasNotMoved()) {
-            ChessPosition square1 = new ChessPosition(row, 6);
-            ChessPosition square2 = new ChessPosition(row, 7);
+            ChessPosition square1 = ChessPosition.of(row, 6);
+            ChessPosition square2 = ChessPosition.of(row, 7);
 
             if (board.getPiece(square1) == null && board.getPiece(square2) == null &&
-                    isSquareInCheck(board, kingPosition, color) &&
-                    isSquareInCheck(board, square1, color) &&
-                    isSquareInCheck(board, square2, color)) {
-                moves.add(new ChessMove(kingPosition, square2, null));
+                    isSquareSafe(board, kingPosition, color) &&
+                    isSquareSafe(board, square1, color) &&
+                    isSquareSafe(board, square2, color)) {
+                moves.add(ChessMove.of(kingPosition, square2, null));
             }
         }
 
         // Queen side castling
-        rookPos = new ChessPosition(row, 1);
+        rookPos = ChessPosition.of(row, 1);
         rook = board.getPiece(rookPos);
 
         if (rook != null && rook.getPieceType() == PieceType.ROOK && rook.hasNotMoved()) {
-            ChessPosition square1 = new ChessPosition(row, 2);
-            ChessPosition square2 = new ChessPosition(row, 3);
-            ChessPosition square3 = new ChessPosition(row, 4);
+            ChessPosition square1 = ChessPosition.of(row, 2);
+            ChessPosition square2 = ChessPosition.of(row, 3);
+            ChessPosition square3 = ChessPosition.of(row, 4);
 
             if (board.getPiece(square1) == null && board.getPiece(square2) == null && board.getPiece(square3) == null &&
-                    isSquareInCheck(board, kingPosition, color) &&
-                    isSquareInCheck(board, square2, color) &&
-                    isSquareInCheck(board, square3, color)) {
-                moves.add(new ChessMove(kingPosition, square2, null));
+                    isSquareSafe(board, kingPosition, color) &&
+                    isSquareSafe(board, square2, color) &&
+                    isSquareSafe(board, square3, color)) {
+                moves.add(ChessMove.of(kingPosition, square2, null));
             }
         }
     }
 
-    private boolean isSquareInCheck(ChessBoard board, ChessPosition square, ChessGame.TeamColor color) {
-        return !isKingInDanger(color, square, board);
+    private boolean isSquareSafe(ChessBoard board, ChessPosition square, ChessGame.TeamColor color) {
+        return !board.isSquareAttacked(square, opposite(color));
+    }
+
+    private static int squareOf(ChessPosition position) {
+        return ChessBoard.squareIndex(position.getRow(), position.getColumn());
+    }
+
+    private static long squareBit(int row, int col) {
+        return 1L << ChessBoard.squareIndex(row, col);
+    }
+
+    private static ChessGame.TeamColor opposite(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
     }
 
 }
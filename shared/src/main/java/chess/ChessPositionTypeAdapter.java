@@ -0,0 +1,48 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes positions in the same shape reflective Gson uses, but
+ * hands back the shared instances from {@link ChessPosition#of(int, int)}
+ */
+class ChessPositionTypeAdapter extends TypeAdapter<ChessPosition> {
+
+    @Override
+    public void write(JsonWriter out, ChessPosition position) throws IOException {
+        if (position == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("row").value(position.getRow());
+        out.name("column").value(position.getColumn());
+        out.endObject();
+    }
+
+    @Override
+    public ChessPosition read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        int row = 0;
+        int column = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "row" -> row = in.nextInt();
+                case "column" -> column = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return ChessPosition.of(row, column);
+    }
+}
@@ -0,0 +1,358 @@
+package chess;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation, e.g.
+ * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}
+ * <p>
+ * Castling rights are carried over by leaving the matching king and rooks
+ * unmoved, since that is how the board tracks them.
+ */
+public final class Fen {
+
+    public static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private Fen() {}
+
+    /**
+     * Reads a position in one pass over the text, without splitting it up
+     *
+     * @param fen the position to read; the move counters may be left off
+     * @return a game set up at that position
+     * @throws IllegalArgumentException if the text is not a valid position
+     */
+    public static ChessGame parse(CharSequence fen) {
+        return new Parser(fen).game();
+    }
+
+    /**
+     * Like {@link #parse(CharSequence)}, reading ASCII text straight from a
+     * byte array, such as a line of a file loaded in bulk
+     */
+    public static ChessGame parse(byte[] bytes, int offset, int length) {
+        return parse(new AsciiSequence(bytes, offset, length));
+    }
+
+    /**
+     * @return the game's position in FEN. Castling rights come from the
+     * kings and rooks that have not moved, and the en passant square from the
+     * last move, listed only when a pawn can capture there. The game does not
+     * count full moves, so that field is always 1.
+     */
+    public static String toFen(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        StringBuilder fen = new StringBuilder(90);
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(ChessPosition.of(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                fen.append(pieceName(piece));
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+        int rights = board.getCastlingRights();
+        if (rights == 0) {
+            fen.append('-');
+        }
+        if ((rights & ChessBoard.CASTLE_WHITE_KINGSIDE) != 0) {
+            fen.append('K');
+        }
+        if ((rights & ChessBoard.CASTLE_WHITE_QUEENSIDE) != 0) {
+            fen.append('Q');
+        }
+        if ((rights & ChessBoard.CASTLE_BLACK_KINGSIDE) != 0) {
+            fen.append('k');
+        }
+        if ((rights & ChessBoard.CASTLE_BLACK_QUEENSIDE) != 0) {
+            fen.append('q');
+        }
+
+        // Only a square a pawn can capture on, as for the Zobrist key, so equal positions write equal text
+        int enPassant = board.getEnPassantSquare();
+        fen.append(' ').append(enPassant < 0 || !board.canCaptureEnPassant()
+                ? "-" : squareName(enPassant / 8 + 1, enPassant % 8 + 1));
+        return fen.append(' ').append(game.getHalfmoveClock()).append(" 1").toString();
+    }
+
+    private static char pieceName(ChessPiece piece) {
+        char name = switch (piece.getPieceType()) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case ROOK -> 'r';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case PAWN -> 'p';
+        };
+        return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(name) : name;
+    }
+
+    // A cursor over the text, reading each field in place
+    private static final class Parser {
+
+        private final CharSequence text;
+        private final int end;
+        private int index;
+
+        Parser(CharSequence text) {
+            this.text = text;
+            this.end = text.length();
+        }
+
+        ChessGame game() {
+            skipSpaces();
+            ChessBoard board = new ChessBoard();
+            readPlacement(board);
+            nextField();
+            ChessGame.TeamColor turn = switch (text.charAt(index++)) {
+                case 'w' -> ChessGame.TeamColor.WHITE;
+                case 'b' -> ChessGame.TeamColor.BLACK;
+                default -> throw error("Bad side to move");
+            };
+            nextField();
+            readCastling(board);
+            nextField();
+            readEnPassant(board);
+
+            ChessGame game = new ChessGame(board, turn);
+            if (skipSpaces()) {
+                game.setHalfmoveClock(readNumber());
+                // The game does not count full moves, so that field is only checked
+                if (skipSpaces()) {
+                    readNumber();
+                }
+            }
+            if (skipSpaces()) {
+                throw error("Unexpected text after the move counters");
+            }
+            return game;
+        }
+
+        private void readPlacement(ChessBoard board) {
+            int row = 8;
+            int col = 1;
+            for (; index < end && !isSpace(text.charAt(index)); index++) {
+                char c = text.charAt(index);
+                if (c == '/') {
+                    if (col != 9) {
+                        throw error("Rank " + row + " does not cover 8 squares");
+                    }
+                    if (--row < 1) {
+                        throw error("Expected 8 ranks");
+                    }
+                    col = 1;
+                } else if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                } else {
+                    if (col > 8) {
+                        throw error("Too many squares on rank " + row);
+                    }
+                    ChessGame.TeamColor color = Character.isUpperCase(c)
+                        ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                    ChessPiece piece = new ChessPiece(color, pieceType(c));
+                    // Kings and rooks count as moved until the castling field says otherwise
+                    piece.setMoved(switch (piece.getPieceType()) {
+                        case KING, ROOK -> true;
+                        case PAWN -> row != (color == ChessGame.TeamColor.WHITE ? 2 : 7);
+                        default -> false;
+                    });
+                    board.addPiece(ChessPosition.of(row, col), piece);
+                    col++;
+                }
+            }
+            if (row != 1) {
+                throw error("Expected 8 ranks");
+            }
+            if (col != 9) {
+                throw error("Rank 1 does not cover 8 squares");
+            }
+        }
+
+        private void readCastling(ChessBoard board) {
+            if (text.charAt(index) == '-') {
+                index++;
+                return;
+            }
+            for (; index < end && !isSpace(text.charAt(index)); index++) {
+                char c = text.charAt(index);
+                ChessGame.TeamColor color = Character.isUpperCase(c)
+                        ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                int row = color == ChessGame.TeamColor.WHITE ? 1 : 8;
+                int rookCol = switch (Character.toLowerCase(c)) {
+                    case 'k' -> 8;
+                    case 'q' -> 1;
+                    default -> throw error("Bad castling rights");
+                };
+                markUnmoved(board, row, 5, color, ChessPiece.PieceType.KING);
+                markUnmoved(board, row, rookCol, color, ChessPiece.PieceType.ROOK);
+            }
+        }
+
+        private void markUnmoved(ChessBoard board, int row, int col, ChessGame.TeamColor color,
+                                 ChessPiece.PieceType type) {
+            ChessPiece piece = board.getPiece(ChessPosition.of(row, col));
+            if (piece == null || piece.getTeamColor() != color || piece.getPieceType() != type) {
+                throw error("Castling rights need a " + color + " " + type + " on " + squareName(row, col));
+            }
+            piece.setMoved(false);
+        }
+
+        private void readEnPassant(ChessBoard board) {
+            if (text.charAt(index) == '-') {
+                index++;
+                return;
+            }
+            int square = index + 2 <= end ? readSquare(text, index) : -1;
+            if (square < 0) {
+                throw error("Bad en passant square");
+            }
+            board.setEnPassantSquare(square);
+            index += 2;
+        }
+
+        private int readNumber() {
+            int number = 0;
+            int start = index;
+            for (; index < end && !isSpace(text.charAt(index)); index++) {
+                char c = text.charAt(index);
+                if (c < '0' || c > '9' || index - start >= 9) {
+                    throw error("Bad move counter");
+                }
+                number = number * 10 + (c - '0');
+            }
+            return number;
+        }
+
+        // Moves past the whitespace ending a field, which must be followed by another field
+        private void nextField() {
+            if (index < end && !isSpace(text.charAt(index))) {
+                throw error("Expected a space after " + (index > 0 ? text.charAt(index - 1) : ""));
+            }
+            if (!skipSpaces()) {
+                throw error("Expected at least 4 fields");
+            }
+        }
+
+        // Returns whether any text is left
+        private boolean skipSpaces() {
+            while (index < end && isSpace(text.charAt(index))) {
+                index++;
+            }
+            return index < end;
+        }
+
+        private static boolean isSpace(char c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " in FEN: " + text);
+        }
+    }
+
+    // Bytes as characters without copying them, for parsing straight out of a file's contents
+    private record AsciiSequence(byte[] bytes, int offset, int length) implements CharSequence {
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[offset + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new AsciiSequence(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static ChessPiece.PieceType pieceType(char c) {
+        return switch (Character.toLowerCase(c)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Unknown piece in FEN: " + c);
+        };
+    }
+
+    // The square named at text[index, index + 2), or -1 if it is not one
+    private static int readSquare(CharSequence text, int index) {
+        char file = text.charAt(index);
+        char rank = text.charAt(index + 1);
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return -1;
+        }
+        return ChessBoard.squareIndex(rank - '0', file - 'a' + 1);
+    }
+
+    static String squareName(int row, int col) {
+        return "" + (char) ('a' + col - 1) + row;
+    }
+
+    /**
+     * @param name a move in coordinate notation, as {@link #moveName} writes it
+     * @throws IllegalArgumentException if the text is not a move
+     */
+    public static ChessMove readMove(String name) {
+        if (name.length() != 4 && name.length() != 5) {
+            throw new IllegalArgumentException("Bad move: " + name);
+        }
+        int from = readSquare(name, 0);
+        int to = readSquare(name, 2);
+        if (from < 0 || to < 0) {
+            throw new IllegalArgumentException("Bad move: " + name);
+        }
+        ChessPosition start = ChessBoard.toPosition(from);
+        ChessPosition end = ChessBoard.toPosition(to);
+        ChessPiece.PieceType promotion = null;
+        if (name.length() == 5) {
+            promotion = switch (name.charAt(4)) {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                default -> throw new IllegalArgumentException("Bad promotion: " + name);
+            };
+        }
+        return ChessMove.of(start, end, promotion);
+    }
+
+    /**
+     * @return the move in coordinate notation, e.g. e2e4 or e7e8q
+     */
+    public static String moveName(ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        String name = squareName(start.getRow(), start.getColumn()) + squareName(end.getRow(), end.getColumn());
+        if (move.getPromotionPiece() != null) {
+            name += switch (move.getPromotionPiece()) {
+                case QUEEN -> "q";
+                case ROOK -> "r";
+                case BISHOP -> "b";
+                default -> "n";
+            };
+        }
+        return name;
+    }
+}
@@ -0,0 +1,82 @@
+package chess;
+
+/**
+ * Helpers for moves packed into the low 16 bits of an int: the starting
+ * square in bits 0-5, the ending square in bits 6-11 and flags describing
+ * the kind of move in bits 12-15. Squares use the board's numbering
+ * (0 = a1, 63 = h8).
+ * <p>
+ * Packed moves let move generation write into a primitive {@link MoveList}
+ * without allocating a {@link ChessMove} for every candidate.
+ */
+public final class Move {
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    // Promotion piece in the low two flag bits, in this order
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN
+    };
+
+    private Move() {}
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    /**
+     * @return the piece a pawn is promoted to, or null if the move is not a
+     * promotion
+     */
+    public static ChessPiece.PieceType promotionPiece(int move) {
+        return isPromotion(move) ? PROMOTIONS[flags(move) & 3] : null;
+    }
+
+    /**
+     * @return the promotion flag bits for a piece type, to be combined with
+     * {@link #PROMOTION} or {@link #PROMOTION_CAPTURE}
+     */
+    static int promotionBits(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KNIGHT -> 0;
+            case BISHOP -> 1;
+            case ROOK -> 2;
+            default -> 3;
+        };
+    }
+
+    /**
+     * @return the shared {@link ChessMove} instance for a packed move
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(from(move), to(move), promotionPiece(move));
+    }
+}
@@ -0,0 +1,291 @@
+package chess;
+
+/**
+ * Generates strictly legal moves for one side straight from the board's
+ * bitboards. Check and pin masks computed once per call restrict each
+ * piece's targets, so no move has to be tried on the board to see whether
+ * it leaves the king in check. Moves are written packed (see {@link Move})
+ * into a caller supplied {@link MoveList}; nothing is allocated.
+ */
+public final class MoveGenerator {
+
+    private static final int KING = ChessPiece.PieceType.KING.ordinal();
+    private static final int QUEEN = ChessPiece.PieceType.QUEEN.ordinal();
+    private static final int BISHOP = ChessPiece.PieceType.BISHOP.ordinal();
+    private static final int KNIGHT = ChessPiece.PieceType.KNIGHT.ordinal();
+    private static final int ROOK = ChessPiece.PieceType.ROOK.ordinal();
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+
+    private static final long RANK_1 = 0xFFL;
+    private static final long RANK_8 = 0xFFL << 56;
+
+    private MoveGenerator() {}
+
+    /**
+     * Appends every legal move for a side to the list
+     *
+     * @return the number of moves added
+     */
+    public static int generate(ChessBoard board, ChessGame.TeamColor side, MoveList moves) {
+        return generate(board, side, -1L, moves);
+    }
+
+    /**
+     * Appends the legal moves of the side's pieces standing on the squares in
+     * fromMask to the list
+     *
+     * @return the number of moves added
+     */
+    public static int generate(ChessBoard board, ChessGame.TeamColor side, long fromMask, MoveList moves) {
+        int before = moves.size();
+        long[] pieces = board.pieceMasks();
+        int us = side.ordinal() * 6;
+        int them = 6 - us;
+        long own = board.getTeamMask(side);
+        long enemy = board.getTeamMask(opposite(side));
+        long occupied = own | enemy;
+
+        long kingMask = pieces[us + KING];
+        if (kingMask == 0) {
+            // Without a king nothing can be illegal, so every target is open
+            generatePieces(board, side, fromMask, -1L, 0L, -1, moves);
+            return moves.size() - before;
+        }
+        int king = Long.numberOfTrailingZeros(kingMask);
+
+        // King moves, tested with the king lifted off the board so sliders see through it
+        if ((fromMask & kingMask) != 0) {
+            long targets = Attacks.king(king) & ~own;
+            long withoutKing = occupied ^ kingMask;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if (attackers(pieces, them, to, withoutKing, side) == 0) {
+                    moves.add(Move.encode(king, to, (enemy & (1L << to)) != 0 ? Move.CAPTURE : Move.QUIET));
+                }
+            }
+        }
+
+        long checkers = attackers(pieces, them, king, occupied, side);
+        if (Long.bitCount(checkers) > 1) {
+            return moves.size() - before;
+        }
+
+        long checkMask = -1L;
+        if (checkers != 0) {
+            checkMask = checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+        } else if ((fromMask & kingMask) != 0) {
+            generateCastling(board, side, king, occupied, pieces, them, moves);
+        }
+
+        // Pinned pieces may only move along the line through their king and pinner
+        long pinned = 0L;
+        long straight = pieces[them + ROOK] | pieces[them + QUEEN];
+        long diagonal = pieces[them + BISHOP] | pieces[them + QUEEN];
+        long pinners = (Attacks.rook(king, enemy) & straight) | (Attacks.bishop(king, enemy) & diagonal);
+        while (pinners != 0) {
+            int pinner = Long.numberOfTrailingZeros(pinners);
+            pinners &= pinners - 1;
+            long blockers = Attacks.between(king, pinner) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) {
+                pinned |= blockers;
+            }
+        }
+
+        generatePieces(board, side, fromMask & ~kingMask, checkMask, pinned, king, moves);
+        return moves.size() - before;
+    }
+
+    /**
+     * Determines whether a side has at least one legal move, stopping at the
+     * first one found
+     */
+    public static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor side, MoveList scratch) {
+        scratch.clear();
+        long pieces = board.getTeamMask(side);
+        long king = board.getPieceMask(side, ChessPiece.PieceType.KING);
+
+        // The king is the most likely piece to have a move when the side is in trouble
+        if (generate(board, side, king, scratch) > 0) {
+            return true;
+        }
+        pieces &= ~king;
+        while (pieces != 0) {
+            long piece = pieces & -pieces;
+            pieces &= pieces - 1;
+            if (generate(board, side, piece, scratch) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void generatePieces(ChessBoard board, ChessGame.TeamColor side, long fromMask, long checkMask,
+                                       long pinned, int king, MoveList moves) {
+        long[] pieces = board.pieceMasks();
+        int us = side.ordinal() * 6;
+        long own = board.getTeamMask(side);
+        long enemy = board.getTeamMask(opposite(side));
+        long occupied = own | enemy;
+
+        long movers = own & fromMask & ~pieces[us + PAWN];
+        while (movers != 0) {
+            int from = Long.numberOfTrailingZeros(movers);
+            long fromBit = movers & -movers;
+            movers &= movers - 1;
+
+            long targets;
+            if ((pieces[us + KNIGHT] & fromBit) != 0) {
+                targets = Attacks.knight(from);
+            } else if ((pieces[us + BISHOP] & fromBit) != 0) {
+                targets = Attacks.bishop(from, occupied);
+            } else if ((pieces[us + ROOK] & fromBit) != 0) {
+                targets = Attacks.rook(from, occupied);
+            } else if ((pieces[us + QUEEN] & fromBit) != 0) {
+                targets = Attacks.queen(from, occupied);
+            } else {
+                // Kingless boards land here for the king itself
+                targets = Attacks.king(from);
+            }
+
+            targets &= ~own & checkMask;
+            if ((pinned & fromBit) != 0) {
+                targets &= Attacks.line(king, from);
+            }
+            addTargets(from, targets, enemy, moves);
+        }
+
+        generatePawns(board, side, pieces[us + PAWN] & fromMask, occupied, enemy, checkMask, pinned, king, moves);
+    }
+
+    private static void generatePawns(ChessBoard board, ChessGame.TeamColor side, long pawns, long occupied,
+                                      long enemy, long checkMask, long pinned, int king, MoveList moves) {
+        boolean white = side == ChessGame.TeamColor.WHITE;
+        int forward = white ? 8 : -8;
+        long promotionRank = white ? RANK_8 : RANK_1;
+        int startRow = white ? 1 : 6;
+        int enPassant = board.getEnPassantSquare();
+        boolean enPassantOurs = enPassant >= 0 && enPassant / 8 == (white ? 5 : 2);
+
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            long fromBit = pawns & -pawns;
+            pawns &= pawns - 1;
+
+            long allowed = checkMask;
+            if ((pinned & fromBit) != 0) {
+                allowed &= Attacks.line(king, from);
+            }
+
+            int to = from + forward;
+            if (to < 0 || to > 63) {
+                continue;
+            }
+
+            long toBit = 1L << to;
+            if ((occupied & toBit) == 0) {
+                if ((allowed & toBit) != 0) {
+                    addPawnMove(from, to, (promotionRank & toBit) != 0, false, moves);
+                }
+                int twoAhead = to + forward;
+                if (from / 8 == startRow && (occupied & (1L << twoAhead)) == 0 && (allowed & (1L << twoAhead)) != 0) {
+                    moves.add(Move.encode(from, twoAhead, Move.DOUBLE_PAWN_PUSH));
+                }
+            }
+
+            long captures = Attacks.pawn(side, from) & enemy & allowed;
+            while (captures != 0) {
+                int target = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                addPawnMove(from, target, (promotionRank & (1L << target)) != 0, true, moves);
+            }
+
+            if (enPassantOurs && (Attacks.pawn(side, from) & (1L << enPassant)) != 0
+                    && isLegalEnPassant(board, side, from, enPassant)) {
+                moves.add(Move.encode(from, enPassant, Move.EN_PASSANT));
+            }
+        }
+    }
+
+    // En passant removes two pieces from one rank, which pin masks cannot describe, so play it out
+    private static boolean isLegalEnPassant(ChessBoard board, ChessGame.TeamColor side, int from, int to) {
+        long[] pieces = board.pieceMasks();
+        int them = 6 - side.ordinal() * 6;
+        int captured = to + (side == ChessGame.TeamColor.WHITE ? -8 : 8);
+        long capturedBit = 1L << captured;
+        if ((pieces[them + PAWN] & capturedBit) == 0) {
+            return false;
+        }
+
+        long kingMask = board.getPieceMask(side, ChessPiece.PieceType.KING);
+        if (kingMask == 0) {
+            return true;
+        }
+        int king = Long.numberOfTrailingZeros(kingMask);
+        long occupied = (board.getOccupiedMask() ^ (1L << from) ^ capturedBit) | (1L << to);
+
+        long straight = pieces[them + ROOK] | pieces[them + QUEEN];
+        long diagonal = pieces[them + BISHOP] | pieces[them + QUEEN];
+        return (Attacks.rook(king, occupied) & straight) == 0
+                && (Attacks.bishop(king, occupied) & diagonal) == 0
+                && (Attacks.knight(king) & pieces[them + KNIGHT]) == 0
+                && (Attacks.pawn(side, king) & pieces[them + PAWN] & ~capturedBit) == 0;
+    }
+
+    private static void generateCastling(ChessBoard board, ChessGame.TeamColor side, int king, long occupied,
+                                         long[] pieces, int them, MoveList moves) {
+        int rights = board.getCastlingRights();
+        boolean white = side == ChessGame.TeamColor.WHITE;
+        int kingside = white ? ChessBoard.CASTLE_WHITE_KINGSIDE : ChessBoard.CASTLE_BLACK_KINGSIDE;
+        int queenside = white ? ChessBoard.CASTLE_WHITE_QUEENSIDE : ChessBoard.CASTLE_BLACK_QUEENSIDE;
+
+        if ((rights & kingside) != 0 && (Attacks.between(king, king + 3) & occupied) == 0
+                && attackers(pieces, them, king + 1, occupied, side) == 0
+                && attackers(pieces, them, king + 2, occupied, side) == 0) {
+            moves.add(Move.encode(king, king + 2, Move.KING_CASTLE));
+        }
+        if ((rights & queenside) != 0 && (Attacks.between(king, king - 4) & occupied) == 0
+                && attackers(pieces, them, king - 1, occupied, side) == 0
+                && attackers(pieces, them, king - 2, occupied, side) == 0) {
+            moves.add(Move.encode(king, king - 2, Move.QUEEN_CASTLE));
+        }
+    }
+
+    private static void addTargets(int from, long targets, long enemy, MoveList moves) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(Move.encode(from, to, (enemy & (1L << to)) != 0 ? Move.CAPTURE : Move.QUIET));
+        }
+    }
+
+    private static void addPawnMove(int from, int to, boolean promotion, boolean capture, MoveList moves) {
+        if (promotion) {
+            int flags = capture ? Move.PROMOTION_CAPTURE : Move.PROMOTION;
+            moves.add(Move.encode(from, to, flags | Move.promotionBits(ChessPiece.PieceType.QUEEN)));
+            moves.add(Move.encode(from, to, flags | Move.promotionBits(ChessPiece.PieceType.ROOK)));
+            moves.add(Move.encode(from, to, flags | Move.promotionBits(ChessPiece.PieceType.BISHOP)));
+            moves.add(Move.encode(from, to, flags | Move.promotionBits(ChessPiece.PieceType.KNIGHT)));
+        } else {
+            moves.add(Move.encode(from, to, capture ? Move.CAPTURE : Move.QUIET));
+        }
+    }
+
+    /**
+     * @return the pieces of the team at offset them that attack square, given
+     * an occupancy that may differ from the board's
+     */
+    private static long attackers(long[] pieces, int them, int square, long occupied, ChessGame.TeamColor defender) {
+        long straight = pieces[them + ROOK] | pieces[them + QUEEN];
+        long diagonal = pieces[them + BISHOP] | pieces[them + QUEEN];
+        return (Attacks.knight(square) & pieces[them + KNIGHT])
+                | (Attacks.king(square) & pieces[them + KING])
+                | (Attacks.pawn(defender, square) & pieces[them + PAWN])
+                | (Attacks.rook(square, occupied) & straight)
+                | (Attacks.bishop(square, occupied) & diagonal);
+    }
+
+    private static ChessGame.TeamColor opposite(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,62 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, growable buffer of packed moves (see {@link Move}). Callers
+ * that generate moves repeatedly keep one list per search depth and
+ * {@link #clear()} it instead of allocating collections.
+ */
+public class MoveList {
+
+    // No legal chess position has more than 218 moves
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops every move from {@code size} onwards
+     */
+    public void truncate(int size) {
+        if (size < 0 || size > this.size) {
+            throw new IndexOutOfBoundsException("Cannot truncate " + this.size + " moves to " + size);
+        }
+        this.size = size;
+    }
+}
@@ -0,0 +1,34 @@
+package chess;
+
+/**
+ * Everything needed to take back a move applied with
+ * {@link ChessBoard#makeMove(ChessMove, MoveUndo)}: the moved and captured
+ * pieces, the castling rook, the previous en passant square and the
+ * hasMoved flags the move overwrote.
+ * <p>
+ * A record can be reused for any number of moves, which lets callers that
+ * try many moves in a row avoid allocating one per move.
+ */
+public class MoveUndo {
+
+    int from;
+    int to;
+    ChessPiece moved;
+    boolean movedHadMoved;
+
+    ChessPiece captured;
+    int capturedSquare;
+
+    int rookFrom;
+    int rookTo;
+    boolean rookHadMoved;
+
+    int previousEnPassant;
+
+    /**
+     * @return the piece that was captured by the move, or null if nothing was
+     */
+    public ChessPiece getCaptured() {
+        return captured;
+    }
+}
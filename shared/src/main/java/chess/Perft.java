@@ -0,0 +1,124 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth. The totals
+ * for well known positions are published, so any mismatch points straight at
+ * a move generation bug, and the time taken gives a throughput figure for the
+ * rules engine.
+ * <p>
+ * Run from the command line with an optional depth and FEN to print the node
+ * count under each root move (the "divide" output) and nodes per second.
+ */
+public final class Perft {
+
+    private Perft() {}
+
+    /**
+     * @param game  the position to search from; it is not modified
+     * @param depth number of plies to expand
+     * @return the number of positions reachable in exactly {@code depth} plies
+     */
+    public static long run(ChessGame game, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        Search search = new Search(game.getBoard().copy(), depth);
+        return search.count(game.getTeamTurn(), depth);
+    }
+
+    /**
+     * @param game  the position to search from; it is not modified
+     * @param depth number of plies to expand, at least 1
+     * @return the perft count below each legal root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide needs a depth of at least 1");
+        }
+
+        ChessBoard board = game.getBoard().copy();
+        Search search = new Search(board, depth);
+        ChessGame.TeamColor side = game.getTeamTurn();
+
+        MoveList roots = new MoveList();
+        MoveGenerator.generate(board, side, roots);
+
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        MoveUndo undo = new MoveUndo();
+        for (int i = 0; i < roots.size(); i++) {
+            ChessMove move = Move.toChessMove(roots.get(i));
+            board.makeMove(move, undo);
+            counts.put(move, search.count(opposite(side), depth - 1));
+            board.unmakeMove(undo);
+        }
+        return counts;
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        String fen = args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length))
+                : Fen.STARTING_POSITION;
+        ChessGame game = Fen.parse(fen);
+
+        long start = System.nanoTime();
+        long total = 0;
+        for (Map.Entry<ChessMove, Long> entry : divide(game, depth).entrySet()) {
+            System.out.println(Fen.moveName(entry.getKey()) + ": " + entry.getValue());
+            total += entry.getValue();
+        }
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+
+        System.out.println();
+        System.out.println("Nodes: " + total);
+        System.out.printf("Time: %.3f s%n", elapsed / 1e9);
+        System.out.printf("NPS: %,d%n", total * 1_000_000_000L / elapsed);
+    }
+
+    private static ChessGame.TeamColor opposite(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    // One move list and undo record per ply, so the walk itself never allocates
+    private static final class Search {
+        private final ChessBoard board;
+        private final MoveList[] moves;
+        private final MoveUndo[] undos;
+
+        Search(ChessBoard board, int depth) {
+            this.board = board;
+            this.moves = new MoveList[depth + 1];
+            this.undos = new MoveUndo[depth + 1];
+            for (int ply = 0; ply <= depth; ply++) {
+                moves[ply] = new MoveList();
+                undos[ply] = new MoveUndo();
+            }
+        }
+
+        long count(ChessGame.TeamColor side, int depth) {
+            if (depth == 0) {
+                return 1;
+            }
+
+            MoveList list = moves[depth];
+            list.clear();
+            MoveGenerator.generate(board, side, list);
+            // Each legal move at the last ply is one leaf, no need to play them
+            if (depth == 1) {
+                return list.size();
+            }
+
+            long nodes = 0;
+            MoveUndo undo = undos[depth];
+            for (int i = 0; i < list.size(); i++) {
+                board.makeMove(Move.toChessMove(list.get(i)), undo);
+                nodes += count(opposite(side), depth - 1);
+                board.unmakeMove(undo);
+            }
+            return nodes;
+        }
+    }
+}
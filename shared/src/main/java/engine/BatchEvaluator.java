@@ -0,0 +1,92 @@
+package engine;
+
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Scores a {@link PositionBatch} with the {@link TaperedEvaluator}'s terms,
+ * for throughput when analysing many positions offline, such as every
+ * position of finished games. Scores are exactly what
+ * {@code TaperedEvaluator.evaluate} gives for each position.
+ * <p>
+ * With {@code --add-modules jdk.incubator.vector} the batch is scored a
+ * vector of positions at a time, gathering each lane's table entries; the
+ * plain Java loop is the reference, and also scores whatever is left over.
+ * An evaluator holds no state, so it can be shared between threads.
+ */
+public class BatchEvaluator {
+
+    // Indexed by PositionBatch feature, with a zero entry for empty slots
+    static final int[] MIDDLEGAME = new int[PositionBatch.FEATURES + 1];
+    static final int[] ENDGAME = new int[PositionBatch.FEATURES + 1];
+    static final int[] PHASE = new int[PositionBatch.FEATURES + 1];
+
+    static {
+        for (int color = 0; color < 2; color++) {
+            for (int type = 0; type < 6; type++) {
+                for (int square = 0; square < 64; square++) {
+                    int feature = (color * 6 + type) * 64 + square;
+                    MIDDLEGAME[feature] = TaperedEvaluator.MIDDLEGAME[color][type][square];
+                    ENDGAME[feature] = TaperedEvaluator.ENDGAME[color][type][square];
+                    PHASE[feature] = TaperedEvaluator.PHASE_WEIGHTS[type];
+                }
+            }
+        }
+    }
+
+    // Scores whole vectors of positions and returns how many it did, or null for plain Java
+    private final ToIntBiFunction<PositionBatch, int[]> vectorKernels;
+
+    public BatchEvaluator() {
+        this(NnueKernels.vectorApiAvailable());
+    }
+
+    /**
+     * @param vector whether to use the Vector API, which needs the
+     *               {@code jdk.incubator.vector} module
+     */
+    @SuppressWarnings("unchecked")
+    public BatchEvaluator(boolean vector) {
+        this.vectorKernels = vector
+                ? NnueKernels.loadVectorClass("engine.VectorBatchKernels", ToIntBiFunction.class)
+                : null;
+    }
+
+    /**
+     * @return centipawns for each position from the side to move's point of view
+     */
+    public int[] evaluate(PositionBatch batch) {
+        int[] scores = new int[batch.size()];
+        evaluate(batch, scores);
+        return scores;
+    }
+
+    /**
+     * Like {@link #evaluate(PositionBatch)}, writing into {@code scores}
+     * instead, which must have room for the whole batch
+     */
+    public void evaluate(PositionBatch batch, int[] scores) {
+        if (scores.length < batch.size()) {
+            throw new IllegalArgumentException("Need room for " + batch.size() + " scores");
+        }
+        int done = vectorKernels != null ? vectorKernels.applyAsInt(batch, scores) : 0;
+        evaluate(batch, done, batch.size(), scores);
+    }
+
+    // The reference: positions from..to one at a time
+    static void evaluate(PositionBatch batch, int from, int to, int[] scores) {
+        int fullPhase = TaperedEvaluator.FULL_PHASE;
+        for (int position = from; position < to; position++) {
+            int middle = batch.middlegame[position];
+            int end = batch.endgame[position];
+            int phase = 0;
+            for (int slot = 0; slot < batch.slots; slot++) {
+                int feature = batch.features[slot * batch.capacity + position];
+                middle += MIDDLEGAME[feature];
+                end += ENDGAME[feature];
+                phase += PHASE[feature];
+            }
+            phase = Math.min(phase, fullPhase);
+            scores[position] = batch.signs[position] * ((middle * phase + end * (fullPhase - phase)) / fullPhase);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Picks moves for a {@link ChessGame} with an iterative deepening alpha-beta
+ * search. Each iteration searches one ply deeper than the last and starts
+ * from the previous iteration's best line, and a quiescence search settles
+ * captures at the leaves. Moves are tried best line first, then captures by
+ * most valuable victim and least valuable attacker, then quiet moves that
+ * caused cut-offs before (killer and history heuristics). Results are kept
+ * in a {@link TranspositionTable} so positions reached by different move
+ * orders are searched once.
+ * <p>
+ * With more than one thread the engine runs a Lazy SMP search: every thread
+ * searches the same root position at staggered depths and they cooperate
+ * only through the shared transposition table. The calling thread is the
+ * main thread; the others come from a pool owned by the engine, which
+ * {@link #close()} shuts down.
+ * <p>
+ * An engine runs one search at a time; {@link #stop()} may be called from
+ * any thread to end the current search early.
+ */
+public class Engine implements AutoCloseable {
+
+    public static final int DEFAULT_HASH_MEGABYTES = 16;
+
+    private final AtomicBoolean stop = new AtomicBoolean();
+    private final TranspositionTable table;
+    private final SearchWorker[] workers;
+    private final ExecutorService helpers;
+
+    public Engine() {
+        this(new TaperedEvaluator());
+    }
+
+    public Engine(Evaluator evaluator) {
+        this(evaluator, new TranspositionTable(DEFAULT_HASH_MEGABYTES));
+    }
+
+    /**
+     * @param table transposition table to use, which may be shared with other engines
+     */
+    public Engine(Evaluator evaluator, TranspositionTable table) {
+        this(() -> evaluator, table, 1);
+    }
+
+    /**
+     * @param evaluators supplies one evaluator per search thread
+     * @param table      transposition table shared by the threads
+     * @param threads    number of threads to search with, including the caller's
+     */
+    public Engine(Supplier<? extends Evaluator> evaluators, TranspositionTable table, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Engine needs at least one thread");
+        }
+        this.table = table;
+        this.workers = new SearchWorker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new SearchWorker(evaluators.get(), table, stop);
+        }
+        this.helpers = threads > 1 ? Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "engine-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Searches the position until one of the limits is reached. The game is not
+     * modified.
+     *
+     * @param game   the position to search, with its side to move
+     * @param limits when to stop
+     * @return the result of the deepest iteration that finished
+     */
+    public synchronized SearchResult search(ChessGame game, Limits limits) {
+        long start = System.nanoTime();
+        stop.set(false);
+        table.newSearch();
+
+        ChessGame.TeamColor side = game.getTeamTurn();
+        int halfmoveClock = game.getHalfmoveClock();
+        // Copies are made here, before any worker starts reading a board
+        ChessBoard[] boards = new ChessBoard[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            boards[i] = game.getBoard().copy();
+        }
+
+        List<Future<SearchResult>> helperResults = new ArrayList<>();
+        for (int i = 1; i < workers.length; i++) {
+            SearchWorker worker = workers[i];
+            ChessBoard board = boards[i];
+            int thread = i;
+            helperResults.add(helpers.submit(() -> worker.search(board, side, halfmoveClock, limits, thread, start)));
+        }
+
+        SearchResult result = null;
+        try {
+            result = workers[0].search(boards[0], side, halfmoveClock, limits, 0, start);
+        } finally {
+            // Helpers stop with the main thread however it ends. If it failed, wait
+            // for them here so none is still running when the next search starts.
+            stop.set(true);
+            if (result == null) {
+                helperResults.forEach(Engine::awaitQuietly);
+            }
+        }
+
+        long nodes = result.nodes();
+        for (Future<SearchResult> future : helperResults) {
+            SearchResult helper = await(future);
+            nodes += helper.nodes();
+            // A helper that finished a deeper iteration than the main thread has the better answer
+            if (helper.depth() > result.depth() && helper.bestMove() != null) {
+                result = helper;
+            }
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        return new SearchResult(result.bestMove(), result.score(), result.principalVariation(),
+                result.depth(), nodes, elapsed);
+    }
+
+    /**
+     * Ends the current search as soon as possible. The search still returns the
+     * result of its last finished iteration.
+     */
+    public void stop() {
+        stop.set(true);
+    }
+
+    public int threads() {
+        return workers.length;
+    }
+
+    @Override
+    public void close() {
+        stop.set(true);
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(Future<SearchResult> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // The main thread's failure is the one reported
+        }
+    }
+
+    private static SearchResult await(Future<SearchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for search threads", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search thread failed", e.getCause());
+        }
+    }
+}
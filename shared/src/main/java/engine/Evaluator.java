@@ -0,0 +1,43 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+
+/**
+ * Static evaluation of a position for the search.
+ * <p>
+ * An evaluator may keep running totals instead of scoring each position from
+ * scratch. The search calls {@link #setPosition} when it starts, then
+ * {@link #makeMove} before each move it plays on the board and
+ * {@link #unmakeMove} after taking each one back, so the evaluator can follow
+ * the board. Evaluators that score from scratch can ignore these calls. An
+ * evaluator that tracks the board belongs to one search thread.
+ */
+public interface Evaluator {
+
+    /**
+     * @param board the position to score
+     * @param side  the team whose turn it is
+     * @return centipawns from {@code side}'s point of view
+     */
+    int evaluate(ChessBoard board, ChessGame.TeamColor side);
+
+    /**
+     * @param board the board the search is about to play moves on
+     */
+    default void setPosition(ChessBoard board) {
+    }
+
+    /**
+     * @param board the board, before the move is made on it
+     * @param move  the packed move about to be made
+     */
+    default void makeMove(ChessBoard board, int move) {
+    }
+
+    /**
+     * Called after the last move passed to {@link #makeMove} is taken back
+     */
+    default void unmakeMove() {
+    }
+}
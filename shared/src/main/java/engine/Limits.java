@@ -0,0 +1,43 @@
+package engine;
+
+/**
+ * When a search should stop. A zero node or time limit means no limit of
+ * that kind; the search always stops at {@code depth}.
+ *
+ * @param depth      deepest iteration to run, in plies
+ * @param nodes      nodes to visit before stopping
+ * @param timeMillis wall clock time to spend
+ */
+public record Limits(int depth, long nodes, long timeMillis) {
+
+    public static final int MAX_DEPTH = 64;
+
+    public Limits {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH);
+        }
+        if (nodes < 0 || timeMillis < 0) {
+            throw new IllegalArgumentException("Node and time limits cannot be negative");
+        }
+    }
+
+    public static Limits depth(int depth) {
+        return new Limits(depth, 0, 0);
+    }
+
+    public static Limits nodes(long nodes) {
+        return new Limits(MAX_DEPTH, nodes, 0);
+    }
+
+    public static Limits time(long timeMillis) {
+        return new Limits(MAX_DEPTH, 0, timeMillis);
+    }
+
+    public Limits withNodes(long nodes) {
+        return new Limits(depth, nodes, timeMillis);
+    }
+
+    public Limits withTime(long timeMillis) {
+        return new Limits(depth, nodes, timeMillis);
+    }
+}
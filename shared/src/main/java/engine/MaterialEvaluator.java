@@ -0,0 +1,26 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Counts material from the board's piece masks, so scoring costs a handful
+ * of popcounts whatever the position
+ */
+public class MaterialEvaluator implements Evaluator {
+
+    // Indexed by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    @Override
+    public int evaluate(ChessBoard board, ChessGame.TeamColor side) {
+        int score = 0;
+        for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+            int value = PIECE_VALUES[type.ordinal()];
+            score += value * (Long.bitCount(board.getPieceMask(ChessGame.TeamColor.WHITE, type))
+                    - Long.bitCount(board.getPieceMask(ChessGame.TeamColor.BLACK, type)));
+        }
+        return side == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
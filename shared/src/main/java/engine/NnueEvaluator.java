@@ -0,0 +1,208 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+
+/**
+ * Evaluates positions with an {@link NnueNetwork}. The accumulators, the
+ * expensive first layer, are kept for every ply of the search and updated by
+ * adding and subtracting the weight rows of the few features a move changes.
+ * When a king moves, every feature seen from its side changes, so that side's
+ * accumulator is instead rebuilt from the board the next time it is needed.
+ * <p>
+ * The inner loops use the Vector API when the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}, and plain Java otherwise; both
+ * give exactly the same scores. An evaluator belongs to one search thread,
+ * but any number of them can share a network.
+ */
+public class NnueEvaluator implements Evaluator {
+
+    private static final int STACK_SIZE = Score.MAX_PLY + 2;
+    private static final int SCORE_LIMIT = Score.MATE - Score.MAX_PLY - 1;
+    private static final int KING = ChessPiece.PieceType.KING.ordinal();
+    private static final int ROOK = ChessPiece.PieceType.ROOK.ordinal();
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private final NnueNetwork network;
+    private final NnueKernels kernels;
+    private final int size;
+
+    // Two accumulators per ply, white's view then black's, with a spare ply for untracked boards
+    private final short[] accumulators;
+    private final boolean[] stale = new boolean[STACK_SIZE * 2];
+    private final int[] kings = new int[STACK_SIZE * 2];
+    private final short[] activations;
+    private final int[] sums;
+    private final int[] pairs;
+    private int top;
+    private ChessBoard tracked;
+
+    public NnueEvaluator(NnueNetwork network) {
+        this(network, NnueKernels.best());
+    }
+
+    /**
+     * @param vector whether to use the Vector API kernels, which needs the
+     *               {@code jdk.incubator.vector} module
+     */
+    public NnueEvaluator(NnueNetwork network, boolean vector) {
+        this(network, vector ? vectorKernels() : NnueKernels.SCALAR);
+    }
+
+    private NnueEvaluator(NnueNetwork network, NnueKernels kernels) {
+        this.network = network;
+        this.kernels = kernels;
+        this.size = network.accumulatorSize;
+        this.accumulators = new short[STACK_SIZE * 2 * size];
+        this.activations = new short[network.activationsSize()];
+        this.sums = new int[network.sumsSize()];
+        this.pairs = new int[network.pairsSize()];
+    }
+
+    /**
+     * @return whether the Vector API kernels can be used in this JVM
+     */
+    public static boolean vectorApiAvailable() {
+        return NnueKernels.vectorApiAvailable();
+    }
+
+    private static NnueKernels vectorKernels() {
+        if (!NnueKernels.vectorApiAvailable()) {
+            throw new IllegalStateException("Start the JVM with --add-modules jdk.incubator.vector");
+        }
+        return NnueKernels.best();
+    }
+
+    @Override
+    public int evaluate(ChessBoard board, ChessGame.TeamColor side) {
+        int slot = top;
+        if (board != tracked) {
+            slot = STACK_SIZE - 1;
+            refresh(board, slot, 0);
+            refresh(board, slot, 1);
+        } else {
+            for (int perspective = 0; perspective < 2; perspective++) {
+                if (stale[slot * 2 + perspective]) {
+                    refresh(board, slot, perspective);
+                }
+            }
+        }
+
+        int us = side == ChessGame.TeamColor.WHITE ? 0 : 1;
+        int score = network.propagate(kernels, accumulators, offset(slot, us), offset(slot, 1 - us),
+                activations, sums, pairs);
+        return Math.min(Math.max(score, -SCORE_LIMIT), SCORE_LIMIT);
+    }
+
+    @Override
+    public void setPosition(ChessBoard board) {
+        tracked = board;
+        top = 0;
+        refresh(board, 0, 0);
+        refresh(board, 0, 1);
+    }
+
+    @Override
+    public void makeMove(ChessBoard board, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int color = (board.getTeamMask(ChessGame.TeamColor.WHITE) & (1L << from)) != 0 ? 0 : 1;
+        int type = typeAt(board, color, from);
+
+        System.arraycopy(accumulators, offset(top, 0), accumulators, offset(top + 1, 0), 2 * size);
+        System.arraycopy(stale, top * 2, stale, (top + 1) * 2, 2);
+        System.arraycopy(kings, top * 2, kings, (top + 1) * 2, 2);
+        top++;
+
+        if (type == KING) {
+            kings[top * 2 + color] = to;
+            stale[top * 2 + color] = true;
+        }
+
+        int captured = -1;
+        int capturedSquare = to;
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            captured = PAWN;
+            capturedSquare = color == 0 ? to - 8 : to + 8;
+        } else if (Move.isCapture(move)) {
+            captured = typeAt(board, 1 - color, to);
+        }
+        int placed = Move.isPromotion(move) ? Move.promotionPiece(move).ordinal() : type;
+
+        for (int perspective = 0; perspective < 2; perspective++) {
+            if (stale[top * 2 + perspective]) {
+                continue;
+            }
+            int king = kings[top * 2 + perspective];
+            int accumulator = offset(top, perspective);
+            if (type != KING) {
+                subtract(accumulator, NnueNetwork.feature(perspective, king, color, type, from));
+                add(accumulator, NnueNetwork.feature(perspective, king, color, placed, to));
+            }
+            if (captured >= 0) {
+                subtract(accumulator, NnueNetwork.feature(perspective, king, 1 - color, captured, capturedSquare));
+            }
+            if (Move.flags(move) == Move.KING_CASTLE) {
+                subtract(accumulator, NnueNetwork.feature(perspective, king, color, ROOK, to + 1));
+                add(accumulator, NnueNetwork.feature(perspective, king, color, ROOK, to - 1));
+            } else if (Move.flags(move) == Move.QUEEN_CASTLE) {
+                subtract(accumulator, NnueNetwork.feature(perspective, king, color, ROOK, to - 2));
+                add(accumulator, NnueNetwork.feature(perspective, king, color, ROOK, to + 1));
+            }
+        }
+    }
+
+    @Override
+    public void unmakeMove() {
+        top--;
+    }
+
+    // Rebuilds one side's accumulator from the biases and every piece on the board
+    private void refresh(ChessBoard board, int slot, int perspective) {
+        ChessGame.TeamColor team = perspective == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        int king = Math.max(board.getKingSquare(team), 0);
+        int accumulator = offset(slot, perspective);
+        System.arraycopy(network.featureBiases, 0, accumulators, accumulator, size);
+
+        for (int color = 0; color < 2; color++) {
+            ChessGame.TeamColor pieceTeam = color == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            for (int type = 0; type < TYPES.length; type++) {
+                if (type == KING) {
+                    continue;
+                }
+                for (long mask = board.getPieceMask(pieceTeam, TYPES[type]); mask != 0; mask &= mask - 1) {
+                    add(accumulator, NnueNetwork.feature(perspective, king, color, type,
+                            Long.numberOfTrailingZeros(mask)));
+                }
+            }
+        }
+        kings[slot * 2 + perspective] = king;
+        stale[slot * 2 + perspective] = false;
+    }
+
+    private void add(int accumulator, int feature) {
+        kernels.add(accumulators, accumulator, network.featureWeights, feature * size, size);
+    }
+
+    private void subtract(int accumulator, int feature) {
+        kernels.subtract(accumulators, accumulator, network.featureWeights, feature * size, size);
+    }
+
+    private int offset(int slot, int perspective) {
+        return (slot * 2 + perspective) * size;
+    }
+
+    private static int typeAt(ChessBoard board, int color, int square) {
+        ChessGame.TeamColor team = color == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        long bit = 1L << square;
+        for (int type = 0; type < TYPES.length; type++) {
+            if ((board.getPieceMask(team, TYPES[type]) & bit) != 0) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("No piece on square " + square);
+    }
+}
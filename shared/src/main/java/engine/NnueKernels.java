@@ -0,0 +1,119 @@
+package engine;
+
+/**
+ * The inner loops of the NNUE evaluator, written as plain Java. The JIT
+ * vectorizes some of these on its own; {@code VectorNnueKernels} does it
+ * explicitly with the Vector API when that module is available.
+ * <p>
+ * The Vector API classes live in {@code src/vector/java}, the only sources
+ * compiled with {@code --add-modules jdk.incubator.vector}. Main code never
+ * names them, so it builds and runs without the module; they are loaded by
+ * name once the module is known to be present.
+ */
+class NnueKernels {
+
+    private static final boolean VECTOR_API_AVAILABLE =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    static final NnueKernels SCALAR = new NnueKernels();
+
+    /**
+     * @return whether the JVM was started with {@code --add-modules jdk.incubator.vector}
+     */
+    static boolean vectorApiAvailable() {
+        return VECTOR_API_AVAILABLE;
+    }
+
+    /**
+     * @return the Vector API kernels if the module is present, otherwise the scalar ones
+     */
+    static NnueKernels best() {
+        return VECTOR_API_AVAILABLE ? VectorKernels.NNUE : SCALAR;
+    }
+
+    /**
+     * @return a new instance of one of the Vector API classes
+     * @throws IllegalStateException if the module or the class is missing
+     */
+    static <T> T loadVectorClass(String name, Class<T> type) {
+        if (!VECTOR_API_AVAILABLE) {
+            throw new IllegalStateException("Start the JVM with --add-modules jdk.incubator.vector");
+        }
+        try {
+            return type.cast(Class.forName(name).getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Vector API kernels are missing from the build", e);
+        }
+    }
+
+    // Initialized on first use, so a JVM without the module never loads the class
+    private static final class VectorKernels {
+        static final NnueKernels NNUE = loadVectorClass("engine.VectorNnueKernels", NnueKernels.class);
+    }
+
+    /**
+     * {@code accumulator[offset + i] += weights[row + i]} for {@code i < length}
+     */
+    void add(short[] accumulator, int offset, short[] weights, int row, int length) {
+        for (int i = 0; i < length; i++) {
+            accumulator[offset + i] += weights[row + i];
+        }
+    }
+
+    /**
+     * {@code accumulator[offset + i] -= weights[row + i]} for {@code i < length}
+     */
+    void subtract(short[] accumulator, int offset, short[] weights, int row, int length) {
+        for (int i = 0; i < length; i++) {
+            accumulator[offset + i] -= weights[row + i];
+        }
+    }
+
+    /**
+     * Copies accumulator values into {@code out}, clamped to {@code [0, max]}
+     */
+    void clippedRelu(short[] accumulator, int offset, short[] out, int outOffset, int length, int max) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = (short) Math.min(Math.max(accumulator[offset + i], 0), max);
+        }
+    }
+
+    /**
+     * {@code sums[n]} = the dot product of the {@code inputs} values at
+     * {@code inOffset} with row {@code n} of {@code weights}, for
+     * {@code n < outputs}. Rows are {@code inputs} long and stored one after
+     * another.
+     *
+     * @param pairs at least {@code inputs / 2} ints of scratch
+     */
+    void dense(short[] input, int inOffset, int inputs, short[] weights, int[] sums, int outputs, int[] pairs) {
+        int half = inputs / 2;
+        for (int n = 0; n < outputs; n++) {
+            int row = n * inputs;
+            // The JIT only vectorizes short products in this shape, as pmaddwd
+            for (int i = 0; i < half; i++) {
+                pairs[i] = input[inOffset + 2 * i] * weights[row + 2 * i]
+                        + input[inOffset + 2 * i + 1] * weights[row + 2 * i + 1];
+            }
+            int sum = 0;
+            for (int i = 0; i < half; i++) {
+                sum += pairs[i];
+            }
+            if (inputs % 2 != 0) {
+                sum += input[inOffset + inputs - 1] * weights[row + inputs - 1];
+            }
+            sums[n] = sum;
+        }
+    }
+
+    /**
+     * @return the dot product of {@code length} values of {@code a} and {@code b}
+     */
+    int dot(short[] a, int aOffset, short[] b, int bOffset, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,280 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * The weights of an efficiently updatable neural network (NNUE) for
+ * {@link NnueEvaluator}. A network is read only once loaded, so one copy
+ * can be shared by every search thread.
+ * <p>
+ * The input features follow HalfKP: for each side, one feature per
+ * combination of that side's king square with a non-king piece on a square,
+ * seen from that side (black's view is flipped top to bottom, and pieces are
+ * "ours" or "theirs"). The first layer turns the active features into an
+ * accumulator of 16-bit values per side. The side to move's accumulator and
+ * then the other side's, clamped to [0, 127], feed two small hidden layers
+ * with 8-bit weights and the same clamping, then a single output in
+ * sixteenths of a centipawn.
+ * <p>
+ * The weight file is little-endian: the magic number, version, accumulator
+ * size and the two hidden layer sizes as 32-bit ints, then the accumulator
+ * biases and feature weights as 16-bit values, then for each later layer its
+ * 32-bit biases followed by its 8-bit weights, one output's weights at a time.
+ */
+public final class NnueNetwork {
+
+    public static final int MAGIC = 0x4555_4E43;
+    public static final int VERSION = 1;
+
+    /** Non-king pieces of either colour on any square, for each king square */
+    public static final int FEATURES = 64 * 10 * 64;
+
+    static final int ACTIVATION_MAX = 127;
+    static final int WEIGHT_SHIFT = 6;
+    static final int OUTPUT_SCALE = 16;
+
+    final int accumulatorSize;
+    final int hidden1Size;
+    final int hidden2Size;
+
+    final short[] featureBiases;
+    final short[] featureWeights;
+    // The 8-bit dense weights are held as shorts, half the size of ints, so
+    // hidden1Weights stays in L1 at 32 KB for 256/32/32 instead of 64 KB
+    final int[] hidden1Biases;
+    final short[] hidden1Weights;
+    final int[] hidden2Biases;
+    final short[] hidden2Weights;
+    final int outputBias;
+    final short[] outputWeights;
+
+    private NnueNetwork(int accumulatorSize, int hidden1Size, int hidden2Size,
+                        short[] featureBiases, short[] featureWeights,
+                        int[] hidden1Biases, short[] hidden1Weights,
+                        int[] hidden2Biases, short[] hidden2Weights,
+                        int outputBias, short[] outputWeights) {
+        this.accumulatorSize = accumulatorSize;
+        this.hidden1Size = hidden1Size;
+        this.hidden2Size = hidden2Size;
+        this.featureBiases = featureBiases;
+        this.featureWeights = featureWeights;
+        this.hidden1Biases = hidden1Biases;
+        this.hidden1Weights = hidden1Weights;
+        this.hidden2Biases = hidden2Biases;
+        this.hidden2Weights = hidden2Weights;
+        this.outputBias = outputBias;
+        this.outputWeights = outputWeights;
+    }
+
+    /**
+     * @throws IOException if the file cannot be read or is not a network in this format
+     */
+    public static NnueNetwork load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Network file too large: " + path);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            return read(buffer, path);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated network file: " + path, e);
+        }
+    }
+
+    private static NnueNetwork read(ByteBuffer buffer, Path path) throws IOException {
+        if (buffer.remaining() < 20 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an NNUE network: " + path);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported network version " + version + ": " + path);
+        }
+        int accumulatorSize = buffer.getInt();
+        int hidden1Size = buffer.getInt();
+        int hidden2Size = buffer.getInt();
+        if (accumulatorSize < 1 || accumulatorSize > 4096 || hidden1Size < 1 || hidden1Size > 1024
+                || hidden2Size < 1 || hidden2Size > 1024) {
+            throw new IOException("Bad layer sizes in network: " + path);
+        }
+
+        short[] featureBiases = new short[accumulatorSize];
+        short[] featureWeights = new short[FEATURES * accumulatorSize];
+        buffer.asShortBuffer().get(featureBiases);
+        buffer.position(buffer.position() + 2 * accumulatorSize);
+        buffer.asShortBuffer().get(featureWeights);
+        buffer.position(buffer.position() + 2 * featureWeights.length);
+
+        int[] hidden1Biases = readInts(buffer, hidden1Size);
+        short[] hidden1Weights = readBytes(buffer, hidden1Size * 2 * accumulatorSize);
+        int[] hidden2Biases = readInts(buffer, hidden2Size);
+        short[] hidden2Weights = readBytes(buffer, hidden2Size * hidden1Size);
+        int outputBias = buffer.getInt();
+        short[] outputWeights = readBytes(buffer, hidden2Size);
+        if (buffer.hasRemaining()) {
+            throw new IOException("Unexpected data after network: " + path);
+        }
+
+        return new NnueNetwork(accumulatorSize, hidden1Size, hidden2Size, featureBiases, featureWeights,
+                hidden1Biases, hidden1Weights, hidden2Biases, hidden2Weights, outputBias, outputWeights);
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = buffer.getInt();
+        }
+        return values;
+    }
+
+    // 8-bit weights are widened to shorts, which the kernels multiply with the clamped activations
+    private static short[] readBytes(ByteBuffer buffer, int count) {
+        short[] values = new short[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = buffer.get();
+        }
+        return values;
+    }
+
+    /**
+     * Writes the network in the format {@link #load} reads.
+     */
+    public void save(Path path) throws IOException {
+        int bytes = 20 + 2 * (featureBiases.length + featureWeights.length)
+                + 4 * (hidden1Size + hidden2Size + 1)
+                + hidden1Weights.length + hidden2Weights.length + outputWeights.length;
+        ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(accumulatorSize).putInt(hidden1Size).putInt(hidden2Size);
+        buffer.asShortBuffer().put(featureBiases).put(featureWeights);
+        buffer.position(buffer.position() + 2 * (featureBiases.length + featureWeights.length));
+        writeLayer(buffer, hidden1Biases, hidden1Weights);
+        writeLayer(buffer, hidden2Biases, hidden2Weights);
+        writeLayer(buffer, new int[]{outputBias}, outputWeights);
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static void writeLayer(ByteBuffer buffer, int[] biases, short[] weights) {
+        for (int bias : biases) {
+            buffer.putInt(bias);
+        }
+        for (short weight : weights) {
+            buffer.put((byte) weight);
+        }
+    }
+
+    /**
+     * A network with random weights. It plays no better than chance, but has
+     * the shape and cost of a real one, for tests and benchmarks.
+     */
+    public static NnueNetwork random(long seed, int accumulatorSize, int hidden1Size, int hidden2Size) {
+        SplittableRandom random = new SplittableRandom(seed);
+        short[] featureBiases = new short[accumulatorSize];
+        short[] featureWeights = new short[FEATURES * accumulatorSize];
+        for (int i = 0; i < featureBiases.length; i++) {
+            featureBiases[i] = (short) random.nextInt(0, 64);
+        }
+        for (int i = 0; i < featureWeights.length; i++) {
+            featureWeights[i] = (short) random.nextInt(-16, 17);
+        }
+        return new NnueNetwork(accumulatorSize, hidden1Size, hidden2Size, featureBiases, featureWeights,
+                randomInts(random, hidden1Size, 2048), randomBytes(random, hidden1Size * 2 * accumulatorSize, 64),
+                randomInts(random, hidden2Size, 2048), randomBytes(random, hidden2Size * hidden1Size, 64),
+                random.nextInt(-2048, 2049), randomBytes(random, hidden2Size, 64));
+    }
+
+    private static int[] randomInts(SplittableRandom random, int count, int bound) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextInt(-bound, bound + 1);
+        }
+        return values;
+    }
+
+    private static short[] randomBytes(SplittableRandom random, int count, int bound) {
+        short[] values = new short[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = (short) random.nextInt(-bound, bound + 1);
+        }
+        return values;
+    }
+
+    public int accumulatorSize() {
+        return accumulatorSize;
+    }
+
+    /**
+     * Runs the dense layers on a pair of accumulators
+     *
+     * @param us          offset of the side to move's accumulator
+     * @param them        offset of the other side's accumulator
+     * @param activations at least {@link #activationsSize} shorts, for each layer's clamped inputs
+     * @param sums        at least {@link #sumsSize} ints, for a layer's outputs before clamping
+     * @param pairs       at least {@link #pairsSize} ints of scratch for the scalar kernels
+     * @return the evaluation in centipawns for the side to move
+     */
+    int propagate(NnueKernels kernels, short[] accumulators, int us, int them, short[] activations, int[] sums,
+                  int[] pairs) {
+        int inputSize = 2 * accumulatorSize;
+        kernels.clippedRelu(accumulators, us, activations, 0, accumulatorSize, ACTIVATION_MAX);
+        kernels.clippedRelu(accumulators, them, activations, accumulatorSize, accumulatorSize, ACTIVATION_MAX);
+
+        int hidden1 = inputSize;
+        kernels.dense(activations, 0, inputSize, hidden1Weights, sums, hidden1Size, pairs);
+        for (int i = 0; i < hidden1Size; i++) {
+            activations[hidden1 + i] = clamp((hidden1Biases[i] + sums[i]) >> WEIGHT_SHIFT);
+        }
+
+        int hidden2 = hidden1 + hidden1Size;
+        kernels.dense(activations, hidden1, hidden1Size, hidden2Weights, sums, hidden2Size, pairs);
+        for (int i = 0; i < hidden2Size; i++) {
+            activations[hidden2 + i] = clamp((hidden2Biases[i] + sums[i]) >> WEIGHT_SHIFT);
+        }
+
+        kernels.dense(activations, hidden2, hidden2Size, outputWeights, sums, 1, pairs);
+        return (outputBias + sums[0]) / OUTPUT_SCALE;
+    }
+
+    int activationsSize() {
+        return 2 * accumulatorSize + hidden1Size + hidden2Size;
+    }
+
+    int sumsSize() {
+        return Math.max(hidden1Size, hidden2Size);
+    }
+
+    int pairsSize() {
+        return Math.max(2 * accumulatorSize, Math.max(hidden1Size, hidden2Size)) / 2;
+    }
+
+    private static short clamp(int value) {
+        return (short) Math.min(Math.max(value, 0), ACTIVATION_MAX);
+    }
+
+    /**
+     * @param perspective 0 for white's accumulator, 1 for black's
+     * @param king        that side's king square
+     * @param color       0 if the piece is white, 1 if black
+     * @param type        the piece's {@code PieceType} ordinal, not the king
+     * @param square      the piece's square
+     * @return index of the feature's row of weights
+     */
+    static int feature(int perspective, int king, int color, int type, int square) {
+        int flip = perspective == 0 ? 0 : 56;
+        int piece = (type - 1) * 2 + (color == perspective ? 0 : 1);
+        return ((king ^ flip) * 10 + piece) * 64 + (square ^ flip);
+    }
+}
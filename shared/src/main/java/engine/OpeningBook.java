@@ -0,0 +1,191 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A Polyglot opening book ({@code .bin} file) mapped into memory. The file is
+ * a list of 16-byte big-endian entries sorted by position key: the key, the
+ * move, a weight and four bytes of learning data that are ignored here.
+ * <p>
+ * Lookups binary search the mapping in place using absolute reads, so they
+ * copy nothing, allocate nothing and never move the buffer's position. One
+ * book can serve every thread at once, and the operating system shares the
+ * pages with any other process reading the same file.
+ * <p>
+ * Moves come back in Polyglot's encoding, which {@link #toChessMove} turns
+ * into a move in a given game.
+ */
+public final class OpeningBook {
+
+    /** What lookups return when the book has no move for a position */
+    public static final int NO_MOVE = 0;
+
+    private static final int ENTRY_BYTES = 16;
+
+    private final ByteBuffer entries;
+    private final int size;
+    private final PolyglotKeys keys;
+
+    private OpeningBook(ByteBuffer entries, PolyglotKeys keys) {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_BYTES;
+        this.keys = keys;
+    }
+
+    /**
+     * @param path book file
+     * @param keys the random numbers the book's keys were made with
+     * @throws IOException if the file cannot be mapped or is not a whole number of entries
+     */
+    public static OpeningBook open(Path path, PolyglotKeys keys) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            if (bytes % ENTRY_BYTES != 0 || bytes > Integer.MAX_VALUE) {
+                throw new IOException("Not a Polyglot book: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes), keys);
+        }
+    }
+
+    /**
+     * @return number of entries in the book
+     */
+    public int size() {
+        return size;
+    }
+
+    public PolyglotKeys keys() {
+        return keys;
+    }
+
+    /**
+     * @param key the position's Polyglot key
+     * @return the move with the highest weight, or {@link #NO_MOVE}
+     */
+    public int bestMove(long key) {
+        int best = NO_MOVE;
+        int bestWeight = 0;
+        for (int i = firstEntry(key); i < size && keyAt(i) == key; i++) {
+            if (weightAt(i) > bestWeight) {
+                bestWeight = weightAt(i);
+                best = moveAt(i);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Picks a move at random in proportion to the weights, so a bot does not
+     * play the same opening every game.
+     *
+     * @param key    the position's Polyglot key
+     * @param random any random value, e.g. from {@code ThreadLocalRandom}
+     * @return the chosen move, or {@link #NO_MOVE}
+     */
+    public int pickMove(long key, long random) {
+        int first = firstEntry(key);
+        long total = 0;
+        for (int i = first; i < size && keyAt(i) == key; i++) {
+            total += weightAt(i);
+        }
+        if (total == 0) {
+            return NO_MOVE;
+        }
+
+        long target = Long.remainderUnsigned(random, total);
+        for (int i = first; ; i++) {
+            target -= weightAt(i);
+            if (target < 0) {
+                return moveAt(i);
+            }
+        }
+    }
+
+    /**
+     * @return the highest weighted legal book move in the game, or null if there is none
+     */
+    public ChessMove bestMove(ChessGame game) {
+        return toChessMove(game, bestMove(keys.key(game)));
+    }
+
+    /**
+     * @return a legal book move chosen as by {@link #pickMove(long, long)}, or null if there is none
+     */
+    public ChessMove pickMove(ChessGame game, long random) {
+        return toChessMove(game, pickMove(keys.key(game), random));
+    }
+
+    /**
+     * Polyglot packs the destination file and rank into bits 0-5, the origin
+     * into bits 6-11 and the promotion piece into bits 12-14, and writes
+     * castling as the king capturing its own rook.
+     *
+     * @param move a move in Polyglot's encoding
+     * @return the move, or null if it is {@link #NO_MOVE} or not legal in the game
+     */
+    public static ChessMove toChessMove(ChessGame game, int move) {
+        if (move == NO_MOVE) {
+            return null;
+        }
+        int toFile = move & 7;
+        int toRow = (move >>> 3) & 7;
+        int fromFile = (move >>> 6) & 7;
+        int fromRow = (move >>> 9) & 7;
+
+        ChessPosition from = new ChessPosition(fromRow + 1, fromFile + 1);
+        ChessPiece piece = game.getBoard().getPiece(from);
+        if (piece == null || piece.getTeamColor() != game.getTeamTurn()) {
+            return null;
+        }
+        if (piece.getPieceType() == ChessPiece.PieceType.KING && Math.abs(toFile - fromFile) > 1) {
+            toFile = toFile > fromFile ? 6 : 2;
+        }
+
+        ChessPiece.PieceType promotion = switch ((move >>> 12) & 7) {
+            case 1 -> ChessPiece.PieceType.KNIGHT;
+            case 2 -> ChessPiece.PieceType.BISHOP;
+            case 3 -> ChessPiece.PieceType.ROOK;
+            case 4 -> ChessPiece.PieceType.QUEEN;
+            default -> null;
+        };
+        ChessMove chessMove = new ChessMove(from, new ChessPosition(toRow + 1, toFile + 1), promotion);
+        return game.validMoves(from).contains(chessMove) ? chessMove : null;
+    }
+
+    // Index of the first entry whose key is not below the given one, comparing keys as unsigned
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int entry) {
+        return entries.getLong(entry * ENTRY_BYTES);
+    }
+
+    private int moveAt(int entry) {
+        return entries.getShort(entry * ENTRY_BYTES + 8) & 0xFFFF;
+    }
+
+    private int weightAt(int entry) {
+        return entries.getShort(entry * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+}
@@ -0,0 +1,151 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The 781 random numbers that Polyglot opening book keys are built from. A
+ * book can only be read with the numbers it was written with, which for
+ * every published book is the Random64 table from the Polyglot sources. That
+ * table ships with this class as {@link #standard()}; other tables can be
+ * loaded from a file.
+ * <p>
+ * A position's key is the XOR of the numbers for each piece on its square,
+ * each castling right, the en passant file when a pawn can capture there,
+ * and white to move.
+ */
+public final class PolyglotKeys {
+
+    public static final int SIZE = 781;
+
+    private static final int CASTLING = 768;
+    private static final int EN_PASSANT = 772;
+    private static final int WHITE_TO_MOVE = 780;
+
+    // Polyglot's piece order; each kind has 64 black keys then 64 white keys
+    private static final ChessPiece.PieceType[] KINDS = {
+            ChessPiece.PieceType.PAWN, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING,
+    };
+
+    private static final String STANDARD_TABLE = "polyglot-random64.txt";
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = FILE_A << 7;
+
+    private final long[] randoms;
+
+    /**
+     * @param randoms the table in Polyglot order
+     */
+    public PolyglotKeys(long[] randoms) {
+        if (randoms.length != SIZE) {
+            throw new IllegalArgumentException("Expected " + SIZE + " Polyglot keys, got " + randoms.length);
+        }
+        this.randoms = randoms.clone();
+    }
+
+    private static final class Standard {
+        static final PolyglotKeys KEYS = readStandard();
+
+        private static PolyglotKeys readStandard() {
+            try (InputStream in = PolyglotKeys.class.getResourceAsStream(STANDARD_TABLE)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing resource " + STANDARD_TABLE);
+                }
+                return parse(new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * @return Polyglot's own Random64 table, which published books are keyed with
+     */
+    public static PolyglotKeys standard() {
+        return Standard.KEYS;
+    }
+
+    /**
+     * Reads the table as text: 781 hexadecimal numbers separated by whitespace
+     * or commas. C style {@code 0x} prefixes and {@code U}/{@code L} suffixes
+     * are allowed, so the array can be copied straight out of Polyglot's source.
+     *
+     * @throws IOException if the file cannot be read or does not hold 781 numbers
+     */
+    public static PolyglotKeys load(Path path) throws IOException {
+        try {
+            return parse(Files.readString(path));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad Polyglot key file " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    static PolyglotKeys parse(String text) {
+        String[] tokens = text.trim().split("[\\s,]+");
+        long[] randoms = new long[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            String hex = tokens[i].replaceFirst("^0[xX]", "").replaceFirst("[uUlL]+$", "");
+            randoms[i] = Long.parseUnsignedLong(hex, 16);
+        }
+        return new PolyglotKeys(randoms);
+    }
+
+    /**
+     * Computes the key without allocating.
+     *
+     * @return the Polyglot key of the position
+     */
+    public long key(ChessBoard board, ChessGame.TeamColor sideToMove) {
+        long key = 0;
+        for (int kind = 0; kind < KINDS.length; kind++) {
+            key ^= pieceKeys(board.getPieceMask(ChessGame.TeamColor.BLACK, KINDS[kind]), 128 * kind);
+            key ^= pieceKeys(board.getPieceMask(ChessGame.TeamColor.WHITE, KINDS[kind]), 128 * kind + 64);
+        }
+
+        // The CASTLE_* flags are in Polyglot's order: white short, white long, black short, black long
+        int rights = board.getCastlingRights();
+        for (int right = 0; right < 4; right++) {
+            if ((rights & (1 << right)) != 0) {
+                key ^= randoms[CASTLING + right];
+            }
+        }
+
+        int enPassant = board.getEnPassantSquare();
+        if (enPassant >= 0) {
+            boolean white = sideToMove == ChessGame.TeamColor.WHITE;
+            long pushedPawn = 1L << (white ? enPassant - 8 : enPassant + 8);
+            long beside = ((pushedPawn << 1) & ~FILE_A) | ((pushedPawn >>> 1) & ~FILE_H);
+            if ((beside & board.getPieceMask(sideToMove, ChessPiece.PieceType.PAWN)) != 0) {
+                key ^= randoms[EN_PASSANT + enPassant % 8];
+            }
+        }
+
+        if (sideToMove == ChessGame.TeamColor.WHITE) {
+            key ^= randoms[WHITE_TO_MOVE];
+        }
+        return key;
+    }
+
+    public long key(ChessGame game) {
+        return key(game.getBoard(), game.getTeamTurn());
+    }
+
+    private long pieceKeys(long mask, int offset) {
+        long key = 0;
+        while (mask != 0) {
+            key ^= randoms[offset + Long.numberOfTrailingZeros(mask)];
+            mask &= mask - 1;
+        }
+        return key;
+    }
+}
@@ -0,0 +1,107 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Positions packed for {@link BatchEvaluator}. Each position is stored as up
+ * to {@link #MAX_PIECES} piece-square features, one per piece, laid out so
+ * that the same feature slot of consecutive positions is contiguous; a SIMD
+ * lane then works on one position. Pawn structure does not fit that shape,
+ * so it is scored when a position is added.
+ * <p>
+ * A batch can be cleared and refilled to reuse its arrays.
+ */
+public final class PositionBatch {
+
+    public static final int MAX_PIECES = 32;
+
+    // (color * 6 + type) * 64 + square; unused slots hold EMPTY, which scores nothing
+    static final int FEATURES = 12 * 64;
+    static final int EMPTY = FEATURES;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    final int capacity;
+    // Slot s of position p is at s * capacity + p
+    final int[] features;
+    final int[] middlegame;
+    final int[] endgame;
+    // 1 if white is to move, -1 if black
+    final int[] signs;
+    int size;
+    // Most pieces in any position in the batch, so later slots can be skipped
+    int slots;
+
+    public PositionBatch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.features = new int[MAX_PIECES * capacity];
+        this.middlegame = new int[capacity];
+        this.endgame = new int[capacity];
+        this.signs = new int[capacity];
+    }
+
+    /**
+     * @return the position's index in the batch, which is its index in the scores
+     */
+    public int add(ChessGame game) {
+        return add(game.getBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * @param side the team whose turn it is
+     * @return the position's index in the batch, which is its index in the scores
+     * @throws IllegalStateException    if the batch is full
+     * @throws IllegalArgumentException if the board has more than {@link #MAX_PIECES} pieces
+     */
+    public int add(ChessBoard board, ChessGame.TeamColor side) {
+        if (size == capacity) {
+            throw new IllegalStateException("Batch is full");
+        }
+        int pieces = Long.bitCount(board.getOccupiedMask());
+        if (pieces > MAX_PIECES) {
+            throw new IllegalArgumentException("Too many pieces to encode: " + pieces);
+        }
+
+        int index = size++;
+        int slot = 0;
+        for (int color = 0; color < 2; color++) {
+            ChessGame.TeamColor team = color == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            for (int type = 0; type < TYPES.length; type++) {
+                for (long mask = board.getPieceMask(team, TYPES[type]); mask != 0; mask &= mask - 1) {
+                    features[slot++ * capacity + index] = (color * 6 + type) * 64 + Long.numberOfTrailingZeros(mask);
+                }
+            }
+        }
+        for (int empty = slot; empty < MAX_PIECES; empty++) {
+            features[empty * capacity + index] = EMPTY;
+        }
+        slots = Math.max(slots, slot);
+
+        middlegame[index] = TaperedEvaluator.pawnStructure(board, true);
+        endgame[index] = TaperedEvaluator.pawnStructure(board, false);
+        signs[index] = side == ChessGame.TeamColor.WHITE ? 1 : -1;
+        return index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    public void clear() {
+        size = 0;
+        slots = 0;
+    }
+}
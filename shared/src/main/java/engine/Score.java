@@ -0,0 +1,64 @@
+package engine;
+
+/**
+ * Search scores are centipawns from the side to move's point of view. Forced
+ * mates are scored just below {@link #MATE}, closer mates higher, so a score
+ * of {@code MATE - 3} means the side to move mates in 3 plies and
+ * {@code -(MATE - 2)} means it is mated in 2.
+ */
+public final class Score {
+
+    public static final int DRAW = 0;
+    public static final int MATE = 30_000;
+    public static final int INFINITY = 32_000;
+
+    // Deepest ply the search can reach, counting extensions and quiescence
+    static final int MAX_PLY = 128;
+
+    private Score() {}
+
+    public static boolean isMate(int score) {
+        return Math.abs(score) >= MATE - MAX_PLY;
+    }
+
+    /**
+     * @return moves until mate, positive if the side to move delivers it and
+     * negative if it is mated, or 0 if the score is not a mate or the side to
+     * move is already checkmated
+     */
+    public static int mateInMoves(int score) {
+        if (!isMate(score)) {
+            return 0;
+        }
+        int plies = MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+
+    static int matedIn(int ply) {
+        return -MATE + ply;
+    }
+
+    /**
+     * Mate scores count plies from the root, but a stored result can be reached
+     * again at any ply, so they are stored counting from the position instead
+     */
+    public static int toStored(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -(MATE - MAX_PLY)) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    public static int fromStored(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -(MATE - MAX_PLY)) {
+            return score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,39 @@
+package engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * The outcome of the deepest completed iteration of a search
+ *
+ * @param bestMove           the move to play, or null if the side to move has no legal moves
+ * @param score              centipawns from the point of view of the side to move; see {@link Score}
+ * @param principalVariation the line the search expects, starting with {@code bestMove}
+ * @param depth              depth of the iteration the result comes from
+ * @param nodes              positions visited across all iterations
+ * @param timeMillis         wall clock time spent
+ */
+public record SearchResult(ChessMove bestMove, int score, List<ChessMove> principalVariation,
+                           int depth, long nodes, long timeMillis) {
+
+    /**
+     * @return a result for a move taken from an opening book rather than
+     * searched, with a level score and a depth of 0
+     */
+    public static SearchResult bookMove(ChessMove move) {
+        return new SearchResult(move, Score.DRAW, List.of(move), 0, 0, 0);
+    }
+
+    public boolean isBookMove() {
+        return depth == 0 && bestMove != null;
+    }
+
+    public long nodesPerSecond() {
+        return timeMillis > 0 ? nodes * 1000 / timeMillis : nodes * 1000;
+    }
+
+    public boolean isMate() {
+        return Score.isMate(score);
+    }
+}
@@ -0,0 +1,442 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+import chess.MoveUndo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One thread's negamax alpha-beta search over a private copy of the board.
+ * Every buffer the search needs is allocated up front, one per ply, so the
+ * search itself does not allocate.
+ * <p>
+ * With more than one thread, helper workers run the same iterations as the
+ * main worker but skip some depths, following the staggering used by Lazy
+ * SMP engines, so threads spread across depths and fill the shared
+ * transposition table with results the others can use.
+ */
+final class SearchWorker {
+
+    private static final int MAX_PLY = Score.MAX_PLY;
+
+    // Move ordering bands: previous best line, table move, captures, killers, then history
+    private static final int PV_SCORE = 2_000_000;
+    private static final int HASH_SCORE = 1_500_000;
+    private static final int CAPTURE_SCORE = 1_000_000;
+    private static final int FIRST_KILLER_SCORE = 900_000;
+    private static final int SECOND_KILLER_SCORE = 800_000;
+    private static final int HISTORY_LIMIT = 500_000;
+
+    // Depth skipping pattern for helper threads, cycled through by thread number
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private final AtomicBoolean stop;
+
+    private final MoveList[] moves = new MoveList[MAX_PLY];
+    private final int[][] moveScores = new int[MAX_PLY][];
+    private final MoveUndo[] undos = new MoveUndo[MAX_PLY];
+    private final long[] keys = new long[MAX_PLY];
+    private final int[] halfmoveClocks = new int[MAX_PLY];
+
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[2][64 * 64];
+
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private final int[] previousPv = new int[MAX_PLY];
+    private int previousPvLength;
+    private boolean followPv;
+
+    private ChessBoard board;
+    private boolean canStop;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+
+    SearchWorker(Evaluator evaluator, TranspositionTable table, AtomicBoolean stop) {
+        this.evaluator = evaluator;
+        this.table = table;
+        this.stop = stop;
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            moves[ply] = new MoveList();
+            moveScores[ply] = new int[256];
+            undos[ply] = new MoveUndo();
+        }
+    }
+
+    /**
+     * @param board         a copy of the position that this worker may modify
+     * @param thread        0 for the main thread, which owns the result, or the helper's number
+     * @param start         {@link System#nanoTime} when the search began
+     */
+    SearchResult search(ChessBoard board, ChessGame.TeamColor side, int halfmoveClock, Limits limits,
+                        int thread, long start) {
+        this.board = board;
+        nodes = 0;
+        // The node limit counts the main thread's nodes; helpers stop when it does
+        nodeLimit = thread == 0 ? limits.nodes() : 0;
+        deadline = limits.timeMillis() > 0 ? start + limits.timeMillis() * 1_000_000 : Long.MAX_VALUE;
+        previousPvLength = 0;
+        for (int[] pair : killers) {
+            pair[0] = 0;
+            pair[1] = 0;
+        }
+        for (int[] table : history) {
+            Arrays.fill(table, 0);
+        }
+
+        keys[0] = board.getZobristKey(side);
+        halfmoveClocks[0] = halfmoveClock;
+        evaluator.setPosition(board);
+
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = 1; depth <= limits.depth(); depth++) {
+            if (thread > 0 && skipsDepth(thread, depth)) {
+                continue;
+            }
+            // The main thread's first iteration always finishes so there is a move to return
+            canStop = completedDepth > 0 || thread > 0;
+            followPv = true;
+            int score = negamax(depth, 0, -Score.INFINITY, Score.INFINITY, side);
+            if (stopped()) {
+                break;
+            }
+
+            bestScore = score;
+            completedDepth = depth;
+            previousPvLength = pvLength[0];
+            System.arraycopy(pv[0], 0, previousPv, 0, previousPvLength);
+
+            if (previousPvLength == 0 || Score.isMate(score) || stop.get()) {
+                break;
+            }
+        }
+
+        List<ChessMove> line = new ArrayList<>(previousPvLength);
+        for (int i = 0; i < previousPvLength; i++) {
+            line.add(Move.toChessMove(previousPv[i]));
+        }
+        ChessMove bestMove = line.isEmpty() ? null : line.get(0);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        return new SearchResult(bestMove, bestScore, List.copyOf(line), completedDepth, nodes, elapsed);
+    }
+
+    private static boolean skipsDepth(int thread, int depth) {
+        int pattern = (thread - 1) % SKIP_SIZE.length;
+        return ((depth + SKIP_PHASE[pattern]) / SKIP_SIZE[pattern]) % 2 != 0;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, ChessGame.TeamColor side) {
+        pvLength[ply] = ply;
+        if (shouldStop()) {
+            return 0;
+        }
+        if (ply > 0 && isDraw(ply)) {
+            return Score.DRAW;
+        }
+
+        boolean inCheck = isInCheck(side);
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiescence(ply, alpha, beta, side);
+        }
+
+        nodes++;
+        if (ply >= MAX_PLY - 1) {
+            return evaluator.evaluate(board, side);
+        }
+
+        long entry = table.probe(keys[ply]);
+        int hashMove = 0;
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int stored = Score.fromStored(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && stored >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && stored <= alpha)) {
+                    return stored;
+                }
+            }
+        }
+
+        MoveList list = moves[ply];
+        list.clear();
+        MoveGenerator.generate(board, side, list);
+        if (list.isEmpty()) {
+            return inCheck ? Score.matedIn(ply) : Score.DRAW;
+        }
+        scoreMoves(list, ply, side, true, hashMove);
+
+        ChessGame.TeamColor opponent = opposite(side);
+        int originalAlpha = alpha;
+        int best = -Score.INFINITY;
+        int bestMove = 0;
+        for (int i = 0; i < list.size(); i++) {
+            int move = nextMove(list, ply, i);
+
+            makeMove(move, ply, side);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha, opponent);
+            unmakeMove(ply);
+            followPv = false;
+
+            if (stopped()) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (score >= beta) {
+                        if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                            rememberQuietCutoff(move, ply, depth, side);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+                : best > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        table.store(keys[ply], bestMove, Score.toStored(best, ply), depth, bound);
+        return best;
+    }
+
+    // Resolves captures so the static evaluation is never taken mid exchange
+    private int quiescence(int ply, int alpha, int beta, ChessGame.TeamColor side) {
+        pvLength[ply] = ply;
+        if (shouldStop()) {
+            return 0;
+        }
+        nodes++;
+        if (ply >= MAX_PLY - 1) {
+            return evaluator.evaluate(board, side);
+        }
+
+        boolean inCheck = isInCheck(side);
+        int best = -Score.INFINITY;
+        if (!inCheck) {
+            best = evaluator.evaluate(board, side);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        MoveList list = moves[ply];
+        list.clear();
+        MoveGenerator.generate(board, side, list);
+        if (inCheck && list.isEmpty()) {
+            return Score.matedIn(ply);
+        }
+        if (!inCheck) {
+            keepTactical(list);
+        }
+        scoreMoves(list, ply, side, false, 0);
+
+        ChessGame.TeamColor opponent = opposite(side);
+        for (int i = 0; i < list.size(); i++) {
+            int move = nextMove(list, ply, i);
+
+            makeMove(move, ply, side);
+            int score = -quiescence(ply + 1, -beta, -alpha, opponent);
+            unmakeMove(ply);
+
+            if (stopped()) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // Checks the limits as nodes are entered; the clock is read every 1024 nodes
+    private boolean shouldStop() {
+        if (!canStop) {
+            return false;
+        }
+        if (nodeLimit > 0 && nodes >= nodeLimit) {
+            stop.set(true);
+        } else if ((nodes & 1023) == 0 && System.nanoTime() > deadline) {
+            stop.set(true);
+        }
+        return stop.get();
+    }
+
+    private boolean stopped() {
+        return canStop && stop.get();
+    }
+
+    private void makeMove(int move, int ply, ChessGame.TeamColor side) {
+        boolean resetsClock = Move.isCapture(move) || isPawnMove(move);
+        evaluator.makeMove(board, move);
+        board.makeMove(Move.toChessMove(move), undos[ply]);
+        keys[ply + 1] = board.getZobristKey(opposite(side));
+        halfmoveClocks[ply + 1] = resetsClock ? 0 : halfmoveClocks[ply] + 1;
+    }
+
+    private void unmakeMove(int ply) {
+        board.unmakeMove(undos[ply]);
+        evaluator.unmakeMove();
+    }
+
+    // Fifty-move rule, or a repeat of a position earlier on the search path
+    private boolean isDraw(int ply) {
+        if (halfmoveClocks[ply] >= 100) {
+            return true;
+        }
+        int earliest = Math.max(0, ply - halfmoveClocks[ply]);
+        for (int i = ply - 2; i >= earliest; i -= 2) {
+            if (keys[i] == keys[ply]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isInCheck(ChessGame.TeamColor side) {
+        int king = board.getKingSquare(side);
+        return king >= 0 && board.isSquareAttacked(king, opposite(side));
+    }
+
+    private boolean isPawnMove(int move) {
+        return board.getPiece(ChessBoard.toPosition(Move.from(move))).getPieceType() == ChessPiece.PieceType.PAWN;
+    }
+
+    private static void keepTactical(MoveList list) {
+        int kept = 0;
+        for (int i = 0; i < list.size(); i++) {
+            int move = list.get(i);
+            if (Move.isCapture(move) || Move.isPromotion(move)) {
+                list.set(kept++, move);
+            }
+        }
+        list.truncate(kept);
+    }
+
+    private void scoreMoves(MoveList list, int ply, ChessGame.TeamColor side, boolean usePv, int hashMove) {
+        int[] scores = moveScores[ply];
+        if (scores.length < list.size()) {
+            scores = moveScores[ply] = new int[list.size()];
+        }
+
+        int pvMove = usePv && followPv && ply < previousPvLength ? previousPv[ply] : 0;
+        boolean foundPv = false;
+        int[] sideHistory = history[side.ordinal()];
+        for (int i = 0; i < list.size(); i++) {
+            int move = list.get(i);
+            if (move == pvMove) {
+                scores[i] = PV_SCORE;
+                foundPv = true;
+            } else if (move == hashMove) {
+                scores[i] = HASH_SCORE;
+            } else if (Move.isCapture(move) || Move.isPromotion(move)) {
+                scores[i] = CAPTURE_SCORE + mvvLva(move);
+            } else if (move == killers[ply][0]) {
+                scores[i] = FIRST_KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                scores[i] = SECOND_KILLER_SCORE;
+            } else {
+                scores[i] = sideHistory[Move.from(move) * 64 + Move.to(move)];
+            }
+        }
+        if (!foundPv) {
+            followPv = false;
+        }
+    }
+
+    // Most valuable victim first, least valuable attacker breaking ties
+    private int mvvLva(int move) {
+        int victim = 0;
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            victim = MaterialEvaluator.PIECE_VALUES[ChessPiece.PieceType.PAWN.ordinal()];
+        } else if (Move.isCapture(move)) {
+            victim = pieceValue(Move.to(move));
+        }
+        if (Move.isPromotion(move)) {
+            victim += MaterialEvaluator.PIECE_VALUES[Move.promotionPiece(move).ordinal()];
+        }
+        return victim * 16 - pieceValue(Move.from(move)) / 100;
+    }
+
+    private int pieceValue(int square) {
+        ChessPiece piece = board.getPiece(ChessBoard.toPosition(square));
+        return piece.getPieceType() == ChessPiece.PieceType.KING
+                ? 1000 : MaterialEvaluator.PIECE_VALUES[piece.getPieceType().ordinal()];
+    }
+
+    // Selection sort one step at a time: cut-offs usually come early, so most moves are never sorted
+    private int nextMove(MoveList list, int ply, int index) {
+        int[] scores = moveScores[ply];
+        int best = index;
+        for (int i = index + 1; i < list.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            int move = list.get(best);
+            list.set(best, list.get(index));
+            list.set(index, move);
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return list.get(index);
+    }
+
+    private void rememberQuietCutoff(int move, int ply, int depth, ChessGame.TeamColor side) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+
+        int[] sideHistory = history[side.ordinal()];
+        int index = Move.from(move) * 64 + Move.to(move);
+        sideHistory[index] += depth * depth;
+        if (sideHistory[index] > HISTORY_LIMIT) {
+            for (int i = 0; i < sideHistory.length; i++) {
+                sideHistory[i] /= 2;
+            }
+        }
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        int childLength = pvLength[ply + 1];
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, childLength - (ply + 1));
+        pvLength[ply] = Math.max(childLength, ply + 1);
+    }
+
+    private static ChessGame.TeamColor opposite(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
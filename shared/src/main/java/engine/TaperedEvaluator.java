@@ -0,0 +1,336 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+
+import java.util.SplittableRandom;
+
+/**
+ * Material and piece-square tables with separate middlegame and endgame
+ * scores, blended by how much material is left, plus pawn structure terms.
+ * <p>
+ * During a search the material and piece-square totals are updated move by
+ * move through {@link #makeMove} and restored from a stack on
+ * {@link #unmakeMove}, so evaluating costs the same however many pieces are
+ * on the board. Pawn structure only changes when pawns do, so it is cached in
+ * a pawn hash table keyed by a hash of the pawns alone and almost always
+ * found there.
+ */
+public class TaperedEvaluator implements Evaluator {
+
+    // Indexed by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    static final int[] MIDDLEGAME_VALUES = {0, 900, 330, 320, 500, 100};
+    static final int[] ENDGAME_VALUES = {0, 940, 300, 280, 520, 120};
+    // Phase is 24 with all pieces on the board and 0 with only kings and pawns
+    static final int[] PHASE_WEIGHTS = {0, 4, 1, 1, 2, 0};
+    static final int FULL_PHASE = 24;
+
+    private static final int DOUBLED_MIDDLEGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDDLEGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    // Indexed by how many ranks the pawn has advanced from its own back rank
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 55, 85, 120, 0};
+
+    private static final int KING = ChessPiece.PieceType.KING.ordinal();
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    // Tables as seen from white's side, rank 8 first, added to the piece values
+    private static final int[][] MIDDLEGAME_TABLES = {
+            { // King
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                    20, 20, 0, 0, 0, 0, 20, 20,
+                    20, 30, 10, 0, 0, 10, 30, 20,
+            },
+            { // Queen
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+            },
+            { // Bishop
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+            },
+            { // Knight
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+            },
+            { // Rook
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0,
+            },
+            { // Pawn
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0,
+            },
+    };
+
+    // Kings head for the centre and pawns for promotion once the pieces are off
+    private static final int[] KING_ENDGAME_TABLE = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+    private static final int[] PAWN_ENDGAME_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0,
+    };
+
+    // [color][type][square], value plus table, negated for black so totals are white minus black
+    static final int[][][] MIDDLEGAME = new int[2][6][64];
+    static final int[][][] ENDGAME = new int[2][6][64];
+    private static final long[][] PAWN_KEYS = new long[2][64];
+
+    private static final long FILE_A = 0x0101010101010101L;
+
+    static {
+        for (int type = 0; type < 6; type++) {
+            int[] endgameTable = type == KING ? KING_ENDGAME_TABLE
+                    : type == PAWN ? PAWN_ENDGAME_TABLE : MIDDLEGAME_TABLES[type];
+            for (int square = 0; square < 64; square++) {
+                int whiteIndex = (7 - square / 8) * 8 + square % 8;
+                int blackIndex = (square / 8) * 8 + square % 8;
+                MIDDLEGAME[0][type][square] = MIDDLEGAME_VALUES[type] + MIDDLEGAME_TABLES[type][whiteIndex];
+                MIDDLEGAME[1][type][square] = -(MIDDLEGAME_VALUES[type] + MIDDLEGAME_TABLES[type][blackIndex]);
+                ENDGAME[0][type][square] = ENDGAME_VALUES[type] + endgameTable[whiteIndex];
+                ENDGAME[1][type][square] = -(ENDGAME_VALUES[type] + endgameTable[blackIndex]);
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(0x9A44_5EEDL);
+        for (long[] squares : PAWN_KEYS) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+    }
+
+    private static final int PAWN_TABLE_SIZE = 1 << 14;
+
+    // Running totals, one slot per ply, with a spare slot for boards the search is not tracking
+    private static final int STACK_SIZE = Score.MAX_PLY + 2;
+    private final int[] middlegame = new int[STACK_SIZE];
+    private final int[] endgame = new int[STACK_SIZE];
+    private final int[] phase = new int[STACK_SIZE];
+    private final long[] pawnKey = new long[STACK_SIZE];
+    private int top;
+    private ChessBoard tracked;
+
+    // With no pawns the key is 0 and the structure scores 0, which is what an empty slot holds
+    private final long[] pawnEntryKeys = new long[PAWN_TABLE_SIZE];
+    private final int[] pawnMiddlegame = new int[PAWN_TABLE_SIZE];
+    private final int[] pawnEndgame = new int[PAWN_TABLE_SIZE];
+
+    @Override
+    public int evaluate(ChessBoard board, ChessGame.TeamColor side) {
+        int slot = top;
+        if (board != tracked) {
+            slot = STACK_SIZE - 1;
+            fill(board, slot);
+        }
+
+        int pawns = pawnEntry(board, pawnKey[slot]);
+        int middle = middlegame[slot] + pawnMiddlegame[pawns];
+        int end = endgame[slot] + pawnEndgame[pawns];
+        int gamePhase = Math.min(phase[slot], FULL_PHASE);
+        int score = (middle * gamePhase + end * (FULL_PHASE - gamePhase)) / FULL_PHASE;
+        return side == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    @Override
+    public void setPosition(ChessBoard board) {
+        tracked = board;
+        top = 0;
+        fill(board, 0);
+    }
+
+    @Override
+    public void makeMove(ChessBoard board, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int color = (board.getTeamMask(ChessGame.TeamColor.WHITE) & (1L << from)) != 0 ? 0 : 1;
+        int type = typeAt(board, color, from);
+
+        middlegame[top + 1] = middlegame[top];
+        endgame[top + 1] = endgame[top];
+        phase[top + 1] = phase[top];
+        pawnKey[top + 1] = pawnKey[top];
+        top++;
+
+        remove(color, type, from);
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            remove(1 - color, PAWN, color == 0 ? to - 8 : to + 8);
+        } else if (Move.isCapture(move)) {
+            remove(1 - color, typeAt(board, 1 - color, to), to);
+        }
+        add(color, Move.isPromotion(move) ? Move.promotionPiece(move).ordinal() : type, to);
+
+        int rook = ChessPiece.PieceType.ROOK.ordinal();
+        if (Move.flags(move) == Move.KING_CASTLE) {
+            remove(color, rook, to + 1);
+            add(color, rook, to - 1);
+        } else if (Move.flags(move) == Move.QUEEN_CASTLE) {
+            remove(color, rook, to - 2);
+            add(color, rook, to + 1);
+        }
+    }
+
+    @Override
+    public void unmakeMove() {
+        top--;
+    }
+
+    private void add(int color, int type, int square) {
+        middlegame[top] += MIDDLEGAME[color][type][square];
+        endgame[top] += ENDGAME[color][type][square];
+        phase[top] += PHASE_WEIGHTS[type];
+        if (type == PAWN) {
+            pawnKey[top] ^= PAWN_KEYS[color][square];
+        }
+    }
+
+    private void remove(int color, int type, int square) {
+        middlegame[top] -= MIDDLEGAME[color][type][square];
+        endgame[top] -= ENDGAME[color][type][square];
+        phase[top] -= PHASE_WEIGHTS[type];
+        if (type == PAWN) {
+            pawnKey[top] ^= PAWN_KEYS[color][square];
+        }
+    }
+
+    // Totals from scratch, used when a search starts and for untracked boards
+    private void fill(ChessBoard board, int slot) {
+        int middle = 0;
+        int end = 0;
+        int gamePhase = 0;
+        long key = 0;
+        for (int color = 0; color < 2; color++) {
+            ChessGame.TeamColor team = color == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            for (int type = 0; type < 6; type++) {
+                for (long mask = board.getPieceMask(team, TYPES[type]); mask != 0; mask &= mask - 1) {
+                    int square = Long.numberOfTrailingZeros(mask);
+                    middle += MIDDLEGAME[color][type][square];
+                    end += ENDGAME[color][type][square];
+                    gamePhase += PHASE_WEIGHTS[type];
+                    if (type == PAWN) {
+                        key ^= PAWN_KEYS[color][square];
+                    }
+                }
+            }
+        }
+        middlegame[slot] = middle;
+        endgame[slot] = end;
+        phase[slot] = gamePhase;
+        pawnKey[slot] = key;
+    }
+
+    private static int typeAt(ChessBoard board, int color, int square) {
+        ChessGame.TeamColor team = color == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        long bit = 1L << square;
+        for (int type = 0; type < 6; type++) {
+            if ((board.getPieceMask(team, TYPES[type]) & bit) != 0) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("No piece on square " + square);
+    }
+
+    // Index of the pawn hash entry for the board's pawns, scoring them first on a miss
+    private int pawnEntry(ChessBoard board, long key) {
+        int index = (int) (key >>> 50);
+        if (pawnEntryKeys[index] != key) {
+            pawnEntryKeys[index] = key;
+            pawnMiddlegame[index] = pawnStructure(board, true);
+            pawnEndgame[index] = pawnStructure(board, false);
+        }
+        return index;
+    }
+
+    /**
+     * @return the pawn structure terms of the board, white minus black
+     */
+    static int pawnStructure(ChessBoard board, boolean middle) {
+        long white = board.getPieceMask(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        long black = board.getPieceMask(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        return pawnStructure(white, black, 0, middle) - pawnStructure(black, white, 1, middle);
+    }
+
+    private static int pawnStructure(long own, long enemy, int color, boolean middle) {
+        int score = 0;
+        for (int file = 0; file < 8; file++) {
+            long fileMask = FILE_A << file;
+            int count = Long.bitCount(own & fileMask);
+            if (count == 0) {
+                continue;
+            }
+            long adjacent = (file > 0 ? fileMask >>> 1 : 0) | (file < 7 ? fileMask << 1 : 0);
+            if (count > 1) {
+                score += (count - 1) * (middle ? DOUBLED_MIDDLEGAME : DOUBLED_ENDGAME);
+            }
+            if ((own & adjacent) == 0) {
+                score += count * (middle ? ISOLATED_MIDDLEGAME : ISOLATED_ENDGAME);
+            }
+
+            for (long pawns = own & fileMask; pawns != 0; pawns &= pawns - 1) {
+                int square = Long.numberOfTrailingZeros(pawns);
+                int rank = square / 8;
+                // Squares ahead of the pawn on its own and neighbouring files
+                long span = (fileMask | adjacent) & (color == 0 ? -1L << (rank + 1) * 8 : (1L << rank * 8) - 1);
+                if ((enemy & span) == 0) {
+                    int advanced = color == 0 ? rank : 7 - rank;
+                    score += middle ? PASSED_MIDDLEGAME[advanced] : PASSED_ENDGAME[advanced];
+                }
+            }
+        }
+        return score;
+    }
+}
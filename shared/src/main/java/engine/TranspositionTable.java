@@ -0,0 +1,204 @@
+package engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A fixed-size table of search results keyed by 64-bit position hash, held
+ * in direct buffers outside the Java heap so large tables add nothing to
+ * garbage collection work.
+ * <p>
+ * Entries are 16 bytes: the entry data and the key XORed with that data.
+ * A reader accepts an entry only if XORing the two words gives back its key,
+ * so an entry torn by two threads writing at once reads as a miss instead of
+ * a wrong result. That lets any number of searches share one table with no
+ * locks. Four entries make a 64-byte bucket; within a bucket, deeper results
+ * and results from the current search are kept in preference to shallow or
+ * stale ones.
+ * <p>
+ * Probes return the entry data as a single long, unpacked with
+ * {@link #move}, {@link #score}, {@link #depth} and {@link #bound}.
+ */
+public class TranspositionTable {
+
+    public static final int BOUND_NONE = 0;
+    public static final int BOUND_UPPER = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_EXACT = 3;
+
+    /** What {@link #probe} returns when the position is not in the table */
+    public static final long MISS = 0L;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_BYTES = ENTRY_BYTES * BUCKET_ENTRIES;
+    // Direct buffers are int indexed, so large tables are split into 1 GB chunks
+    private static final int CHUNK_SHIFT = 30 - 6;
+    private static final long CHUNK_BUCKETS = 1L << CHUNK_SHIFT;
+
+    private static final int GENERATIONS = 64;
+
+    // Aligned long access through this handle is atomic, so a word is never half written
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer[] chunks;
+    private final long buckets;
+    private volatile int generation;
+
+    /**
+     * @param megabytes table size; the table holds 65,536 entries per megabyte
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Transposition table needs at least 1 MB");
+        }
+        buckets = (long) megabytes * 1024 * 1024 / BUCKET_BYTES;
+
+        int chunkCount = (int) ((buckets + CHUNK_BUCKETS - 1) / CHUNK_BUCKETS);
+        chunks = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long chunkBuckets = Math.min(CHUNK_BUCKETS, buckets - i * CHUNK_BUCKETS);
+            chunks[i] = ByteBuffer.allocateDirect((int) (chunkBuckets * BUCKET_BYTES)).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Marks the start of a new search. Entries from earlier searches become the
+     * first to be replaced.
+     */
+    public void newSearch() {
+        generation = (generation + 1) % GENERATIONS;
+    }
+
+    public void clear() {
+        for (ByteBuffer chunk : chunks) {
+            for (int offset = 0; offset < chunk.capacity(); offset += Long.BYTES) {
+                LONGS.setOpaque(chunk, offset, 0L);
+            }
+        }
+        generation = 0;
+    }
+
+    /**
+     * @param key the position's Zobrist key, including the side to move
+     * @return the entry data for the position, or {@link #MISS}
+     */
+    public long probe(long key) {
+        long bucket = bucketOf(key);
+        ByteBuffer chunk = chunks[(int) (bucket >>> CHUNK_SHIFT)];
+        int base = (int) (bucket & (CHUNK_BUCKETS - 1)) * BUCKET_BYTES;
+
+        for (int i = 0; i < BUCKET_ENTRIES; i++) {
+            int offset = base + i * ENTRY_BYTES;
+            long data = (long) LONGS.getOpaque(chunk, offset + Long.BYTES);
+            long check = (long) LONGS.getOpaque(chunk, offset);
+            if ((check ^ data) == key && data != MISS) {
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Records a search result. Mate scores should already be made relative to
+     * the position with {@link Score#toStored}.
+     *
+     * @param key   the position's Zobrist key, including the side to move
+     * @param move  best packed move found, or 0 if none
+     * @param score the score, within {@code Short} range
+     * @param depth remaining depth the score was searched to
+     * @param bound whether the score is exact or a lower or upper bound
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        long bucket = bucketOf(key);
+        ByteBuffer chunk = chunks[(int) (bucket >>> CHUNK_SHIFT)];
+        int base = (int) (bucket & (CHUNK_BUCKETS - 1)) * BUCKET_BYTES;
+        int currentGeneration = generation;
+
+        // The position's own entry wherever it is in the bucket, else the first
+        // empty slot, else the shallowest entry, counting each search of age as 8 plies
+        int target = -1;
+        int replace = base;
+        int worstValue = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET_ENTRIES; i++) {
+            int offset = base + i * ENTRY_BYTES;
+            long data = (long) LONGS.getOpaque(chunk, offset + Long.BYTES);
+            long check = (long) LONGS.getOpaque(chunk, offset);
+
+            if (data == MISS) {
+                if (worstValue > Integer.MIN_VALUE) {
+                    worstValue = Integer.MIN_VALUE;
+                    replace = offset;
+                }
+                continue;
+            }
+            if ((check ^ data) == key) {
+                // Same position: keep a deeper result unless this one is exact or the old one is stale
+                if (move == 0) {
+                    move = move(data);
+                }
+                if (bound != BOUND_EXACT && generation(data) == currentGeneration && depth(data) > depth + 2) {
+                    return;
+                }
+                target = offset;
+                break;
+            }
+
+            int age = (currentGeneration - generation(data) + GENERATIONS) % GENERATIONS;
+            int value = depth(data) - 8 * age;
+            if (value < worstValue) {
+                worstValue = value;
+                replace = offset;
+            }
+        }
+        if (target < 0) {
+            target = replace;
+        }
+
+        long data = pack(move, score, depth, bound, currentGeneration);
+        LONGS.setOpaque(chunk, target + Long.BYTES, data);
+        LONGS.setOpaque(chunk, target, key ^ data);
+    }
+
+    /**
+     * @return size of the table in entries
+     */
+    public long capacity() {
+        return buckets * BUCKET_ENTRIES;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 0x3);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> 42) & 0x3F);
+    }
+
+    private static long pack(int move, int score, int depth, int bound, int generation) {
+        return (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((long) Math.min(depth, 0xFF) << 32)
+                | ((long) bound << 40)
+                | ((long) generation << 42);
+    }
+
+    // Maps the key onto [0, buckets) using its high bits, for any bucket count
+    private long bucketOf(long key) {
+        return Math.unsignedMultiplyHigh(key, buckets);
+    }
+}
@@ -0,0 +1,11 @@
+package model;
+
+import chess.ChessGame;
+
+public record BotSeat(int gameID, ChessGame.TeamColor color, int depth, int moveTimeMillis) {
+
+    /**
+     * The name shown in a bot's seat. It is reserved, so no user can register it.
+     */
+    public static final String USERNAME = "Bot";
+}
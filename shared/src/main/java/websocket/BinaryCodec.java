@@ -0,0 +1,115 @@
+package websocket;
+
+import chess.BinaryGame;
+import chess.ChessGame;
+import chess.ChessMove;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveAppliedMessage;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames for connections that asked for
+ * {@link websocket.commands.ConnectCommand.Protocol#BINARY} at CONNECT. Each
+ * frame is a tag byte and its payload: a {@link BinaryGame} for LOAD_GAME,
+ * UTF-8 text for NOTIFICATION and ERROR, the move, a status byte and the
+ * eight-byte position key for MOVE_APPLIED, and a two-byte move for
+ * MAKE_MOVE, which is the only command clients send as binary.
+ */
+public final class BinaryCodec {
+
+    public static final byte LOAD_GAME = 1;
+    public static final byte ERROR = 2;
+    public static final byte NOTIFICATION = 3;
+    public static final byte MAKE_MOVE = 4;
+    public static final byte MOVE_APPLIED = 5;
+
+    private static final ChessGame.GameStatus[] STATUSES = ChessGame.GameStatus.values();
+
+    private BinaryCodec() {}
+
+    public static byte[] encode(ServerMessage message) {
+        return switch (message.getServerMessageType()) {
+            case LOAD_GAME -> loadGame((LoadGameMessage) message);
+            case ERROR -> text(ERROR, ((ErrorMessage) message).getErrorMessage());
+            case NOTIFICATION -> text(NOTIFICATION, ((NotificationMessage) message).getMessage());
+            case MOVE_APPLIED -> moveApplied((MoveAppliedMessage) message);
+        };
+    }
+
+    private static byte[] moveApplied(MoveAppliedMessage message) {
+        return ByteBuffer.allocate(12)
+                .put(MOVE_APPLIED)
+                .putShort((short) BinaryGame.writeMove(message.getMove()))
+                .put((byte) message.getStatus().ordinal())
+                .putLong(message.getPositionKey())
+                .array();
+    }
+
+    private static byte[] loadGame(LoadGameMessage message) {
+        ChessGame game = message.getGame();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + BinaryGame.size(game));
+        buffer.put(LOAD_GAME);
+        BinaryGame.write(game, buffer);
+        return buffer.array();
+    }
+
+    private static byte[] text(byte tag, String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[1 + utf8.length];
+        frame[0] = tag;
+        System.arraycopy(utf8, 0, frame, 1, utf8.length);
+        return frame;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the frame is not a server message
+     */
+    public static ServerMessage decodeServerMessage(ByteBuffer frame) {
+        try {
+            byte tag = frame.get();
+            return switch (tag) {
+                case LOAD_GAME -> new LoadGameMessage(BinaryGame.read(frame));
+                case ERROR -> new ErrorMessage(StandardCharsets.UTF_8.decode(frame).toString());
+                case NOTIFICATION -> new NotificationMessage(StandardCharsets.UTF_8.decode(frame).toString());
+                case MOVE_APPLIED -> readMoveApplied(frame);
+                default -> throw new IllegalArgumentException("Unknown server message tag " + tag);
+            };
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated frame", e);
+        }
+    }
+
+    private static MoveAppliedMessage readMoveApplied(ByteBuffer frame) {
+        ChessMove move = BinaryGame.readMove(frame.getShort() & 0xFFFF);
+        int status = frame.get();
+        if (move == null || status < 0 || status >= STATUSES.length) {
+            throw new IllegalArgumentException("Bad move update");
+        }
+        return new MoveAppliedMessage(move, STATUSES[status], frame.getLong());
+    }
+
+    public static byte[] encodeMakeMove(ChessMove move) {
+        int bits = BinaryGame.writeMove(move);
+        return new byte[]{MAKE_MOVE, (byte) (bits >> 8), (byte) bits};
+    }
+
+    /**
+     * @throws IllegalArgumentException if the frame is not a MAKE_MOVE command
+     */
+    public static ChessMove decodeMakeMove(ByteBuffer frame) {
+        if (frame.remaining() != 3 || frame.get() != MAKE_MOVE) {
+            throw new IllegalArgumentException("Not a move frame");
+        }
+        ChessMove move = BinaryGame.readMove(frame.getShort() & 0xFFFF);
+        if (move == null) {
+            throw new IllegalArgumentException("Empty move");
+        }
+        return move;
+    }
+}
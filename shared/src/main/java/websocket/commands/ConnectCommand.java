@@ -2,7 +2,42 @@ package websocket.commands;
 
 public class ConnectCommand extends UserGameCommand {
 
+    /**
+     * How the server talks to this connection after CONNECT. Clients that
+     * send no protocol get JSON text frames.
+     */
+    public enum Protocol {
+        JSON,
+        BINARY
+    }
+
+    private final Protocol protocol;
+
+    private final boolean moveDeltas;
+
     public ConnectCommand(String authToken, Integer gameID) {
+        this(authToken, gameID, null, false);
+    }
+
+    public ConnectCommand(String authToken, Integer gameID, Protocol protocol) {
+        this(authToken, gameID, protocol, false);
+    }
+
+    /**
+     * @param moveDeltas whether the server should send a MOVE_APPLIED after
+     *                   each move instead of the whole game
+     */
+    public ConnectCommand(String authToken, Integer gameID, Protocol protocol, boolean moveDeltas) {
         super(CommandType.CONNECT, authToken, gameID);
+        this.protocol = protocol;
+        this.moveDeltas = moveDeltas;
+    }
+
+    public Protocol getProtocol() {
+        return protocol == null ? Protocol.JSON : protocol;
+    }
+
+    public boolean wantsMoveDeltas() {
+        return moveDeltas;
     }
-}
\ No newline at end of file
+}
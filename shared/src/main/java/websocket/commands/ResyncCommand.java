@@ -0,0 +1,12 @@
+package websocket.commands;
+
+/**
+ * Asks the server for a LOAD_GAME of a game the session is already connected
+ * to, after a MOVE_APPLIED that did not match the client's copy.
+ */
+public class ResyncCommand extends UserGameCommand {
+
+    public ResyncCommand(String authToken, Integer gameID) {
+        super(CommandType.RESYNC, authToken, gameID);
+    }
+}
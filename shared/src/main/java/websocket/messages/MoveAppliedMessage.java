@@ -0,0 +1,42 @@
+package websocket.messages;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+/**
+ * Sent instead of a full LOAD_GAME after each move to connections that asked
+ * for move deltas. The client plays the move on its own copy of the game and
+ * compares the resulting {@link ChessGame#positionKey()} with
+ * {@link #getPositionKey()}; on a mismatch it asks for the whole game again.
+ */
+public class MoveAppliedMessage extends ServerMessage {
+
+    private final ChessMove move;
+    private final ChessGame.GameStatus status;
+    private final long positionKey;
+
+    public MoveAppliedMessage(ChessMove move, ChessGame.GameStatus status, long positionKey) {
+        super(ServerMessageType.MOVE_APPLIED);
+        this.move = move;
+        this.status = status;
+        this.positionKey = positionKey;
+    }
+
+    public ChessMove getMove() {
+        return move;
+    }
+
+    /**
+     * @return the status of the game after the move
+     */
+    public ChessGame.GameStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the position key of the game after the move
+     */
+    public long getPositionKey() {
+        return positionKey;
+    }
+}
@@ -0,0 +1,140 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+public class ChessBoardTest {
+
+    private static final int DEPTH = 3;
+
+    private static final int[][] KNIGHT_STEPS = {{2, 1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}, {-1, -2}, {1, -2}, {2, -1}};
+    private static final int[][] STRAIGHT = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] DIAGONAL = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    static Stream<String> perft() {
+        return Positions.perft();
+    }
+
+    private static void assertSameBoard(ChessBoard expected, ChessBoard actual, Supplier<String> context) {
+        Assertions.assertEquals(expected, actual, context);
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                Assertions.assertEquals(expected.getPieceMask(color, type), actual.getPieceMask(color, type),
+                        () -> context.get() + ": " + color + " " + type + " mask");
+            }
+            Assertions.assertEquals(expected.getTeamMask(color), actual.getTeamMask(color),
+                    () -> context.get() + ": " + color + " mask");
+        }
+        Assertions.assertEquals(expected.getOccupiedMask(), actual.getOccupiedMask(),
+                () -> context.get() + ": occupied mask");
+        Assertions.assertEquals(expected.getCastlingRights(), actual.getCastlingRights(),
+                () -> context.get() + ": castling rights");
+        Assertions.assertEquals(expected.getEnPassantSquare(), actual.getEnPassantSquare(),
+                () -> context.get() + ": en passant");
+        Assertions.assertEquals(expected.getZobristKey(), actual.getZobristKey(),
+                () -> context.get() + ": key");
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = expected.pieceAt(square);
+            if (piece != null) {
+                int at = square;
+                Assertions.assertEquals(piece.hasNotMoved(), actual.pieceAt(square).hasNotMoved(),
+                        () -> context.get() + ": moved flag on " + ChessBoard.toPosition(at));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @DisplayName("Unmaking every move restores the board, its masks and its key")
+    @MethodSource("perft")
+    public void makeUnmakeRoundTrip(String fen) {
+        ChessGame game = Fen.parse(fen);
+        MoveList moves = new MoveList();
+        MoveUndo undo = new MoveUndo();
+        Positions.walk(game.getBoard(), game.getTeamTurn(), DEPTH - 1, (board, side) -> {
+            moves.clear();
+            MoveGenerator.generate(board, side, moves);
+            for (int i = 0; i < moves.size(); i++) {
+                ChessMove move = Move.toChessMove(moves.get(i));
+                ChessBoard before = Positions.rebuilt(board);
+
+                board.makeMove(move, undo);
+                assertSameBoard(Positions.rebuilt(board), board, () -> fen + " after " + move);
+                board.unmakeMove(undo);
+                assertSameBoard(before, board, () -> fen + " undoing " + move);
+            }
+        });
+    }
+
+    @ParameterizedTest
+    @DisplayName("Attacked squares match a square by square walk of every piece's reach")
+    @MethodSource("perft")
+    public void attackedSquares(String fen) {
+        ChessGame game = Fen.parse(fen);
+        Positions.walk(game.getBoard(), game.getTeamTurn(), DEPTH - 1, (board, side) -> {
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                long expected = attackedBy(board, color);
+                for (int square = 0; square < 64; square++) {
+                    int at = square;
+                    Assertions.assertEquals((expected & 1L << square) != 0, board.isSquareAttacked(square, color),
+                            () -> fen + ": " + ChessBoard.toPosition(at) + " attacked by " + color);
+                }
+            }
+        });
+    }
+
+    // Everything the team's pieces attack, stepping one square at a time
+    private static long attackedBy(ChessBoard board, ChessGame.TeamColor color) {
+        long attacked = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.pieceAt(square);
+            if (piece == null || piece.getTeamColor() != color) {
+                continue;
+            }
+            int row = square / 8;
+            int col = square % 8;
+            int forward = color == ChessGame.TeamColor.WHITE ? 1 : -1;
+            attacked |= switch (piece.getPieceType()) {
+                case PAWN -> step(row, col, forward, 1) | step(row, col, forward, -1);
+                case KNIGHT -> steps(row, col, KNIGHT_STEPS);
+                case KING -> steps(row, col, STRAIGHT) | steps(row, col, DIAGONAL);
+                case ROOK -> rays(board, row, col, STRAIGHT);
+                case BISHOP -> rays(board, row, col, DIAGONAL);
+                case QUEEN -> rays(board, row, col, STRAIGHT) | rays(board, row, col, DIAGONAL);
+            };
+        }
+        return attacked;
+    }
+
+    private static long step(int row, int col, int rowStep, int colStep) {
+        int r = row + rowStep;
+        int c = col + colStep;
+        return r < 0 || r > 7 || c < 0 || c > 7 ? 0 : 1L << (r * 8 + c);
+    }
+
+    private static long steps(int row, int col, int[][] directions) {
+        long squares = 0;
+        for (int[] direction : directions) {
+            squares |= step(row, col, direction[0], direction[1]);
+        }
+        return squares;
+    }
+
+    private static long rays(ChessBoard board, int row, int col, int[][] directions) {
+        long squares = 0;
+        for (int[] direction : directions) {
+            for (int r = row + direction[0], c = col + direction[1]; r >= 0 && r < 8 && c >= 0 && c < 8;
+                 r += direction[0], c += direction[1]) {
+                squares |= 1L << (r * 8 + c);
+                if (board.pieceAt(r * 8 + c) != null) {
+                    break;
+                }
+            }
+        }
+        return squares;
+    }
+}
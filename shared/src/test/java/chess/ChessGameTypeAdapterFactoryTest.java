@@ -0,0 +1,90 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ChessGameTypeAdapterFactoryTest {
+
+    private final Gson gson = new Gson();
+
+    private static ChessGame play(String... moves) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String move : moves) {
+            game.makeMove(Fen.readMove(move));
+        }
+        return game;
+    }
+
+    @Test
+    @DisplayName("Games are written as FEN and the last move")
+    public void writesFen() throws InvalidMoveException {
+        Assertions.assertEquals("{\"fen\":\"" + Fen.STARTING_POSITION + "\"}", gson.toJson(new ChessGame()));
+        Assertions.assertEquals("{\"fen\":\"rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 1\","
+                + "\"lastMove\":\"e7e5\"}", gson.toJson(play("e2e4", "e7e5")));
+    }
+
+    @Test
+    @DisplayName("Games read back equal, with the same rules state")
+    public void roundTrip() throws InvalidMoveException {
+        // Castled white king, black queenside rook moved, en passant available
+        ChessGame game = play("e2e4", "a7a5", "g1f3", "a8a6", "f1c4", "a5a4", "e1g1", "b7b6", "b2b4");
+        ChessGame read = gson.fromJson(gson.toJson(game), ChessGame.class);
+
+        Assertions.assertEquals(game, read);
+        Assertions.assertEquals(game.positionKey(), read.positionKey());
+        Assertions.assertEquals(game.getHalfmoveClock(), read.getHalfmoveClock());
+        Assertions.assertEquals("1nbqkbnr/2pppppp/rp6/8/pPB1P3/5N2/P1PP1PPP/RNBQ1RK1 b k b3 0 1", Fen.toFen(read));
+
+        ChessMove enPassant = Fen.readMove("a4b3");
+        game.makeMove(enPassant);
+        read.makeMove(enPassant);
+        Assertions.assertEquals(game, read);
+        Assertions.assertNull(gson.fromJson("null", ChessGame.class));
+    }
+
+    @Test
+    @DisplayName("Games saved by reflective Gson still load")
+    public void readsLegacyJson() throws InvalidMoveException {
+        ChessGame game = play("d2d4", "g8f6", "c2c4");
+        // The factory is not registered with this Gson, so its delegate is the reflective adapter
+        String legacy = gson.getDelegateAdapter(new ChessGameTypeAdapterFactory(), TypeToken.get(ChessGame.class))
+                .toJson(game);
+        Assertions.assertTrue(legacy.contains("\"board\""));
+
+        ChessGame read = gson.fromJson(legacy, ChessGame.class);
+        Assertions.assertEquals(game, read);
+        Assertions.assertEquals(game.positionKey(), read.positionKey());
+        Assertions.assertEquals(gson.toJson(game), gson.toJson(read));
+    }
+
+    @Test
+    @DisplayName("Games saved before boards tracked en passant get it back from the last move")
+    public void readsLegacyEnPassant() throws InvalidMoveException {
+        ChessGame game = play("e2e4", "a7a6", "e4e5", "d7d5");
+        JsonObject legacy = gson.getDelegateAdapter(new ChessGameTypeAdapterFactory(), TypeToken.get(ChessGame.class))
+                .toJsonTree(game).getAsJsonObject();
+        // The shape from before the series: the squares, the side to move and the last move
+        legacy.remove("halfmoveClock");
+        Assertions.assertNotNull(legacy.getAsJsonObject("board").remove("enPassantSquare"));
+
+        ChessGame read = gson.fromJson(legacy, ChessGame.class);
+        Assertions.assertEquals(game.getBoard().getEnPassantSquare(), read.getBoard().getEnPassantSquare());
+        Assertions.assertEquals(game.positionKey(), read.positionKey());
+        Assertions.assertTrue(read.validMoves(new ChessPosition(5, 5)).contains(Fen.readMove("e5d6")));
+    }
+
+    @Test
+    @DisplayName("Malformed games are rejected")
+    public void rejectsBadJson() {
+        Assertions.assertThrows(JsonSyntaxException.class, () -> gson.fromJson("{}", ChessGame.class));
+        Assertions.assertThrows(JsonSyntaxException.class,
+                () -> gson.fromJson("{\"fen\":\"8/8 w - -\"}", ChessGame.class));
+        Assertions.assertThrows(JsonSyntaxException.class,
+                () -> gson.fromJson("{\"fen\":\"" + Fen.STARTING_POSITION + "\",\"lastMove\":\"e9\"}", ChessGame.class));
+    }
+}
@@ -0,0 +1,86 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+
+public class FenTest {
+
+    @ParameterizedTest
+    @DisplayName("Positions write back as the text they were read from")
+    @ValueSource(strings = {
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 1",
+            "4k3/8/8/8/8/8/8/R3K2R b Q - 37 1",
+    })
+    public void roundTrip(String fen) {
+        ChessGame game = ChessGame.fromFen(fen);
+        Assertions.assertEquals(fen, game.toFen());
+        Assertions.assertEquals(game.positionKey(), ChessGame.fromFen(game.toFen()).positionKey());
+    }
+
+    @Test
+    @DisplayName("Castling rights and en passant follow the moves played")
+    public void followsMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(Fen.STARTING_POSITION, game.toFen());
+        for (String move : new String[]{"e2e4", "d7d5", "e4e5", "f7f5", "g1h3", "g8h6", "h1g1"}) {
+            game.makeMove(Fen.readMove(move));
+            if (move.equals("f7f5")) {
+                Assertions.assertEquals("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 1", game.toFen());
+            }
+        }
+        // The rook has moved and the en passant chance is gone; nothing was captured or pushed since f7f5
+        Assertions.assertEquals("rnbqkb1r/ppp1p1pp/7n/3pPp2/8/7N/PPPP1PPP/RNBQKBR1 b Qkq - 3 1", game.toFen());
+    }
+
+    @Test
+    @DisplayName("Parsing tolerates extra whitespace and missing move counters")
+    public void lenientSpacing() {
+        ChessGame game = ChessGame.fromFen("  rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR\tb   KQkq  e3 \n");
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        Assertions.assertEquals(20, game.getBoard().getEnPassantSquare());
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+    }
+
+    @Test
+    @DisplayName("Positions parse straight from bytes")
+    public void parsesBytes() {
+        byte[] lines = ("junk\n" + Fen.STARTING_POSITION + "\n").getBytes(StandardCharsets.US_ASCII);
+        ChessGame game = Fen.parse(lines, 5, Fen.STARTING_POSITION.length());
+        Assertions.assertEquals(new ChessGame(), game);
+        Assertions.assertEquals(Fen.STARTING_POSITION, game.toFen());
+    }
+
+    @ParameterizedTest
+    @DisplayName("Malformed positions are rejected")
+    @ValueSource(strings = {
+            "",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR/8 w KQkq - 0 1",
+            "rnbqkbnr/ppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "rnbqkbnr/ppppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR wb KQkq - 0 1",
+            "rnbqkbn1/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkx - 0 1",
+            "4k3/8/8/8/8/8/8/r3K2r w K - 0 1",
+            "4K3/8/8/8/8/8/8/R3k2R w K - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e9 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e3x 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - -1 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+    })
+    public void rejectsMalformed(String fen) {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen));
+    }
+}
@@ -0,0 +1,41 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class GameStatusTest {
+
+    private static final String QUIET = "8/8/8/8/8/8/R7/K6k w - - %d 1";
+
+    @Test
+    @DisplayName("The fifty-move rule is only claimable; seventy-five moves end the game")
+    public void seventyFiveMoveRule() {
+        for (int clock : new int[]{99, 100, 149}) {
+            ChessGame game = ChessGame.fromFen(QUIET.formatted(clock));
+            Assertions.assertEquals(ChessGame.GameStatus.NORMAL, game.evaluateStatus());
+            Assertions.assertFalse(game.evaluateStatus().isGameOver());
+        }
+        ChessGame game = ChessGame.fromFen(QUIET.formatted(150));
+        Assertions.assertEquals(ChessGame.GameStatus.DRAW_SEVENTY_FIVE_MOVES, game.evaluateStatus());
+        Assertions.assertTrue(game.evaluateStatus().isGameOver());
+    }
+
+    @Test
+    @DisplayName("Mate on the last move before the draw still counts")
+    public void mateBeatsSeventyFiveMoves() {
+        ChessGame game = ChessGame.fromFen("R5k1/5ppp/8/8/8/8/8/6K1 b - - 150 1");
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.evaluateStatus());
+    }
+
+    @Test
+    @DisplayName("A cached status is not reused once the halfmove clock changes")
+    public void cacheFollowsClock() {
+        ChessGame game = ChessGame.fromFen(QUIET.formatted(149));
+        Assertions.assertEquals(ChessGame.GameStatus.NORMAL, game.evaluateStatus());
+        game.setHalfmoveClock(150);
+        Assertions.assertEquals(ChessGame.GameStatus.DRAW_SEVENTY_FIVE_MOVES, game.evaluateStatus());
+        game.setHalfmoveClock(3);
+        Assertions.assertEquals(ChessGame.GameStatus.NORMAL, game.evaluateStatus());
+    }
+}
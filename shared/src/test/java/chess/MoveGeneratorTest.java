@@ -0,0 +1,67 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class MoveGeneratorTest {
+
+    static Stream<String> perft() {
+        return Positions.perft();
+    }
+
+    @ParameterizedTest
+    @DisplayName("Generated moves are the piece moves that do not leave the king in check")
+    @MethodSource("perft")
+    public void matchesFilteredPieceMoves(String fen) {
+        ChessGame game = Fen.parse(fen);
+        MoveList moves = new MoveList();
+        Positions.walk(game.getBoard(), game.getTeamTurn(), 2, (board, side) -> {
+            moves.clear();
+            MoveGenerator.generate(board, side, moves);
+            Set<ChessMove> generated = new HashSet<>();
+            for (int i = 0; i < moves.size(); i++) {
+                generated.add(Move.toChessMove(moves.get(i)));
+            }
+            Assertions.assertEquals(moves.size(), generated.size(), () -> fen + ": duplicate moves");
+            Assertions.assertEquals(referenceMoves(board, side), generated, () -> fen + " then " + board);
+        });
+    }
+
+    private static Set<ChessMove> referenceMoves(ChessBoard board, ChessGame.TeamColor side) {
+        Set<ChessMove> candidates = new HashSet<>();
+        for (ChessPosition position : board.getTeamPositions(side)) {
+            ChessPiece piece = board.getPiece(position);
+            candidates.addAll(piece.pieceMoves(board, position));
+
+            // pieceMoves leaves en passant to the game, which knows the last move
+            int enPassant = board.getEnPassantSquare();
+            if (piece.getPieceType() == ChessPiece.PieceType.PAWN && enPassant >= 0) {
+                ChessPosition target = ChessBoard.toPosition(enPassant);
+                int forward = side == ChessGame.TeamColor.WHITE ? 1 : -1;
+                if (target.getRow() == position.getRow() + forward
+                        && Math.abs(target.getColumn() - position.getColumn()) == 1) {
+                    candidates.add(ChessMove.of(position, target, null));
+                }
+            }
+        }
+
+        ChessGame.TeamColor other = side == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        Set<ChessMove> legal = new HashSet<>();
+        for (ChessMove move : candidates) {
+            ChessBoard after = board.copy();
+            after.makeMove(move);
+            int king = after.getKingSquare(side);
+            if (king < 0 || !after.isSquareAttacked(king, other)) {
+                legal.add(move);
+            }
+        }
+        return legal;
+    }
+}
@@ -0,0 +1,63 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Map;
+
+public class PerftTest {
+
+    @ParameterizedTest(name = "{0} depth {2}")
+    @DisplayName("Standard perft positions")
+    @CsvSource(delimiter = '|', value = {
+            "Starting position | rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 | 5 | 4865609",
+            "Kiwipete | r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1 | 4 | 4085603",
+            "Position 3 | 8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1 | 6 | 11030083",
+            "Position 4 | r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1 | 5 | 15833292",
+            "Position 5 | rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8 | 4 | 2103487",
+            "Position 6 | r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10 | 4 | 3894594",
+            "En passant discovers check | 8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1 | 6 | 1440467",
+            "Pinned en passant | 3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1 | 6 | 1134888",
+            "Short castling only | 5k2/8/8/8/8/8/8/4K2R w K - 0 1 | 6 | 661072",
+            "Long castling only | 3k4/8/8/8/8/8/8/R3K3 w Q - 0 1 | 6 | 803711",
+            "Castling through attacks | r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1 | 4 | 1274206",
+            "Castling into check | r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1 | 4 | 1720476",
+            "Promotion out of check | 2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1 | 6 | 3821001",
+            "Under promotion | 8/P1k5/K7/8/8/8/8/8 w - - 0 1 | 6 | 92683",
+    })
+    public void standardPositions(String name, String fen, int depth, long expected) {
+        long start = System.nanoTime();
+        long nodes = Perft.run(Fen.parse(fen), depth);
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+
+        Assertions.assertEquals(expected, nodes, "Wrong node count for " + name + " at depth " + depth);
+        System.out.printf("%s depth %d: %,d nodes, %,d nps%n", name, depth, nodes, nodes * 1_000_000_000L / elapsed);
+    }
+
+    @Test
+    @DisplayName("Divide adds up to the full count")
+    public void divideMatchesRun() {
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+
+        Map<ChessMove, Long> divide = Perft.divide(game, 3);
+
+        Assertions.assertEquals(48, divide.size(), "Kiwipete has 48 legal root moves");
+        Assertions.assertEquals(97862L, divide.values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertEquals(2039L, Perft.divide(game, 2).values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    @DisplayName("Perft leaves the game untouched")
+    public void runDoesNotModifyGame() {
+        ChessGame game = Fen.parse(Fen.STARTING_POSITION);
+        long key = game.positionKey();
+
+        Perft.run(game, 3);
+
+        Assertions.assertEquals(key, game.positionKey());
+        Assertions.assertEquals(new ChessGame(), game, "Parsed starting position should match a new game");
+    }
+}
@@ -0,0 +1,70 @@
+package chess;
+
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Positions and a tree walk shared by the board tests. The FENs are the perft
+ * positions, which between them reach every special move: castling on both
+ * sides, castling rights lost to rook captures, en passant and promotions.
+ */
+final class Positions {
+
+    private static final String[] PERFT = {
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1",
+            "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1",
+            "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1",
+            "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1",
+    };
+
+    private Positions() {}
+
+    static Stream<String> perft() {
+        return Stream.of(PERFT);
+    }
+
+    /**
+     * Calls the visitor with every position reached by playing legal moves
+     * from the board, up to depth plies deep, and the position itself. Moves
+     * are made and taken back on the board, so the visitor sees it as it is
+     * mid-walk and must leave it as it found it.
+     */
+    static void walk(ChessBoard board, ChessGame.TeamColor side, int depth,
+                     BiConsumer<ChessBoard, ChessGame.TeamColor> visitor) {
+        visitor.accept(board, side);
+        if (depth == 0) {
+            return;
+        }
+        MoveList moves = new MoveList();
+        MoveGenerator.generate(board, side, moves);
+        ChessGame.TeamColor other = side == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        for (int i = 0; i < moves.size(); i++) {
+            MoveUndo undo = board.makeMove(Move.toChessMove(moves.get(i)));
+            walk(board, other, depth - 1, visitor);
+            board.unmakeMove(undo);
+        }
+    }
+
+    /**
+     * @return a board holding copies of the board's pieces, whose masks and
+     * key are built from scratch rather than updated move by move
+     */
+    static ChessBoard rebuilt(ChessBoard board) {
+        ChessBoard fresh = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.pieceAt(square);
+            if (piece != null) {
+                fresh.addPiece(ChessBoard.toPosition(square), new ChessPiece(piece));
+            }
+        }
+        fresh.setEnPassantSquare(board.getEnPassantSquare());
+        return fresh;
+    }
+}
@@ -0,0 +1,97 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+public class ZobristTest {
+
+    static Stream<String> perft() {
+        return Positions.perft();
+    }
+
+    @ParameterizedTest
+    @DisplayName("Incremental keys match keys computed from scratch")
+    @MethodSource("perft")
+    public void incrementalMatchesScratch(String fen) {
+        ChessGame game = Fen.parse(fen);
+        Positions.walk(game.getBoard(), game.getTeamTurn(), 3, (board, side) -> {
+            long scratch = Positions.rebuilt(board).getZobristKey();
+            Assertions.assertEquals(scratch, board.getZobristKey(), () -> fen + " then " + board);
+        });
+    }
+
+    @Test
+    @DisplayName("Walks cover en passant squares and lost castling rights")
+    public void walksCoverSpecialKeys() {
+        int[] seen = new int[2];
+        ChessGame kiwipete = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Positions.walk(kiwipete.getBoard(), kiwipete.getTeamTurn(), 2, (board, side) -> {
+            if (canCaptureEnPassant(board, side)) {
+                seen[0]++;
+            }
+            if (board.getCastlingRights() != 0xF) {
+                seen[1]++;
+            }
+        });
+        Assertions.assertTrue(seen[0] > 0, "No capturable en passant square reached");
+        Assertions.assertTrue(seen[1] > 0, "No castling right lost");
+    }
+
+    @Test
+    @DisplayName("Keys change with castling rights, en passant and the side to move")
+    public void keyParts() throws InvalidMoveException {
+        long start = Fen.parse(Fen.STARTING_POSITION).positionKey();
+        Assertions.assertNotEquals(start,
+                Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w Kkq - 0 1").positionKey());
+        Assertions.assertNotEquals(start,
+                Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b KQkq - 0 1").positionKey());
+
+        // The e3 square only matters once a black pawn could take on it
+        Assertions.assertEquals(
+                Fen.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1").positionKey(),
+                Fen.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1").positionKey());
+        Assertions.assertNotEquals(
+                Fen.parse("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1").positionKey(),
+                Fen.parse("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1").positionKey());
+
+        // Knights out and back transpose to the start, but a king that went out and back cannot castle
+        ChessGame game = new ChessGame();
+        play(game, "g1f3 g8f6 f3g1 f6g8");
+        Assertions.assertEquals(start, game.positionKey());
+        play(game, "e2e4 e7e5 e1e2 e8e7 e2e1 e7e8");
+        Assertions.assertEquals(
+                Fen.parse("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w - - 0 1").positionKey(),
+                game.positionKey());
+    }
+
+    // Whether one of the side's pawns stands next to the pawn that just made a double push
+    private static boolean canCaptureEnPassant(ChessBoard board, ChessGame.TeamColor side) {
+        int enPassant = board.getEnPassantSquare();
+        if (enPassant < 0) {
+            return false;
+        }
+        int row = enPassant / 8 + (side == ChessGame.TeamColor.WHITE ? -1 : 1);
+        for (int col = enPassant % 8 - 1; col <= enPassant % 8 + 1; col += 2) {
+            ChessPiece piece = col < 0 || col > 7 ? null : board.pieceAt(row * 8 + col);
+            if (piece != null && piece.getTeamColor() == side && piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void play(ChessGame game, String moves) throws InvalidMoveException {
+        for (String move : moves.split(" ")) {
+            game.makeMove(new ChessMove(square(move, 0), square(move, 2), null));
+        }
+    }
+
+    private static ChessPosition square(String move, int at) {
+        return new ChessPosition(move.charAt(at + 1) - '0', move.charAt(at) - 'a' + 1);
+    }
+}
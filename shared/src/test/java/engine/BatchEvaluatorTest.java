@@ -0,0 +1,101 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+import chess.MoveUndo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class BatchEvaluatorTest {
+
+    private static final String[] STARTS = {
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    };
+
+    // Every position of some random games, with a count that is not a whole number of vectors
+    private static final List<ChessBoard> boards = new ArrayList<>();
+    private static final List<ChessGame.TeamColor> sides = new ArrayList<>();
+
+    @BeforeAll
+    public static void playGames() {
+        SplittableRandom random = new SplittableRandom(20);
+        MoveList moves = new MoveList();
+        MoveUndo undo = new MoveUndo();
+        while (boards.size() < 1003) {
+            ChessGame game = Fen.parse(STARTS[boards.size() % STARTS.length]);
+            ChessBoard board = game.getBoard().copy();
+            ChessGame.TeamColor side = game.getTeamTurn();
+            for (int ply = 0; ply < 120 && boards.size() < 1003; ply++) {
+                boards.add(board.copy());
+                sides.add(side);
+                moves.clear();
+                MoveGenerator.generate(board, side, moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                board.makeMove(Move.toChessMove(moves.get(random.nextInt(moves.size()))), undo);
+                side = side == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            }
+        }
+    }
+
+    private static PositionBatch batch() {
+        PositionBatch batch = new PositionBatch(boards.size());
+        for (int i = 0; i < boards.size(); i++) {
+            Assertions.assertEquals(i, batch.add(boards.get(i), sides.get(i)));
+        }
+        return batch;
+    }
+
+    @ParameterizedTest
+    @DisplayName("Batch scores match the tapered evaluator")
+    @ValueSource(booleans = {false, true})
+    public void matchesTaperedEvaluator(boolean vector) {
+        Assumptions.assumeTrue(!vector || NnueEvaluator.vectorApiAvailable());
+        int[] scores = new BatchEvaluator(vector).evaluate(batch());
+
+        TaperedEvaluator reference = new TaperedEvaluator();
+        for (int i = 0; i < boards.size(); i++) {
+            Assertions.assertEquals(reference.evaluate(boards.get(i), sides.get(i)), scores[i], "Position " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("Vector API scores match the scalar reference")
+    public void vectorMatchesScalar() {
+        Assumptions.assumeTrue(NnueEvaluator.vectorApiAvailable(), "Needs --add-modules jdk.incubator.vector");
+        PositionBatch batch = batch();
+        Assertions.assertArrayEquals(new BatchEvaluator(false).evaluate(batch), new BatchEvaluator(true).evaluate(batch));
+    }
+
+    @Test
+    @DisplayName("Batches can be cleared and refilled")
+    public void reuse() {
+        PositionBatch batch = new PositionBatch(2);
+        batch.add(Fen.parse(STARTS[1]));
+        batch.add(Fen.parse(STARTS[2]));
+        Assertions.assertTrue(batch.isFull());
+        Assertions.assertThrows(IllegalStateException.class, () -> batch.add(Fen.parse(STARTS[0])));
+
+        batch.clear();
+        batch.add(Fen.parse("4k3/8/8/8/8/8/8/4K2R b K - 0 1"));
+        int[] scores = new BatchEvaluator().evaluate(batch);
+        Assertions.assertEquals(1, scores.length);
+        Assertions.assertTrue(scores[0] < -400);
+    }
+}
@@ -0,0 +1,169 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class EngineTest {
+
+    private final Engine engine = new Engine();
+
+    @Test
+    @DisplayName("Finds a back rank mate")
+    public void mateInOne() {
+        SearchResult result = engine.search(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), Limits.depth(4));
+
+        Assertions.assertEquals(ChessMove.of(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null), result.bestMove());
+        Assertions.assertTrue(result.isMate());
+        Assertions.assertEquals(1, Score.mateInMoves(result.score()));
+    }
+
+    @Test
+    @DisplayName("Finds a mate in two")
+    public void mateInTwo() {
+        SearchResult result = engine.search(Fen.parse("kbK5/pp6/1P6/8/8/8/8/R7 w - - 0 1"), Limits.depth(6));
+
+        Assertions.assertEquals(ChessMove.of(ChessPosition.of(1, 1), ChessPosition.of(6, 1), null), result.bestMove());
+        Assertions.assertEquals(2, Score.mateInMoves(result.score()));
+    }
+
+    @Test
+    @DisplayName("Takes a hanging queen")
+    public void winsMaterial() {
+        SearchResult result = engine.search(Fen.parse("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1"), Limits.depth(3));
+
+        Assertions.assertEquals(ChessMove.of(ChessPosition.of(2, 4), ChessPosition.of(5, 4), null), result.bestMove());
+        Assertions.assertTrue(result.score() > 300, "Winning a queen for a rook should score well");
+    }
+
+    @Test
+    @DisplayName("Promotes to a queen")
+    public void promotes() {
+        SearchResult result = engine.search(Fen.parse("8/4P3/5k2/8/8/8/8/K7 w - - 0 1"), Limits.depth(3));
+
+        Assertions.assertEquals(ChessPiece.PieceType.QUEEN, result.bestMove().getPromotionPiece());
+    }
+
+    @Test
+    @DisplayName("No move when the game is over")
+    public void noLegalMoves() {
+        SearchResult mated = engine.search(Fen.parse("8/8/8/8/8/5k2/8/5K1q w - - 0 1"), Limits.depth(3));
+        SearchResult stalemate = engine.search(Fen.parse("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"), Limits.depth(3));
+
+        Assertions.assertNull(mated.bestMove());
+        Assertions.assertEquals(-Score.MATE, mated.score());
+        Assertions.assertNull(stalemate.bestMove());
+        Assertions.assertEquals(Score.DRAW, stalemate.score());
+    }
+
+    @Test
+    @DisplayName("Principal variation is playable")
+    public void principalVariationIsLegal() throws InvalidMoveException {
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+
+        SearchResult result = engine.search(game, Limits.depth(4));
+
+        Assertions.assertEquals(4, result.depth());
+        Assertions.assertFalse(result.principalVariation().isEmpty());
+        Assertions.assertEquals(result.bestMove(), result.principalVariation().get(0));
+        for (ChessMove move : result.principalVariation()) {
+            game.makeMove(move);
+        }
+    }
+
+    @Test
+    @DisplayName("Stops at the node limit")
+    public void nodeLimit() {
+        SearchResult result = engine.search(Fen.parse(Fen.STARTING_POSITION), Limits.nodes(20_000));
+
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(result.nodes() <= 20_000, "Visited " + result.nodes() + " nodes");
+    }
+
+    @Test
+    @DisplayName("Stops at the time limit")
+    public void timeLimit() {
+        SearchResult result = engine.search(Fen.parse(Fen.STARTING_POSITION), Limits.time(200));
+
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(result.timeMillis() < 400, "Took " + result.timeMillis() + " ms");
+    }
+
+    @Test
+    @DisplayName("Search leaves the game untouched")
+    public void doesNotModifyGame() {
+        ChessGame game = Fen.parse(Fen.STARTING_POSITION);
+
+        engine.search(game, Limits.depth(4));
+
+        Assertions.assertEquals(new ChessGame(), game);
+    }
+
+    @Test
+    @DisplayName("Parallel search agrees on a forced mate")
+    public void parallelSearch() {
+        try (Engine parallel = new Engine(MaterialEvaluator::new, new TranspositionTable(4), 4)) {
+            SearchResult result = parallel.search(Fen.parse("kbK5/pp6/1P6/8/8/8/8/R7 w - - 0 1"), Limits.depth(6));
+
+            Assertions.assertEquals(ChessMove.of(ChessPosition.of(1, 1), ChessPosition.of(6, 1), null), result.bestMove());
+            Assertions.assertEquals(2, Score.mateInMoves(result.score()));
+        }
+    }
+
+    @Test
+    @DisplayName("Stop ends a parallel search promptly")
+    public void stopSignal() throws InterruptedException {
+        try (Engine parallel = new Engine(MaterialEvaluator::new, new TranspositionTable(4), 3)) {
+            ChessGame game = Fen.parse(Fen.STARTING_POSITION);
+            SearchResult[] result = new SearchResult[1];
+            Thread searcher = new Thread(() -> result[0] = parallel.search(game, Limits.depth(Limits.MAX_DEPTH)));
+            searcher.start();
+
+            Thread.sleep(200);
+            long stopped = System.nanoTime();
+            parallel.stop();
+            searcher.join(1000);
+
+            Assertions.assertFalse(searcher.isAlive(), "Search ignored the stop signal");
+            Assertions.assertTrue(System.nanoTime() - stopped < 100_000_000L, "Search took too long to stop");
+            Assertions.assertNotNull(result[0].bestMove());
+        }
+    }
+
+    @Test
+    @DisplayName("A failing main thread stops the helpers")
+    public void mainThreadFailure() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        AtomicLong helperEvaluations = new AtomicLong();
+        Supplier<Evaluator> evaluators = () -> {
+            MaterialEvaluator material = new MaterialEvaluator();
+            boolean main = created.getAndIncrement() == 0;
+            return (board, side) -> {
+                if (main) {
+                    throw new IllegalStateException("Evaluator failed");
+                }
+                helperEvaluations.incrementAndGet();
+                return material.evaluate(board, side);
+            };
+        };
+        try (Engine parallel = new Engine(evaluators, new TranspositionTable(4), 3)) {
+            ChessGame game = Fen.parse(Fen.STARTING_POSITION);
+            Assertions.assertThrows(IllegalStateException.class,
+                    () -> parallel.search(game, Limits.depth(Limits.MAX_DEPTH)));
+
+            long evaluations = helperEvaluations.get();
+            Thread.sleep(100);
+            Assertions.assertEquals(evaluations, helperEvaluations.get(), "Helpers kept searching");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+import chess.MoveUndo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class NnueEvaluatorTest {
+
+    private static final String[] POSITIONS = {
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    };
+
+    // Small enough to build quickly; sizes that are not whole vectors exercise the remainder loops
+    private static NnueNetwork network;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    public static void makeNetwork() {
+        network = NnueNetwork.random(240, 40, 12, 9);
+    }
+
+    private static int evaluate(NnueEvaluator evaluator, String fen) {
+        ChessGame game = Fen.parse(fen);
+        return evaluator.evaluate(game.getBoard(), game.getTeamTurn());
+    }
+
+    private static int walk(NnueEvaluator tracking, NnueEvaluator fresh, ChessBoard board,
+                            ChessGame.TeamColor side, int depth) {
+        Assertions.assertEquals(fresh.evaluate(board, side), tracking.evaluate(board, side), "Accumulator drifted");
+        if (depth == 0) {
+            return 1;
+        }
+
+        MoveList moves = new MoveList();
+        MoveGenerator.generate(board, side, moves);
+        ChessGame.TeamColor opponent = side == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        int positions = 1;
+        MoveUndo undo = new MoveUndo();
+        for (int i = 0; i < moves.size(); i++) {
+            tracking.makeMove(board, moves.get(i));
+            board.makeMove(Move.toChessMove(moves.get(i)), undo);
+            positions += walk(tracking, fresh, board, opponent, depth - 1);
+            board.unmakeMove(undo);
+            tracking.unmakeMove();
+        }
+        return positions;
+    }
+
+    @ParameterizedTest
+    @DisplayName("Incremental accumulators match rebuilding from scratch")
+    @ValueSource(booleans = {false, true})
+    public void incrementalMatchesRefresh(boolean vector) {
+        Assumptions.assumeTrue(!vector || NnueEvaluator.vectorApiAvailable());
+        for (String fen : POSITIONS) {
+            ChessGame game = Fen.parse(fen);
+            ChessBoard board = game.getBoard().copy();
+            NnueEvaluator tracking = new NnueEvaluator(network, vector);
+            tracking.setPosition(board);
+
+            Assertions.assertTrue(walk(tracking, new NnueEvaluator(network, vector), board, game.getTeamTurn(), 3) > 500);
+        }
+    }
+
+    @Test
+    @DisplayName("Vector API kernels give the same scores as the scalar ones")
+    public void vectorMatchesScalar() {
+        Assumptions.assumeTrue(NnueEvaluator.vectorApiAvailable(), "Needs --add-modules jdk.incubator.vector");
+        NnueEvaluator scalar = new NnueEvaluator(network, false);
+        NnueEvaluator vector = new NnueEvaluator(network, true);
+        NnueNetwork wide = NnueNetwork.random(7, 256, 32, 32);
+
+        for (String fen : POSITIONS) {
+            Assertions.assertEquals(evaluate(scalar, fen), evaluate(vector, fen), fen);
+            Assertions.assertEquals(evaluate(new NnueEvaluator(wide, false), fen),
+                    evaluate(new NnueEvaluator(wide, true), fen), fen);
+        }
+    }
+
+    @Test
+    @DisplayName("Colour mirrored positions score the same for the side to move")
+    public void symmetry() {
+        NnueEvaluator evaluator = new NnueEvaluator(network);
+        Assertions.assertEquals(evaluate(evaluator, "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3"),
+                evaluate(evaluator, "rnbqkb1r/pppp1ppp/5n2/4p3/4P3/2N5/PPPP1PPP/R1BQKBNR b KQkq - 2 3"));
+    }
+
+    @Test
+    @DisplayName("Networks load back from file unchanged")
+    public void saveAndLoad() throws IOException {
+        Path path = directory.resolve("test.nnue");
+        network.save(path);
+        NnueNetwork loaded = NnueNetwork.load(path);
+
+        for (String fen : POSITIONS) {
+            Assertions.assertEquals(evaluate(new NnueEvaluator(network), fen), evaluate(new NnueEvaluator(loaded), fen));
+        }
+
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        Assertions.assertThrows(IOException.class, () -> NnueNetwork.load(path), "Truncated file");
+        Files.write(path, new byte[64]);
+        Assertions.assertThrows(IOException.class, () -> NnueNetwork.load(path), "Wrong magic number");
+    }
+
+    @Test
+    @DisplayName("The engine searches with the network")
+    public void searchesWithEngine() {
+        try (Engine engine = new Engine(new NnueEvaluator(network))) {
+            SearchResult result = engine.search(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), Limits.depth(3));
+            Assertions.assertEquals(1, Score.mateInMoves(result.score()));
+        }
+    }
+}
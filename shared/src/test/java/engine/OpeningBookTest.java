@@ -0,0 +1,228 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class OpeningBookTest {
+
+    // Any table works for testing; real books need Polyglot's own Random64 numbers
+    private static long[] randoms;
+    private static PolyglotKeys keys;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    public static void makeKeys() {
+        SplittableRandom random = new SplittableRandom(781);
+        randoms = new long[PolyglotKeys.SIZE];
+        for (int i = 0; i < randoms.length; i++) {
+            randoms[i] = random.nextLong();
+        }
+        keys = new PolyglotKeys(randoms);
+    }
+
+    // Polyglot move encoding for squares like "e2"
+    private static int move(String from, String to, int promotion) {
+        return square(to) | square(from) << 6 | promotion << 12;
+    }
+
+    private static int square(String name) {
+        return (name.charAt(1) - '1') << 3 | (name.charAt(0) - 'a');
+    }
+
+    private Path writeBook(long[] entryKeys, int[] moves, int[] weights) throws IOException {
+        Integer[] order = new Integer[entryKeys.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Long.compareUnsigned(entryKeys[a], entryKeys[b]));
+
+        ByteBuffer bytes = ByteBuffer.allocate(entryKeys.length * 16);
+        for (int i : order) {
+            bytes.putLong(entryKeys[i]).putShort((short) moves[i]).putShort((short) weights[i]).putInt(0);
+        }
+        Path path = directory.resolve("book.bin");
+        Files.write(path, bytes.array());
+        return path;
+    }
+
+    @Test
+    @DisplayName("Keys follow the Polyglot layout")
+    public void keyLayout() {
+        // White king a1 is white king key 0, black king h1 is black king key 7
+        ChessGame kings = Fen.parse("8/8/8/8/8/8/8/K6k w - - 0 1");
+        Assertions.assertEquals(randoms[704] ^ randoms[647] ^ randoms[780], keys.key(kings));
+
+        ChessGame start = Fen.parse(Fen.STARTING_POSITION);
+        ChessGame noCastling = Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1");
+        Assertions.assertEquals(randoms[768] ^ randoms[769] ^ randoms[770] ^ randoms[771],
+                keys.key(start) ^ keys.key(noCastling));
+    }
+
+    @Test
+    @DisplayName("En passant counts only when a pawn can capture")
+    public void enPassantKey() {
+        long withSquare = keys.key(Fen.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1"));
+        long without = keys.key(Fen.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1"));
+        Assertions.assertEquals(without, withSquare);
+
+        long capturable = keys.key(Fen.parse("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1"));
+        long notMarked = keys.key(Fen.parse("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1"));
+        Assertions.assertEquals(randoms[772 + 4], capturable ^ notMarked);
+    }
+
+    @Test
+    @DisplayName("Key tables load from Polyglot's C source format")
+    public void loadKeys() throws IOException {
+        StringBuilder source = new StringBuilder();
+        for (long random : randoms) {
+            source.append(String.format("   0x%016XULL,%n", random));
+        }
+        Path path = directory.resolve("random64.txt");
+        Files.writeString(path, source);
+
+        ChessGame start = Fen.parse(Fen.STARTING_POSITION);
+        Assertions.assertEquals(keys.key(start), PolyglotKeys.load(path).key(start));
+
+        Files.writeString(path, "0x1234ULL, 0x5678ULL");
+        Assertions.assertThrows(IOException.class, () -> PolyglotKeys.load(path));
+    }
+
+    @ParameterizedTest
+    @DisplayName("The bundled table gives the keys from the Polyglot book format")
+    @CsvSource({
+            "'', 463b96181691fc9c",
+            "e2e4, 823c9b50fd114196",
+            "e2e4 d7d5, 0756b94461c50fb0",
+            "e2e4 d7d5 e4e5, 662fafb965db29d4",
+            "e2e4 d7d5 e4e5 f7f5, 22a48b5a8e47ff78",
+            "e2e4 d7d5 e4e5 f7f5 e1e2, 652a607ca3f242c1",
+            "e2e4 d7d5 e4e5 f7f5 e1e2 e8f7, 00fdd303c946bdd9",
+            "a2a4 b7b5 h2h4 b5b4 c2c4, 3c8123ea7b067637",
+            "a2a4 b7b5 h2h4 b5b4 c2c4 b4c3 a1a3, 5c3f9b829b279560",
+    })
+    public void standardKeys(String moves, String key) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String move : moves.split(" ")) {
+            if (!move.isEmpty()) {
+                game.makeMove(Fen.readMove(move));
+            }
+        }
+        Assertions.assertEquals(Long.parseUnsignedLong(key, 16), PolyglotKeys.standard().key(game));
+    }
+
+    @Test
+    @DisplayName("Lookups find the weighted moves for a position")
+    public void lookup() throws IOException {
+        ChessGame start = Fen.parse(Fen.STARTING_POSITION);
+        long startKey = keys.key(start);
+        int e4 = move("e2", "e4", 0);
+        int d4 = move("d2", "d4", 0);
+        int nf3 = move("g1", "f3", 0);
+        // Neighbours on either side, including a key above Long.MAX_VALUE
+        OpeningBook book = OpeningBook.open(writeBook(
+                new long[]{startKey, startKey - 1, startKey, startKey + 1, startKey, -1L},
+                new int[]{e4, nf3, d4, nf3, nf3, nf3},
+                new int[]{30, 99, 10, 99, 0, 99}), keys);
+
+        Assertions.assertEquals(6, book.size());
+        Assertions.assertEquals(e4, book.bestMove(startKey));
+        Assertions.assertEquals(e4, book.pickMove(startKey, 0));
+        Assertions.assertEquals(e4, book.pickMove(startKey, 29));
+        Assertions.assertEquals(d4, book.pickMove(startKey, 30));
+        Assertions.assertEquals(e4, book.pickMove(startKey, 40));
+        Assertions.assertEquals(OpeningBook.NO_MOVE, book.bestMove(keys.key(Fen.parse("8/8/8/8/8/8/8/K6k w - - 0 1"))));
+
+        ChessMove expected = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        Assertions.assertEquals(expected, book.bestMove(start));
+    }
+
+    @Test
+    @DisplayName("Book moves are checked and converted to the game's moves")
+    public void convertMoves() {
+        ChessGame castling = Fen.parse("r3k2r/pppppppp/8/8/8/8/PPPPPPPP/R3K2R w KQkq - 0 1");
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 7), null),
+                OpeningBook.toChessMove(castling, move("e1", "h1", 0)));
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 3), null),
+                OpeningBook.toChessMove(castling, move("e1", "a1", 0)));
+
+        ChessGame promotion = Fen.parse("8/P6k/8/8/8/8/8/K7 w - - 0 1");
+        Assertions.assertEquals(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1),
+                        ChessPiece.PieceType.KNIGHT),
+                OpeningBook.toChessMove(promotion, move("a7", "a8", 1)));
+
+        ChessGame start = Fen.parse(Fen.STARTING_POSITION);
+        Assertions.assertNull(OpeningBook.toChessMove(start, move("e2", "e5", 0)), "Not a legal move");
+        Assertions.assertNull(OpeningBook.toChessMove(start, move("e7", "e5", 0)), "Not white's piece");
+        Assertions.assertNull(OpeningBook.toChessMove(start, OpeningBook.NO_MOVE));
+    }
+
+    @Test
+    @DisplayName("Files that are not whole entries are rejected")
+    public void badFile() throws IOException {
+        Path path = directory.resolve("broken.bin");
+        Files.write(path, new byte[17]);
+        Assertions.assertThrows(IOException.class, () -> OpeningBook.open(path, keys));
+    }
+
+    @Test
+    @DisplayName("A large book gives the same answers as a linear scan")
+    public void largeBook() throws IOException {
+        SplittableRandom random = new SplittableRandom(17);
+        int entries = 5000;
+        long[] entryKeys = new long[entries];
+        int[] moves = new int[entries];
+        int[] weights = new int[entries];
+        for (int i = 0; i < entries; i++) {
+            // Few enough distinct keys that many positions have several moves
+            entryKeys[i] = random.nextLong(1500) * 0x9E37_79B9_7F4A_7C15L;
+            moves[i] = random.nextInt(1, 1 << 15);
+            weights[i] = random.nextInt(1, 1000);
+        }
+        OpeningBook book = OpeningBook.open(writeBook(entryKeys, moves, weights), keys);
+
+        for (int k = 0; k < 1500; k++) {
+            long key = k * 0x9E37_79B9_7F4A_7C15L;
+            List<Integer> candidates = new ArrayList<>();
+            int bestWeight = 0;
+            for (int i = 0; i < entries; i++) {
+                if (entryKeys[i] == key) {
+                    candidates.add(moves[i]);
+                    bestWeight = Math.max(bestWeight, weights[i]);
+                }
+            }
+            if (candidates.isEmpty()) {
+                Assertions.assertEquals(OpeningBook.NO_MOVE, book.bestMove(key));
+                continue;
+            }
+            int best = book.bestMove(key);
+            int bestIndex = -1;
+            for (int i = 0; i < entries; i++) {
+                if (entryKeys[i] == key && moves[i] == best && weights[i] == bestWeight) {
+                    bestIndex = i;
+                }
+            }
+            Assertions.assertNotEquals(-1, bestIndex, "Best move should carry the highest weight");
+            Assertions.assertTrue(candidates.contains(book.pickMove(key, random.nextLong())));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+import chess.MoveUndo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class TaperedEvaluatorTest {
+
+    private static int evaluate(String fen) {
+        ChessGame game = Fen.parse(fen);
+        return new TaperedEvaluator().evaluate(game.getBoard(), game.getTeamTurn());
+    }
+
+    // Plays every line to the given depth, checking the running totals against a fresh evaluation
+    private static int walk(TaperedEvaluator tracking, ChessBoard board, ChessGame.TeamColor side, int depth) {
+        int expected = new TaperedEvaluator().evaluate(board, side);
+        Assertions.assertEquals(expected, tracking.evaluate(board, side), "Incremental score drifted");
+        if (depth == 0) {
+            return 1;
+        }
+
+        MoveList moves = new MoveList();
+        MoveGenerator.generate(board, side, moves);
+        ChessGame.TeamColor opponent = side == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        int positions = 1;
+        MoveUndo undo = new MoveUndo();
+        for (int i = 0; i < moves.size(); i++) {
+            tracking.makeMove(board, moves.get(i));
+            board.makeMove(Move.toChessMove(moves.get(i)), undo);
+            positions += walk(tracking, board, opponent, depth - 1);
+            board.unmakeMove(undo);
+            tracking.unmakeMove();
+        }
+        return positions;
+    }
+
+    @ParameterizedTest
+    @DisplayName("Incremental updates match evaluating from scratch")
+    @ValueSource(strings = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    })
+    public void incrementalMatchesScratch(String fen) {
+        ChessGame game = Fen.parse(fen);
+        ChessBoard board = game.getBoard().copy();
+        TaperedEvaluator tracking = new TaperedEvaluator();
+        tracking.setPosition(board);
+
+        Assertions.assertTrue(walk(tracking, board, game.getTeamTurn(), 3) > 1000);
+    }
+
+    @Test
+    @DisplayName("Mirrored positions score the same for the side to move")
+    public void symmetry() {
+        Assertions.assertEquals(0, evaluate(Fen.STARTING_POSITION));
+        Assertions.assertEquals(evaluate("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3"),
+                evaluate("rnbqkb1r/pppp1ppp/5n2/4p3/4P3/2N5/PPPP1PPP/R1BQKBNR b KQkq - 2 3"));
+    }
+
+    @Test
+    @DisplayName("Kings belong in the centre once the pieces are gone")
+    public void kingPlacementTapers() {
+        // With every piece on the board the king is safer at home; without pieces it should come out
+        Assertions.assertTrue(evaluate(Fen.STARTING_POSITION)
+                > evaluate("rnbqkbnr/pppppppp/8/8/8/4K3/PPPPPPPP/RNBQ1BNR w kq - 0 1"));
+        Assertions.assertTrue(evaluate("4k3/pppp4/8/8/4K3/8/PPPP4/8 w - - 0 1")
+                > evaluate("4k3/pppp4/8/8/8/8/PPPP4/4K3 w - - 0 1"));
+    }
+
+    @Test
+    @DisplayName("Pawn structure terms")
+    public void pawnStructure() {
+        // A passed pawn is worth more than the same pawn blocked by an enemy pawn on the next file
+        Assertions.assertTrue(evaluate("4k3/8/8/3P4/8/8/8/4K3 w - - 0 1")
+                > evaluate("4k3/2p5/8/3P4/8/8/8/4K3 w - - 0 1") + 100);
+        // Doubled and isolated pawns cost more than the extra pawn's table bonus
+        Assertions.assertTrue(evaluate("4k3/8/8/8/8/8/1PP5/4K3 w - - 0 1")
+                > evaluate("4k3/8/8/8/8/2P5/2P5/4K3 w - - 0 1"));
+    }
+
+    @Test
+    @DisplayName("Searching with the tapered evaluator finds the same mates")
+    public void searchesWithEngine() {
+        try (Engine engine = new Engine(new TaperedEvaluator())) {
+            SearchResult result = engine.search(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), Limits.depth(3));
+            Assertions.assertEquals(1, Score.mateInMoves(result.score()));
+        }
+    }
+}
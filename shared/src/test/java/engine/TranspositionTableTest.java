@@ -0,0 +1,114 @@
+package engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TranspositionTableTest {
+
+    @Test
+    @DisplayName("Stored entries come back unchanged")
+    public void storeAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+
+        table.store(0x1234_5678_9ABC_DEF0L, 0x0A1C, -250, 7, TranspositionTable.BOUND_LOWER);
+        long entry = table.probe(0x1234_5678_9ABC_DEF0L);
+
+        Assertions.assertNotEquals(TranspositionTable.MISS, entry);
+        Assertions.assertEquals(0x0A1C, TranspositionTable.move(entry));
+        Assertions.assertEquals(-250, TranspositionTable.score(entry));
+        Assertions.assertEquals(7, TranspositionTable.depth(entry));
+        Assertions.assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(entry));
+        Assertions.assertEquals(TranspositionTable.MISS, table.probe(0x0FED_CBA9_8765_4321L));
+    }
+
+    @Test
+    @DisplayName("A shallow result does not replace a deeper one")
+    public void depthPreferred() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x7777_0000_1111_2222L;
+
+        table.store(key, 1, 40, 10, TranspositionTable.BOUND_LOWER);
+        table.store(key, 2, 10, 3, TranspositionTable.BOUND_UPPER);
+        Assertions.assertEquals(10, TranspositionTable.depth(table.probe(key)));
+
+        table.newSearch();
+        table.store(key, 2, 10, 3, TranspositionTable.BOUND_UPPER);
+        Assertions.assertEquals(3, TranspositionTable.depth(table.probe(key)), "Results from an old search are stale");
+    }
+
+    @Test
+    @DisplayName("A position is updated in its own slot even after an empty one")
+    public void updatesMatchingSlot() {
+        TranspositionTable table = new TranspositionTable(1);
+        // The high bits pick the bucket, so these keys share one
+        long first = 0x4000_0000_0000_0001L;
+        long second = 0x4000_0000_0000_0002L;
+
+        table.store(first, 0, 0, 1, TranspositionTable.BOUND_NONE);
+        table.store(second, 7, 10, 4, TranspositionTable.BOUND_LOWER);
+        // All-zero data reads as an empty slot ahead of the second key's
+        table.store(first, 0, 0, 0, TranspositionTable.BOUND_NONE);
+        table.store(second, 7, 20, 3, TranspositionTable.BOUND_LOWER);
+
+        for (long key = 3; key <= 5; key++) {
+            table.store(0x4000_0000_0000_0000L | key, 1, 0, 8, TranspositionTable.BOUND_EXACT);
+        }
+        Assertions.assertEquals(20, TranspositionTable.score(table.probe(second)), "Stale copy of the entry was kept");
+        for (long key = 3; key <= 5; key++) {
+            Assertions.assertNotEquals(TranspositionTable.MISS, table.probe(0x4000_0000_0000_0000L | key));
+        }
+    }
+
+    @Test
+    @DisplayName("Mate scores are stored relative to the position")
+    public void mateScoresAdjusted() {
+        int mateFromRoot = Score.MATE - 9;
+
+        int stored = Score.toStored(mateFromRoot, 4);
+
+        Assertions.assertEquals(Score.MATE - 5, stored);
+        Assertions.assertEquals(Score.MATE - 7, Score.fromStored(stored, 2));
+        Assertions.assertEquals(120, Score.fromStored(Score.toStored(120, 6), 3));
+    }
+
+    @Test
+    @DisplayName("Concurrent writers never produce a mismatched entry")
+    public void lockless() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(1);
+        AtomicInteger corrupt = new AtomicInteger();
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long seed = t;
+            threads[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < 500_000; i++) {
+                    // Keys from a small pool so threads keep colliding on the same buckets
+                    long key = mix(random.nextInt(4096));
+                    table.store(key, (int) (key & 0xFFFF), (short) (key >>> 16), 1 + (int) ((key >>> 32) & 31),
+                            TranspositionTable.BOUND_EXACT);
+                    long entry = table.probe(key);
+                    if (entry != TranspositionTable.MISS && TranspositionTable.move(entry) != (int) (key & 0xFFFF)) {
+                        corrupt.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assertions.assertEquals(0, corrupt.get());
+    }
+
+    private static long mix(long value) {
+        long z = value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        return z ^ (z >>> 31);
+    }
+}
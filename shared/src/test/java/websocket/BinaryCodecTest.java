@@ -0,0 +1,147 @@
+package websocket;
+
+import chess.BinaryGame;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveAppliedMessage;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+import java.nio.ByteBuffer;
+
+public class BinaryCodecTest {
+
+    private static ChessGame decodeGame(byte[] frame) {
+        ServerMessage message = BinaryCodec.decodeServerMessage(ByteBuffer.wrap(frame));
+        Assertions.assertInstanceOf(LoadGameMessage.class, message);
+        return ((LoadGameMessage) message).getGame();
+    }
+
+    @ParameterizedTest
+    @DisplayName("Games decode to the position they were encoded from")
+    @ValueSource(strings = {
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 1",
+            "4k3/8/8/8/8/8/8/R3K2R b Q - 37 1",
+            "8/8/8/8/8/8/8/K6k w - - 0 1",
+            "8/8/8/8/8/8/8/K6k w - - 300 1",
+            "kqqqqqqq/qqqqqqqq/qqqqqqqq/qqqqqqqq/QQQQQQQQ/QQQQQQQQ/QQQQQQQQ/KQQQQQQQ w - - 0 1",
+    })
+    public void gameRoundTrip(String fen) {
+        ChessGame game = ChessGame.fromFen(fen);
+        byte[] frame = BinaryCodec.encode(new LoadGameMessage(game));
+        Assertions.assertEquals(1 + BinaryGame.size(game), frame.length);
+        Assertions.assertEquals(fen, decodeGame(frame).toFen());
+    }
+
+    @Test
+    @DisplayName("The starting position takes 29 bytes")
+    public void startingSize() {
+        Assertions.assertEquals(29, BinaryGame.toBytes(new ChessGame()).length);
+    }
+
+    @Test
+    @DisplayName("Halfmove clocks too large for two bytes are rejected, not cut short")
+    public void halfmoveClockRange() {
+        ChessGame game = ChessGame.fromFen("8/8/8/8/8/8/8/K6k w - - 65535 1");
+        Assertions.assertEquals(65535, decodeGame(BinaryCodec.encode(new LoadGameMessage(game))).getHalfmoveClock());
+        ChessGame tooLong = ChessGame.fromFen("8/8/8/8/8/8/8/K6k w - - 65536 1");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryGame.toBytes(tooLong));
+    }
+
+    @Test
+    @DisplayName("Castling rights need a king and rook of the right color")
+    public void castlingColors() {
+        byte[] frame = BinaryCodec.encode(new LoadGameMessage(ChessGame.fromFen("4k3/8/8/8/8/8/8/r3K2r w - - 0 1")));
+        frame[1] |= ChessBoard.CASTLE_WHITE_KINGSIDE << 1;
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeServerMessage(ByteBuffer.wrap(frame)));
+    }
+
+    @Test
+    @DisplayName("A decoded game plays on like the original")
+    public void decodedGamePlays() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String move : new String[]{"e2e4", "a7a5", "g1f3", "a8a6", "f1c4", "a5a4", "e1g1", "b7b6", "b2b4"}) {
+            game.makeMove(Fen.readMove(move));
+        }
+        ChessGame read = decodeGame(BinaryCodec.encode(new LoadGameMessage(game)));
+        Assertions.assertEquals(game, read);
+        Assertions.assertEquals(game.positionKey(), read.positionKey());
+        Assertions.assertEquals(game.getLastMove(), read.getLastMove());
+
+        ChessMove enPassant = Fen.readMove("a4b3");
+        game.makeMove(enPassant);
+        read.makeMove(enPassant);
+        Assertions.assertEquals(game, read);
+    }
+
+    @ParameterizedTest
+    @DisplayName("Moves fit in a three-byte frame")
+    @ValueSource(strings = {"e2e4", "a1h8", "h8a1", "b7b8q", "g2h1n", "e7e8r", "c2c1b"})
+    public void moveRoundTrip(String name) {
+        ChessMove move = Fen.readMove(name);
+        byte[] frame = BinaryCodec.encodeMakeMove(move);
+        Assertions.assertEquals(3, frame.length);
+        Assertions.assertEquals(move, BinaryCodec.decodeMakeMove(ByteBuffer.wrap(frame)));
+    }
+
+    @Test
+    @DisplayName("Move updates replay to the server's position")
+    public void moveApplied() throws InvalidMoveException {
+        ChessGame server = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        ChessGame client = decodeGame(BinaryCodec.encode(new LoadGameMessage(server)));
+
+        ChessMove castle = Fen.readMove("e1g1");
+        server.makeMove(castle);
+        byte[] frame = BinaryCodec.encode(new MoveAppliedMessage(castle, server.evaluateStatus(), server.positionKey()));
+        Assertions.assertEquals(12, frame.length);
+
+        MoveAppliedMessage update = (MoveAppliedMessage) BinaryCodec.decodeServerMessage(ByteBuffer.wrap(frame));
+        Assertions.assertEquals(castle, update.getMove());
+        Assertions.assertEquals(ChessGame.GameStatus.NORMAL, update.getStatus());
+        client.makeMove(update.getMove());
+        Assertions.assertEquals(update.getPositionKey(), client.positionKey());
+        Assertions.assertEquals(server, client);
+    }
+
+    @Test
+    @DisplayName("Text messages keep their type and text")
+    public void textMessages() {
+        ServerMessage error = BinaryCodec.decodeServerMessage(
+                ByteBuffer.wrap(BinaryCodec.encode(new ErrorMessage("Error: not your turn"))));
+        Assertions.assertEquals("Error: not your turn", ((ErrorMessage) error).getErrorMessage());
+
+        ServerMessage notification = BinaryCodec.decodeServerMessage(
+                ByteBuffer.wrap(BinaryCodec.encode(new NotificationMessage("Zoë moved e2 to e4"))));
+        Assertions.assertEquals("Zoë moved e2 to e4", ((NotificationMessage) notification).getMessage());
+    }
+
+    @Test
+    @DisplayName("Malformed frames are rejected")
+    public void rejectsMalformed() {
+        byte[] game = BinaryCodec.encode(new LoadGameMessage(new ChessGame()));
+        byte[] truncated = java.util.Arrays.copyOf(game, game.length - 3);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeServerMessage(ByteBuffer.wrap(truncated)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeServerMessage(ByteBuffer.wrap(new byte[0])));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeServerMessage(ByteBuffer.wrap(new byte[]{9})));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeMakeMove(ByteBuffer.wrap(new byte[]{BinaryCodec.MAKE_MOVE, 0, 0})));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeMakeMove(ByteBuffer.wrap(new byte[]{BinaryCodec.LOAD_GAME, 0, 12})));
+    }
+}
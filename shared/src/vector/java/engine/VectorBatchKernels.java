@@ -0,0 +1,47 @@
+package engine;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.function.ToIntBiFunction;
+
+/**
+ * {@link BatchEvaluator}'s loop with one position per lane. Each feature
+ * slot is a contiguous run of feature indices, which gather the lanes' table
+ * entries. Integer arithmetic, including the division, matches the scalar
+ * loop exactly.
+ */
+final class VectorBatchKernels implements ToIntBiFunction<PositionBatch, int[]> {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Scores whole vectors of positions from the start of the batch
+     *
+     * @return how many positions were scored; the rest are left to the caller
+     */
+    @Override
+    public int applyAsInt(PositionBatch batch, int[] scores) {
+        int fullPhase = TaperedEvaluator.FULL_PHASE;
+        int bound = INTS.loopBound(batch.size());
+        for (int position = 0; position < bound; position += INTS.length()) {
+            IntVector middle = IntVector.fromArray(INTS, batch.middlegame, position);
+            IntVector end = IntVector.fromArray(INTS, batch.endgame, position);
+            IntVector phase = IntVector.zero(INTS);
+            for (int slot = 0; slot < batch.slots; slot++) {
+                int offset = slot * batch.capacity + position;
+                middle = middle.add(IntVector.fromArray(INTS, BatchEvaluator.MIDDLEGAME, 0, batch.features, offset));
+                end = end.add(IntVector.fromArray(INTS, BatchEvaluator.ENDGAME, 0, batch.features, offset));
+                phase = phase.add(IntVector.fromArray(INTS, BatchEvaluator.PHASE, 0, batch.features, offset));
+            }
+            phase = phase.min(fullPhase);
+            middle.mul(phase)
+                    .add(end.mul(phase.neg().add(fullPhase)))
+                    .lanewise(VectorOperators.DIV, fullPhase)
+                    .mul(IntVector.fromArray(INTS, batch.signs, position))
+                    .intoArray(scores, position);
+        }
+        return bound;
+    }
+}
@@ -0,0 +1,111 @@
+package engine;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The NNUE kernels on the widest SIMD registers the CPU has, through the
+ * incubating Vector API. Each loop runs whole vectors and finishes any
+ * remainder with the scalar code. Results are identical to the scalar
+ * kernels: the arithmetic is all integer, so the order of the additions
+ * does not matter.
+ */
+final class VectorNnueKernels extends NnueKernels {
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    // As many shorts as INTS has ints, so a vector of products widens to one int vector
+    private static final VectorSpecies<Short> WIDENED_SHORTS =
+            VectorSpecies.of(short.class, VectorShape.forBitSize(INTS.vectorBitSize() / 2));
+
+    @Override
+    void add(short[] accumulator, int offset, short[] weights, int row, int length) {
+        int bound = SHORTS.loopBound(length);
+        for (int i = 0; i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, offset + i)
+                    .add(ShortVector.fromArray(SHORTS, weights, row + i))
+                    .intoArray(accumulator, offset + i);
+        }
+        super.add(accumulator, offset + bound, weights, row + bound, length - bound);
+    }
+
+    @Override
+    void subtract(short[] accumulator, int offset, short[] weights, int row, int length) {
+        int bound = SHORTS.loopBound(length);
+        for (int i = 0; i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, offset + i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, row + i))
+                    .intoArray(accumulator, offset + i);
+        }
+        super.subtract(accumulator, offset + bound, weights, row + bound, length - bound);
+    }
+
+    @Override
+    void clippedRelu(short[] accumulator, int offset, short[] out, int outOffset, int length, int max) {
+        int bound = SHORTS.loopBound(length);
+        for (int i = 0; i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, offset + i)
+                    .max((short) 0)
+                    .min((short) max)
+                    .intoArray(out, outOffset + i);
+        }
+        super.clippedRelu(accumulator, offset + bound, out, outOffset + bound, length - bound, max);
+    }
+
+    // Each input vector is loaded once for four rows. The products fit in
+    // shorts, since activations are at most 127 and weights are bytes, so
+    // they are multiplied as shorts and only widened to add them up; the
+    // four sums are reduced once each, when their rows are done
+    @Override
+    void dense(short[] input, int inOffset, int inputs, short[] weights, int[] sums, int outputs, int[] pairs) {
+        int bound = WIDENED_SHORTS.loopBound(inputs);
+        int n = 0;
+        for (; n + 4 <= outputs; n += 4) {
+            int row0 = n * inputs;
+            int row1 = row0 + inputs;
+            int row2 = row1 + inputs;
+            int row3 = row2 + inputs;
+            IntVector sum0 = IntVector.zero(INTS);
+            IntVector sum1 = IntVector.zero(INTS);
+            IntVector sum2 = IntVector.zero(INTS);
+            IntVector sum3 = IntVector.zero(INTS);
+            for (int i = 0; i < bound; i += WIDENED_SHORTS.length()) {
+                ShortVector x = ShortVector.fromArray(WIDENED_SHORTS, input, inOffset + i);
+                sum0 = sum0.add(product(x, weights, row0 + i));
+                sum1 = sum1.add(product(x, weights, row1 + i));
+                sum2 = sum2.add(product(x, weights, row2 + i));
+                sum3 = sum3.add(product(x, weights, row3 + i));
+            }
+            int rest = inputs - bound;
+            sums[n] = sum0.reduceLanes(VectorOperators.ADD)
+                    + super.dot(input, inOffset + bound, weights, row0 + bound, rest);
+            sums[n + 1] = sum1.reduceLanes(VectorOperators.ADD)
+                    + super.dot(input, inOffset + bound, weights, row1 + bound, rest);
+            sums[n + 2] = sum2.reduceLanes(VectorOperators.ADD)
+                    + super.dot(input, inOffset + bound, weights, row2 + bound, rest);
+            sums[n + 3] = sum3.reduceLanes(VectorOperators.ADD)
+                    + super.dot(input, inOffset + bound, weights, row3 + bound, rest);
+        }
+        for (; n < outputs; n++) {
+            sums[n] = dot(input, inOffset, weights, n * inputs, inputs);
+        }
+    }
+
+    @Override
+    int dot(short[] a, int aOffset, short[] b, int bOffset, int length) {
+        int bound = WIDENED_SHORTS.loopBound(length);
+        IntVector sum = IntVector.zero(INTS);
+        for (int i = 0; i < bound; i += WIDENED_SHORTS.length()) {
+            sum = sum.add(product(ShortVector.fromArray(WIDENED_SHORTS, a, aOffset + i), b, bOffset + i));
+        }
+        return sum.reduceLanes(VectorOperators.ADD) + super.dot(a, aOffset + bound, b, bOffset + bound, length - bound);
+    }
+
+    private static IntVector product(ShortVector x, short[] weights, int offset) {
+        return (IntVector) x.mul(ShortVector.fromArray(WIDENED_SHORTS, weights, offset))
+                .convertShape(VectorOperators.S2I, INTS, 0);
+    }
+}